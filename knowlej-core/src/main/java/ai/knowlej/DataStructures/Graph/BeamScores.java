@@ -0,0 +1,65 @@
+package ai.knowlej.DataStructures.Graph;
+
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+import ai.knowlej.DataStructures.Automation.ONNXModel;
+import ai.knowlej.PropositionalLogic.Logic.ExpressionTree;
+import ai.onnxruntime.OrtException;
+
+/**
+ * Node scores for beam-search chaining; the beam keeps the highest-scoring nodes of each epoch.
+ */
+public final class BeamScores {
+    private BeamScores() {
+    }
+
+    /**
+     * @return score preferring smaller formulas
+     */
+    public static ToDoubleFunction<DeductionGraphNode> formulaSize() {
+        return node -> -DeductionHeuristic.size(node.getFormula());
+    }
+
+    /**
+     * @return score counting the operands a formula shares with the goal, less those the goal does not have
+     */
+    public static ToDoubleFunction<DeductionGraphNode> operandOverlap(ExpressionTree goal) {
+        long goalOperands = DeductionHeuristic.operandMask(goal);
+        return node -> {
+            long operands = DeductionHeuristic.operandMask(node.getFormula());
+            return Long.bitCount(operands & goalOperands) - Long.bitCount(operands & ~goalOperands);
+        };
+    }
+
+    /**
+     * @return score preferring formulas near the nearest of the goals under the heuristic
+     */
+    public static ToDoubleFunction<DeductionGraphNode> nearest(DeductionHeuristic heuristic,
+            List<ExpressionTree> goals) {
+        return node -> {
+            int nearest = Integer.MAX_VALUE;
+            for (ExpressionTree goal : goals)
+                nearest = Math.min(nearest, heuristic.distance(node.getFormula(), goal));
+            return -nearest;
+        };
+    }
+
+    /**
+     * Scores a node by the model's first output, given the node's formula size and operand count as a 1 x 2 input.
+     *
+     * @return learned score
+     * @throws IllegalStateException if inference fails
+     */
+    public static ToDoubleFunction<DeductionGraphNode> learned(ONNXModel model) {
+        return node -> {
+            float[] features = { DeductionHeuristic.size(node.getFormula()),
+                    Long.bitCount(DeductionHeuristic.operandMask(node.getFormula())) };
+            try {
+                return model.runInference(features, new long[]{1, 2})[0][0];
+            } catch (OrtException e) {
+                throw new IllegalStateException("Inference failed for " + node.getExpression() + ".", e);
+            }
+        };
+    }
+}
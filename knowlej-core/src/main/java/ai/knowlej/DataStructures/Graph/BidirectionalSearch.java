@@ -0,0 +1,332 @@
+package ai.knowlej.DataStructures.Graph;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Parallel bidirectional best-first search over a snapshot of a deduction graph's adjacency lists, with unit edge
+ * costs. The forward direction starts from every premise along out-edges, the backward direction from the query
+ * along in-edges, and each direction runs on its own set of workers.
+ *
+ * Each direction's open set is striped, one priority queue per worker: a worker pushes to and polls its own stripe
+ * and steals from the others when its own is empty. Path labels (g and parent) are packed into one {@code long} per
+ * node and lowered with compare-and-set, and a node is claimed for expansion by compare-and-set on the g it was
+ * last expanded at, so no lock is held around either set. Every node reached in both directions offers its meeting
+ * cost; entries whose f = g + h is not below the best meeting cost are pruned, and the search ends once either
+ * direction has nothing left below it. With admissible estimates in both directions the meeting path is a shortest
+ * one. A worker that finds every stripe of its direction empty while entries are still being expanded parks on its
+ * direction's monitor until a push or the end of the search wakes it.
+ */
+final class BidirectionalSearch {
+    private static final int FORWARD = 0;
+    private static final int BACKWARD = 1;
+    private static final long UNREACHED = label(Integer.MAX_VALUE, -1);
+
+    /** neighbor ids of each node, by direction: out-edges forward, in-edges backward */
+    private final int[][][] adjacency;
+    /** lower bound on the remaining steps from each node, by direction */
+    private final int[][] estimates;
+    private final int workers;
+
+    /** g and parent of each node, by direction; see {@link #label(int, int)} */
+    private final AtomicLongArray[] labels = new AtomicLongArray[2];
+    /** g each node was last expanded at, by direction */
+    private final AtomicIntegerArray[] expanded = new AtomicIntegerArray[2];
+    private final PriorityBlockingQueue<Entry>[][] openSets;
+    /** entries pushed but not yet fully processed, by direction */
+    private final AtomicInteger[] pending = { new AtomicInteger(), new AtomicInteger() };
+    /** best meeting cost and node, packed like a label */
+    private final AtomicLong best = new AtomicLong(UNREACHED);
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private volatile boolean finished = false;
+    /** run before each expansion, or null; set before any worker starts */
+    private Runnable checkpoint;
+    /** monitor each direction's idle workers wait on */
+    private final Object[] idle = { new Object(), new Object() };
+    /** workers waiting on each direction's monitor */
+    private final AtomicInteger[] waiting = { new AtomicInteger(), new AtomicInteger() };
+    /**
+     * Parties are the caller and each worker still running; it terminates once the caller and every worker have
+     * left, and a worker that only starts after that does not run
+     */
+    private final Phaser running = new Phaser(1);
+
+    /**
+     * @param outEdges  out-neighbor ids of each node id
+     * @param inEdges   in-neighbor ids of each node id
+     * @param forwardEstimates  admissible estimate of the steps from each node to the query
+     * @param backwardEstimates admissible estimate of the steps between each node and the nearest premise
+     * @param workers   workers per direction
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    BidirectionalSearch(int[][] outEdges, int[][] inEdges, int[] forwardEstimates, int[] backwardEstimates,
+            int workers) {
+        if (workers < 1)
+            throw new IllegalArgumentException("Worker count must be at least 1.");
+
+        this.adjacency = new int[][][] { outEdges, inEdges };
+        this.estimates = new int[][] { forwardEstimates, backwardEstimates };
+        this.workers = workers;
+        this.openSets = new PriorityBlockingQueue[2][workers];
+        for (int direction = FORWARD; direction <= BACKWARD; direction++) {
+            this.labels[direction] = new AtomicLongArray(outEdges.length);
+            this.expanded[direction] = new AtomicIntegerArray(outEdges.length);
+            for (int id = 0; id < outEdges.length; id++) {
+                this.labels[direction].set(id, UNREACHED);
+                this.expanded[direction].set(id, Integer.MAX_VALUE);
+            }
+            for (int stripe = 0; stripe < workers; stripe++)
+                this.openSets[direction][stripe] = new PriorityBlockingQueue<>();
+        }
+    }
+
+    /**
+     * Runs the search to completion with {@code 2 * workers - 1} tasks on the executor and one worker on the calling
+     * thread. The tasks need not run at all: a worker steals from every stripe of its direction, so the calling
+     * thread alone completes the search, and tasks that only start once it has finished return immediately. The
+     * search therefore never waits on queued tasks, even on a saturated pool the caller itself runs on.
+     *
+     * @param premises   premise node ids
+     * @param query      query node id
+     * @param checkpoint run by a worker before each entry it expands, or null; an exception it throws ends the
+     *                   search and is rethrown
+     * @return node ids of a shortest path from a premise to the query, premise first, or null if there is none
+     */
+    int[] search(int[] premises, int query, Executor executor, Runnable checkpoint) throws Exception {
+        this.checkpoint = checkpoint;
+        for (int premise : premises)
+            seed(FORWARD, premise);
+        seed(BACKWARD, query);
+
+        for (int direction = FORWARD; direction <= BACKWARD; direction++) {
+            for (int stripe = 0; stripe < this.workers; stripe++) {
+                if (direction == BACKWARD && stripe == 0)
+                    continue;
+                int workerDirection = direction, workerStripe = stripe;
+                executor.execute(() -> runWorker(workerDirection, workerStripe));
+            }
+        }
+        work(BACKWARD, 0);
+
+        // Workers still running see the search finished at their next poll, or are woken by it
+        this.running.awaitAdvance(this.running.arriveAndDeregister());
+
+        Throwable t = this.failure.get();
+        if (t instanceof Exception)
+            throw (Exception) t;
+        if (t != null)
+            throw new IllegalStateException("Search worker failed", t);
+
+        long meeting = this.best.get();
+        return (meeting == UNREACHED) ? null : path(parentOf(meeting));
+    }
+
+    private void seed(int direction, int id) {
+        this.labels[direction].set(id, label(0, -1));
+        if (this.labels[1 - direction].get(id) != UNREACHED)
+            offerMeeting(gOf(this.labels[1 - direction].get(id)), id);
+        push(direction, id % this.workers, new Entry(id, 0, this.estimates[direction][id]));
+    }
+
+    private void runWorker(int direction, int stripe) {
+        if (this.running.register() < 0)
+            return;
+        try {
+            work(direction, stripe);
+        } finally {
+            this.running.arriveAndDeregister();
+        }
+    }
+
+    /**
+     * Expands the direction's entries until the search finishes; a failure finishes the search and is kept for the
+     * caller.
+     */
+    private void work(int direction, int stripe) {
+        try {
+            while (!this.finished) {
+                Entry entry = poll(direction, stripe);
+                if (entry == null) {
+                    awaitEntries(direction);
+                    continue;
+                }
+                try {
+                    if (this.checkpoint != null)
+                        this.checkpoint.run();
+                    expand(direction, stripe, entry);
+                } finally {
+                    // Nothing left below the best meeting cost in this direction; the other direction can only
+                    // confirm it
+                    if (this.pending[direction].decrementAndGet() == 0)
+                        finish();
+                }
+            }
+        } catch (Throwable t) {
+            this.failure.compareAndSet(null, t);
+            finish();
+        }
+    }
+
+    /**
+     * Parks until the direction has an entry to poll, or the search finishes.
+     */
+    private void awaitEntries(int direction) throws InterruptedException {
+        Object monitor = this.idle[direction];
+        synchronized (monitor) {
+            this.waiting[direction].incrementAndGet();
+            try {
+                // A push either lands before this check, or sees the waiter count and notifies after the wait begins
+                while (!this.finished && this.pending[direction].get() > 0 && isEmpty(direction))
+                    monitor.wait();
+            } finally {
+                this.waiting[direction].decrementAndGet();
+            }
+        }
+        if (this.pending[direction].get() == 0)
+            finish();
+    }
+
+    private boolean isEmpty(int direction) {
+        for (PriorityBlockingQueue<Entry> openSet : this.openSets[direction]) {
+            if (!openSet.isEmpty())
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Ends the search and wakes every parked worker.
+     */
+    private void finish() {
+        this.finished = true;
+        for (Object monitor : this.idle) {
+            synchronized (monitor) {
+                monitor.notifyAll();
+            }
+        }
+    }
+
+    private Entry poll(int direction, int stripe) {
+        Entry entry = this.openSets[direction][stripe].poll();
+        for (int k = 1; entry == null && k < this.workers; k++)
+            entry = this.openSets[direction][(stripe + k) % this.workers].poll();
+        return entry;
+    }
+
+    private void push(int direction, int stripe, Entry entry) {
+        this.pending[direction].incrementAndGet();
+        this.openSets[direction][stripe].add(entry);
+        if (this.waiting[direction].get() > 0) {
+            synchronized (this.idle[direction]) {
+                this.idle[direction].notify();
+            }
+        }
+    }
+
+    private void expand(int direction, int stripe, Entry entry) {
+        int node = entry.node;
+        if (gOf(this.labels[direction].get(node)) < entry.g || entry.f >= gOf(this.best.get()))
+            return;
+
+        // Claim the node at this g; a claim at an equal or lower g by another worker makes this entry redundant
+        AtomicIntegerArray claims = this.expanded[direction];
+        int claimed;
+        do {
+            claimed = claims.get(node);
+            if (claimed <= entry.g)
+                return;
+        } while (!claims.compareAndSet(node, claimed, entry.g));
+
+        int g = entry.g + 1;
+        for (int neighbor : this.adjacency[direction][node]) {
+            if (!relax(direction, neighbor, g, node))
+                continue;
+            long opposite = this.labels[1 - direction].get(neighbor);
+            if (opposite != UNREACHED)
+                offerMeeting(g + gOf(opposite), neighbor);
+            int f = g + this.estimates[direction][neighbor];
+            if (f < gOf(this.best.get()))
+                push(direction, stripe, new Entry(neighbor, g, f));
+        }
+    }
+
+    /**
+     * Lowers the node's label to g through the parent.
+     *
+     * @return true if the label was lowered
+     */
+    private boolean relax(int direction, int node, int g, int parent) {
+        AtomicLongArray directionLabels = this.labels[direction];
+        long current;
+        do {
+            current = directionLabels.get(node);
+            if (gOf(current) <= g)
+                return false;
+        } while (!directionLabels.compareAndSet(node, current, label(g, parent)));
+        return true;
+    }
+
+    private void offerMeeting(int cost, int node) {
+        long offered = label(cost, node);
+        long current;
+        do {
+            current = this.best.get();
+            if (gOf(current) <= cost)
+                return;
+        } while (!this.best.compareAndSet(current, offered));
+    }
+
+    /**
+     * @return premise-to-query node ids through the meeting node
+     */
+    private int[] path(int meeting) {
+        int forwardLength = 0, backwardLength = 0;
+        for (int id = meeting; id >= 0; id = parentOf(this.labels[FORWARD].get(id)))
+            forwardLength++;
+        for (int id = parentOf(this.labels[BACKWARD].get(meeting)); id >= 0;
+                id = parentOf(this.labels[BACKWARD].get(id)))
+            backwardLength++;
+
+        int[] path = new int[forwardLength + backwardLength];
+        int i = forwardLength - 1;
+        for (int id = meeting; id >= 0; id = parentOf(this.labels[FORWARD].get(id)))
+            path[i--] = id;
+        i = forwardLength;
+        for (int id = parentOf(this.labels[BACKWARD].get(meeting)); id >= 0;
+                id = parentOf(this.labels[BACKWARD].get(id)))
+            path[i++] = id;
+        return path;
+    }
+
+    /**
+     * Packs a g value and a parent node id; labels order by g first.
+     */
+    private static long label(int g, int parent) {
+        return ((long) g << 32) | (parent & 0xFFFFFFFFL);
+    }
+
+    private static int gOf(long label) {
+        return (int) (label >>> 32);
+    }
+
+    private static int parentOf(long label) {
+        return (int) label;
+    }
+
+    /**
+     * Open set entry ordered by f, breaking ties towards larger g, i.e. the entry further along its path.
+     */
+    private record Entry(int node, int g, int f) implements Comparable<Entry> {
+        @Override
+        public int compareTo(Entry other) {
+            int byF = Integer.compare(this.f, other.f);
+            return (byF != 0) ? byF : Integer.compare(other.g, this.g);
+        }
+    }
+}
@@ -2,19 +2,32 @@ package ai.knowlej.DataStructures.Graph;
 
 import java.util.LinkedList;
 
+import ai.knowlej.Exceptions.InvalidExpressionException;
+import ai.knowlej.Exceptions.InvalidLogicOperatorException;
+import ai.knowlej.Exceptions.InvalidOperandException;
+import ai.knowlej.PropositionalLogic.Logic.ExpressionTree;
+import ai.knowlej.PropositionalLogic.Logic.PropositionCache;
+
 public class DeductionGraphNode {
+    /** id within the owning DirectedDeductionGraph, assigned when the node is added; -1 until then */
+    private int id = -1;
     private String expression;
+    /** interned formula of the expression; the node's identity within a graph */
+    private ExpressionTree formula;
+    /** out-links set on the node itself; a DirectedDeductionGraph keeps its edges in its own adjacency lists */
     private LinkedList<DeductionGraphNode> outNodes;
     private LinkedList<String> outEdgeLaws;
 
     public DeductionGraphNode(String expression) {
         this.expression = expression;
+        this.formula = internFormula(expression);
         this.outNodes = null;
     }
 
     // leaf node constructor
     public DeductionGraphNode(String expression, DeductionGraphNode outNode) {
         this.expression = expression;
+        this.formula = internFormula(expression);
 
         if (outNode != null) {
             this.outNodes = new LinkedList<DeductionGraphNode>() {
@@ -28,17 +41,51 @@ public class DeductionGraphNode {
     // child node constructor
     public DeductionGraphNode(String expression, LinkedList<DeductionGraphNode> outNodes) {
         this.expression = expression;
+        this.formula = internFormula(expression);
         this.outNodes = outNodes;
     }
 
+    private static ExpressionTree internFormula(String expression) {
+        try {
+            return PropositionCache.getShared().getExpressionTree(expression);
+        } catch (InvalidExpressionException | InvalidOperandException | InvalidLogicOperatorException e) {
+            throw new IllegalArgumentException("Invalid node expression: " + expression, e);
+        }
+    }
+
+    public int getId() {
+        return this.id;
+    }
+
+    void setId(int id) {
+        this.id = id;
+    }
+
     public String getExpression() {
         return this.expression;
     }
 
+    /**
+     * Changes the node's formula. Only allowed before the node is added to a graph, since the graph indexes its
+     * nodes by formula and bounds its search estimates by the formulas at each edge.
+     *
+     * @throws IllegalStateException if the node has been added to a graph
+     */
     public void setExpression(String expression) {
+        if (this.id >= 0)
+            throw new IllegalStateException(
+                    "Node " + this.id + " belongs to a deduction graph; its expression cannot change.");
+        this.formula = internFormula(expression);
         this.expression = expression;
     }
 
+    /**
+     * @return interned formula; two nodes hold the same formula exactly when their formulas are {@code ==}
+     */
+    public ExpressionTree getFormula() {
+        return this.formula;
+    }
+
     public String getLaw() {
         return "";
     }
@@ -0,0 +1,80 @@
+package ai.knowlej.DataStructures.Graph;
+
+import java.util.HashSet;
+
+import ai.knowlej.PropositionalLogic.Logic.ExpressionTree;
+
+/**
+ * Structural distance between two formulas, used by {@link DirectedDeductionGraph} to estimate how many law
+ * applications separate a node from its search goal. The distance must be a pseudometric: zero between identical
+ * formulas, symmetric, and satisfying the triangle inequality; distinct formulas may still be at distance zero.
+ *
+ * A metric alone is not a step count, since one law application can move a formula arbitrarily far, e.g.
+ * Conjunction adds every operand of its second premise. The graph therefore scales each distance by the largest
+ * distance spanned by a single edge a shortest derivation can use, which makes the resulting estimate admissible
+ * along shortest derivations: a path of k edges spans at most k times the largest edge distance. Edges between two
+ * premises are left out, since every premise is already a starting point of the search.
+ */
+@FunctionalInterface
+public interface DeductionHeuristic {
+    /** no estimate; A* degrades to uniform-cost search */
+    DeductionHeuristic NONE = (formula, goal) -> 0;
+
+    /** size of the symmetric difference of the formulas' operand sets */
+    DeductionHeuristic OPERAND_DIFFERENCE = (formula, goal) ->
+            Long.bitCount(operandMask(formula) ^ operandMask(goal));
+
+    /** difference in the number of tree nodes */
+    DeductionHeuristic SIZE_DIFFERENCE = (formula, goal) -> Math.abs(size(formula) - size(goal));
+
+    /** number of subformulas occurring in exactly one of the two formulas */
+    DeductionHeuristic SUBFORMULA_OVERLAP = (formula, goal) -> {
+        if (formula == goal)
+            return 0;
+        HashSet<ExpressionTree> formulaTerms = new HashSet<>();
+        HashSet<ExpressionTree> goalTerms = new HashSet<>();
+        collectSubformulas(formula, formulaTerms);
+        collectSubformulas(goal, goalTerms);
+        int shared = 0;
+        for (ExpressionTree term : goalTerms) {
+            if (formulaTerms.contains(term))
+                shared++;
+        }
+        return formulaTerms.size() + goalTerms.size() - 2 * shared;
+    };
+
+    /**
+     * @return distance between the formulas; 0 if they are the same formula
+     */
+    int distance(ExpressionTree formula, ExpressionTree goal);
+
+    /**
+     * @return bit {@code c - 'A'} set for each operand {@code c} of the formula; constants are not operands
+     */
+    static long operandMask(ExpressionTree formula) {
+        if (formula.isOperand())
+            return 1L << (formula.getSymbol() - 'A');
+        if (formula.isConstant())
+            return 0L;
+        long mask = operandMask(formula.getLeft());
+        return formula.isBinary() ? mask | operandMask(formula.getRight()) : mask;
+    }
+
+    /**
+     * @return number of operator, operand and constant nodes in the formula
+     */
+    static int size(ExpressionTree formula) {
+        if (formula.getLeft() == null)
+            return 1;
+        return 1 + size(formula.getLeft()) + (formula.isBinary() ? size(formula.getRight()) : 0);
+    }
+
+    private static void collectSubformulas(ExpressionTree formula, HashSet<ExpressionTree> terms) {
+        if (!terms.add(formula))
+            return;
+        if (formula.getLeft() != null)
+            collectSubformulas(formula.getLeft(), terms);
+        if (formula.isBinary())
+            collectSubformulas(formula.getRight(), terms);
+    }
+}
@@ -1,15 +1,16 @@
 package ai.knowlej.DataStructures.Graph;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.PriorityBlockingQueue;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.Executor;
 
+import ai.knowlej.PropositionalLogic.Logic.ExpressionTree;
 import ai.knowlej.PropositionalLogic.Logic.Proposition;
+import ai.knowlej.PropositionalLogic.Logic.PropositionCache;
 
 public class DirectedDeductionGraph {
     private final ArrayList<DeductionGraphNode> premiseNodes; // initial expression(s) / root(s)
@@ -26,8 +27,37 @@ public class DirectedDeductionGraph {
     private final HashSet<String> knowledgeBase;
     private final Proposition query;
 
-    // Adjacency matrix: adjacencyMatrix[i][j] = 1 means an edge from node i -> node j, 0 means no edge
-    private final ArrayList<ArrayList<Byte>> adjacencyMatrix;
+    // Sparse adjacency keyed by node id: outEdges[id][0 .. outDegrees[id]) are the ids node id points to, and
+    // inEdges mirrors them so a deleted node is unlinked in time proportional to its degree.
+    // Ids are assigned once when a node is added and never reused; nodesById holds null for deleted ids.
+    private final ArrayList<DeductionGraphNode> nodesById = new ArrayList<>();
+    private final HashMap<ExpressionTree, DeductionGraphNode> formulaIndex = new HashMap<>();
+    private int[][] outEdges = new int[16][];
+    private int[] outDegrees = new int[16];
+    private int[][] inEdges = new int[16][];
+    private int[] inDegrees = new int[16];
+    /** edges as {@code outId << 32 | inId}, so a repeated point() is found in constant time */
+    private final HashSet<Long> edges = new HashSet<>();
+    // Position + 1 of each node id in nodes, premiseNodes, forwardNodes and backwardNodes, 0 if absent, so a deleted
+    // node is swap-removed from each list in constant time
+    private int[] nodeSlots = new int[16];
+    private int[] premiseSlots = new int[16];
+    private int[] forwardSlots = new int[16];
+    private int[] backwardSlots = new int[16];
+
+    /** largest graph {@link #getAdjacencyMatrix()} will materialize */
+    public static final int MAX_MATRIX_NODES = 2048;
+
+    /** structural distance A* estimates remaining steps from */
+    private DeductionHeuristic heuristic = DeductionHeuristic.OPERAND_DIFFERENCE;
+    /**
+     * Largest heuristic distance across an edge not between two premises, at least 1; kept up to date as edges
+     * are added, and recomputed only when the heuristic changes. Deleting edges leaves it as an upper bound.
+     */
+    private int edgeSpan = 1;
+    private boolean edgeSpanStale = false;
+    /** search workers per direction */
+    private int searchWorkers = 1;
 
     public DirectedDeductionGraph(HashSet<String> knowledgeBase, Proposition query) {
         this.knowledgeBase = knowledgeBase;
@@ -37,50 +67,25 @@ public class DirectedDeductionGraph {
         nodes = new ArrayList<>();
         premiseNodes = new ArrayList<>();
 
-        // Fill nodes with knowledge base
-        for (int i = 0; i < knowledgeBase.size(); i++) {
-            DeductionGraphNode premiseNode
-                    = new DeductionGraphNode(knowledgeBase.toArray(new String[0])[i]);
+        // Fill nodes with knowledge base; premises spelling the same formula share one node
+        for (String premise : knowledgeBase) {
+            DeductionGraphNode premiseNode = new DeductionGraphNode(premise);
+            if (this.formulaIndex.containsKey(premiseNode.getFormula()))
+                continue;
+            this.register(premiseNode);
             this.premiseNodes.add(premiseNode);
-            this.nodes.add(premiseNode);
-            this.nodeCount++;
+            this.premiseSlots[premiseNode.getId()] = this.premiseNodes.size();
             this.premiseCount++;
         }
 
-        // Points knowledge base expressions to each other
-        if (knowledgeBase.size() > 1) {
-            for (int i = 0; i < knowledgeBase.size(); i++) {
-                for (int j = knowledgeBase.size() - 1; j > 0; j--) {
-                    if (i != j) {
-                        // We'll update adjacency matrix inside mutuallyPoint(...)
-                        // after adjacencyMatrix is fully initialized
-                    } else {
-                        break;
-                    }
-                }
-            }
-        }
-
         // Add a detached query node to the graph
         this.queryNode = new DeductionGraphNode(query.getExpression());
-        this.nodes.add(this.queryNode);
-        this.nodeCount++;
-
-        // ---- Initialize adjacencyMatrix ----
-        // We now know how many nodes we have: 'this.nodes.size()'
-        this.adjacencyMatrix = new ArrayList<>();
-        for (int i = 0; i < this.nodes.size(); i++) {
-            ArrayList<Byte> row = new ArrayList<>();
-            for (int j = 0; j < this.nodes.size(); j++) {
-                row.add((byte) 0);
-            }
-            this.adjacencyMatrix.add(row);
-        }
+        this.register(this.queryNode);
 
-        // Now that adjacencyMatrix is allocated, let's finalize the knowledgeBase mutual pointers
-        if (knowledgeBase.size() > 1) {
-            for (int i = 0; i < knowledgeBase.size(); i++) {
-                for (int j = knowledgeBase.size() - 1; j > 0; j--) {
+        // Points knowledge base expressions to each other
+        if (this.premiseNodes.size() > 1) {
+            for (int i = 0; i < this.premiseNodes.size(); i++) {
+                for (int j = this.premiseNodes.size() - 1; j > 0; j--) {
                     if (i != j) {
                         this.mutuallyPoint(this.premiseNodes.get(i), this.premiseNodes.get(j));
                     } else {
@@ -92,45 +97,73 @@ public class DirectedDeductionGraph {
     }
 
     /**
-     * Ensures adjacencyMatrix stays in sync with 'this.nodes'.
-     * If we add nodes after the constructor, we need to expand the matrix.
+     * Adds a node to the node list and indices and gives it the next id.
      */
-    private void expandAdjacencyMatrix() {
-        int newSize = this.nodes.size();
-        int oldSize = this.adjacencyMatrix.size();
-
-        // If the list was smaller, we add rows/columns to match the newSize
-        if (newSize > oldSize) {
-            // 1) Expand existing rows
-            for (ArrayList<Byte> row : this.adjacencyMatrix) {
-                while (row.size() < newSize) {
-                    row.add((byte) 0);
-                }
-            }
-            // 2) Add new rows
-            for (int i = oldSize; i < newSize; i++) {
-                ArrayList<Byte> newRow = new ArrayList<>();
-                for (int j = 0; j < newSize; j++) {
-                    newRow.add((byte) 0);
-                }
-                this.adjacencyMatrix.add(newRow);
-            }
+    private void register(DeductionGraphNode node) {
+        int id = this.nodesById.size();
+        if (id == this.outEdges.length) {
+            this.outEdges = Arrays.copyOf(this.outEdges, id * 2);
+            this.outDegrees = Arrays.copyOf(this.outDegrees, id * 2);
+            this.inEdges = Arrays.copyOf(this.inEdges, id * 2);
+            this.inDegrees = Arrays.copyOf(this.inDegrees, id * 2);
+            this.nodeSlots = Arrays.copyOf(this.nodeSlots, id * 2);
+            this.premiseSlots = Arrays.copyOf(this.premiseSlots, id * 2);
+            this.forwardSlots = Arrays.copyOf(this.forwardSlots, id * 2);
+            this.backwardSlots = Arrays.copyOf(this.backwardSlots, id * 2);
         }
+        node.setId(id);
+        this.nodesById.add(node);
+        this.formulaIndex.putIfAbsent(node.getFormula(), node);
+        this.nodes.add(node);
+        this.nodeSlots[id] = this.nodes.size();
+        this.nodeCount++;
     }
 
-    @SuppressWarnings("null")
     public void point(DeductionGraphNode outVertex, DeductionGraphNode inVertex) {
         if (outVertex == null || inVertex == null) {
             throw new IllegalArgumentException("Both out and in nodes must be non-null");
-        } else if (!this.nodes.contains(outVertex) || !this.nodes.contains(inVertex)) {
+        } else if (!this.isNode(outVertex) || !this.isNode(inVertex)) {
             throw new IllegalArgumentException("Both out and in nodes must be in the graph");
         }
-        outVertex.addOutNode(inVertex);
+        int outId = outVertex.getId();
+        int inId = inVertex.getId();
+        if (!this.edges.add(edgeKey(outId, inId)))
+            return;
+        if (!this.edgeSpanStale && !(this.isPremiseNode(outVertex) && this.isPremiseNode(inVertex)))
+            this.edgeSpan = Math.max(this.edgeSpan,
+                    this.heuristic.distance(outVertex.getFormula(), inVertex.getFormula()));
+
+        this.outEdges[outId] = append(this.outEdges[outId], this.outDegrees[outId]++, inId);
+        this.inEdges[inId] = append(this.inEdges[inId], this.inDegrees[inId]++, outId);
+    }
+
+    private static long edgeKey(int outId, int inId) {
+        return ((long) outId << 32) | (inId & 0xFFFFFFFFL);
+    }
 
-        // Update adjacency matrix
-        int outIndex = this.nodes.indexOf(outVertex);
-        int inIndex  = this.nodes.indexOf(inVertex);
-        this.adjacencyMatrix.get(outIndex).set(inIndex, (byte)1);
+    private static int[] append(int[] row, int size, int id) {
+        if (row == null) {
+            row = new int[4];
+        } else if (size == row.length) {
+            row = Arrays.copyOf(row, size * 2);
+        }
+        row[size] = id;
+        return row;
+    }
+
+    /**
+     * Removes one occurrence of {@code id} from the first {@code size} entries of the row.
+     *
+     * @return new size of the row
+     */
+    private static int remove(int[] row, int size, int id) {
+        for (int k = 0; k < size; k++) {
+            if (row[k] == id) {
+                row[k] = row[size - 1];
+                return size - 1;
+            }
+        }
+        return size;
     }
 
     private void mutuallyPoint(DeductionGraphNode outVertex, DeductionGraphNode inVertex) {
@@ -140,39 +173,91 @@ public class DirectedDeductionGraph {
         this.point(inVertex, outVertex);
     }
 
+    /**
+     * Adds a node for the expression, or returns the existing node if the graph already holds the same formula.
+     */
     public DeductionGraphNode add(String expression) throws Exception {
+        DeductionGraphNode existing = this.formulaIndex.get(formulaOf(expression));
+        if (existing != null)
+            return existing;
+
         // Add new node
         DeductionGraphNode newNode = new DeductionGraphNode(expression);
-        this.nodes.add(newNode);
-        this.nodeCount++;
+        this.register(newNode);
 
-        // Expand adjacency matrix to accommodate new node
-        this.expandAdjacencyMatrix();
+        return newNode;
+    }
 
-        return this.getNode(expression);
+    /**
+     * @return interned formula of the expression; nodes are identified by formula rather than by String, so
+     *         spacing and redundant parentheses do not create distinct nodes
+     */
+    private static ExpressionTree formulaOf(String expression) throws Exception {
+        return PropositionCache.getShared().getExpressionTree(expression);
     }
 
     public void delete(String expression) {
-        // You may want to remove row/col from adjacencyMatrix or zero them out
-        // For now, let's just remove from nodes (and leave adjacency as-is).
-        for (DeductionGraphNode node : this.nodes) {
-            if (node.getExpression().equals(expression)) {
-                this.nodes.remove(node);
-                this.nodeCount--;
-                break;
-            }
+        ExpressionTree formula;
+        try {
+            formula = formulaOf(expression);
+        } catch (Exception e) {
+            return; // an invalid expression cannot be in the graph
         }
-        // If you want to remove from adjacencyMatrix fully, you can do so here
-        // but then watch your indexes for future calls. Often best to rebuild
-        // or keep a "mark as deleted" pattern.
+        DeductionGraphNode node = this.formulaIndex.get(formula);
+        if (node != null)
+            this.delete(node);
     }
 
+    /**
+     * Removes the node together with its in- and out-edges, in time proportional to its degree. Its id is retired
+     * rather than reused. In each node list the last node takes the deleted node's place.
+     */
     public void delete(DeductionGraphNode vertex) {
-        if (this.nodes.contains(vertex)) {
-            this.nodes.remove(vertex);
-            this.nodeCount--;
+        if (!this.isNode(vertex))
+            return;
+
+        int id = vertex.getId();
+        for (int k = 0; k < this.inDegrees[id]; k++) {
+            int source = this.inEdges[id][k];
+            this.outDegrees[source] = remove(this.outEdges[source], this.outDegrees[source], id);
+            this.edges.remove(edgeKey(source, id));
+        }
+        for (int k = 0; k < this.outDegrees[id]; k++) {
+            int target = this.outEdges[id][k];
+            this.inDegrees[target] = remove(this.inEdges[target], this.inDegrees[target], id);
+            this.edges.remove(edgeKey(id, target));
+        }
+        this.outEdges[id] = null;
+        this.outDegrees[id] = 0;
+        this.inEdges[id] = null;
+        this.inDegrees[id] = 0;
+
+        this.nodesById.set(id, null);
+        this.formulaIndex.remove(vertex.getFormula(), vertex);
+        swapRemove(this.nodes, this.nodeSlots, id);
+        swapRemove(this.premiseNodes, this.premiseSlots, id);
+        if (this.forwardNodes != null)
+            swapRemove(this.forwardNodes, this.forwardSlots, id);
+        if (this.backwardNodes != null)
+            swapRemove(this.backwardNodes, this.backwardSlots, id);
+        this.nodeCount--;
+    }
+
+    /**
+     * Removes the node with the id from the list by moving the list's last node into its place.
+     *
+     * @param slots position + 1 of each node id in the list, 0 if absent
+     */
+    private static void swapRemove(ArrayList<DeductionGraphNode> list, int[] slots, int id) {
+        int slot = slots[id];
+        if (slot == 0)
+            return;
+        slots[id] = 0;
+        DeductionGraphNode last = list.remove(list.size() - 1);
+        if (slot <= list.size()) {
+            list.set(slot - 1, last);
+            slots[last.getId()] = slot;
         }
-        // same caution about adjacencyMatrix as above
     }
 
     public boolean isEmpty() {
@@ -192,32 +277,30 @@ public class DirectedDeductionGraph {
     }
 
     public boolean contains(String expression) throws Exception {
-        for (DeductionGraphNode node : this.nodes) {
-            if (node.getExpression().equals(expression)) {
-                return true;
-            }
-        }
-        return false;
+        return this.formulaIndex.containsKey(formulaOf(expression));
     }
 
 
     public DeductionGraphNode getNode(String expression) throws Exception {
-        for (DeductionGraphNode node : this.nodes) {
-            if (node.getExpression().equals(expression)) {
-                return node;
-            }
-        }
-        throw new Exception("Node not found: " + expression);
+        DeductionGraphNode node = this.formulaIndex.get(formulaOf(expression));
+        if (node == null)
+            throw new Exception("Node not found: " + expression);
+        return node;
+    }
+
+    /**
+     * @return node holding the formula, or null if there is none
+     */
+    public DeductionGraphNode getNode(ExpressionTree formula) {
+        return this.formulaIndex.get(formula);
     }
 
+    /**
+     * @return id of the node holding the expression's formula, or -1 if there is none
+     */
     public int findNodeIndex(String expression) throws Exception {
-        // Optional: validate expression via new Proposition(...)
-        for (int i = 0; i < this.nodes.size(); i++) {
-            if (this.nodes.get(i).getExpression().equals(expression)) {
-                return i;
-            }
-        }
-        return -1;
+        DeductionGraphNode node = this.formulaIndex.get(formulaOf(expression));
+        return node == null ? -1 : node.getId();
     }
 
     public HashSet<String> getKnowledgeBase() {
@@ -235,7 +318,7 @@ public class DirectedDeductionGraph {
     public ArrayList<DeductionGraphNode> getLeafNodes() throws Exception {
         ArrayList<DeductionGraphNode> leafs = new ArrayList<>();
         for (DeductionGraphNode node : this.nodes) {
-            if (node.getOutNodes().isEmpty() && !this.isQueryNode(node)) {
+            if (this.outDegrees[node.getId()] == 0 && !this.isQueryNode(node)) {
                 leafs.add(node);
             }
         }
@@ -258,200 +341,324 @@ public class DirectedDeductionGraph {
         return this.queryNode;
     }
 
+    /**
+     * Appends a node of the graph to the forward nodes, which start out as the premises; a node already there is
+     * not added again.
+     */
     public void addForwardNode(DeductionGraphNode node) {
+        if (!this.isNode(node))
+            throw new IllegalArgumentException("Forward node must be in the graph");
         if (this.forwardNodes == null) {
             this.forwardNodes = new ArrayList<>();
-            this.forwardNodes.addAll(this.premiseNodes);
+            for (DeductionGraphNode premise : this.premiseNodes)
+                append(this.forwardNodes, this.forwardSlots, premise);
         }
-        this.forwardNodes.add(node);
-        this.forwardCount++;
+        if (append(this.forwardNodes, this.forwardSlots, node))
+            this.forwardCount++;
     }
 
+    /**
+     * Appends a node of the graph to the backward nodes, which start out as the query; a node already there is not
+     * added again.
+     */
     public void addBackwardNode(DeductionGraphNode node) {
+        if (!this.isNode(node))
+            throw new IllegalArgumentException("Backward node must be in the graph");
         if (this.backwardNodes == null) {
             this.backwardNodes = new ArrayList<>();
-            this.backwardNodes.add(this.queryNode);
+            append(this.backwardNodes, this.backwardSlots, this.queryNode);
         }
-        this.backwardNodes.add(node);
-        this.backwardCount++;
+        if (append(this.backwardNodes, this.backwardSlots, node))
+            this.backwardCount++;
+    }
+
+    /**
+     * @return true if the node was not in the list yet
+     */
+    private static boolean append(ArrayList<DeductionGraphNode> list, int[] slots, DeductionGraphNode node) {
+        if (slots[node.getId()] != 0)
+            return false;
+        list.add(node);
+        slots[node.getId()] = list.size();
+        return true;
     }
 
     public boolean isNode(DeductionGraphNode vertex) {
-        return this.nodes.contains(vertex);
+        int id = vertex.getId();
+        return id >= 0 && id < this.nodesById.size() && this.nodesById.get(id) == vertex;
     }
 
     public boolean isLeafNode(DeductionGraphNode vertex) throws Exception {
-        return vertex.getOutNodes().isEmpty() && !this.isQueryNode(vertex);
+        return this.isNode(vertex) && this.outDegrees[vertex.getId()] == 0 && !this.isQueryNode(vertex);
     }
 
     public boolean isPremiseNode(DeductionGraphNode vertex) {
-        return this.premiseNodes.contains(vertex);
+        // premises are registered first, so their ids are exactly those below the query node's
+        return this.isNode(vertex) && vertex.getId() < this.queryNode.getId();
     }
 
     public boolean isQueryNode(DeductionGraphNode vertex) {
-        return vertex.getExpression().equals(this.query.getExpression());
+        return vertex.getFormula() == this.queryNode.getFormula();
     }
 
     public boolean isPointing(DeductionGraphNode outVertex, DeductionGraphNode inVertex) throws Exception {
-        return outVertex.getOutNodes().contains(inVertex);
+        return this.isNode(outVertex) && this.isNode(inVertex)
+                && this.edges.contains(edgeKey(outVertex.getId(), inVertex.getId()));
     }
 
     /**
-     * Get the adjacency matrix in its current state.
-     * 1 = edge present, 0 = no edge
+     * @return id of the node, or -1 if it is not in the graph
      */
-    public ArrayList<ArrayList<Byte>> getAdjacencyMatrix() {
-        return this.adjacencyMatrix;
+    public int indexOf(DeductionGraphNode vertex) {
+        return this.isNode(vertex) ? vertex.getId() : -1;
     }
 
-    public void printAdjacencyMatrix() {
-        for (ArrayList<Byte> row : this.adjacencyMatrix) {
-            for (Byte cell : row) {
-                System.out.print(cell + " ");
-            }
-        }
+    /**
+     * @return node with the id, or null if that node was deleted
+     */
+    public DeductionGraphNode nodeAt(int id) {
+        return this.nodesById.get(id);
+    }
+
+    /**
+     * @return ids of the nodes the node with the given id points to
+     */
+    public int[] getOutIndices(int id) {
+        return this.outEdges[id] == null ? new int[0] : Arrays.copyOf(this.outEdges[id], this.outDegrees[id]);
+    }
+
+    /**
+     * @return ids of the nodes pointing to the node with the given id
+     */
+    public int[] getInIndices(int id) {
+        return this.inEdges[id] == null ? new int[0] : Arrays.copyOf(this.inEdges[id], this.inDegrees[id]);
     }
 
-    private record astarNodeRecord(DeductionGraphNode node, Integer f, int g, int h) {
-        astarNodeRecord {
-            if (node == null) {
-                throw new IllegalArgumentException("Node cannot be null");
+    /**
+     * Shortest chain of derivations ending at a node, found by walking in-edges breadth-first back to the nearest
+     * premise.
+     *
+     * @return nodes from a premise to the given node, or null if no premise leads to it
+     */
+    public ArrayList<DeductionGraphNode> derivationPath(DeductionGraphNode vertex) {
+        int target = this.indexOf(vertex);
+        if (target < 0)
+            return null;
+
+        // next[id] is the node id leads to on its way to the target; -2 marks unvisited nodes
+        int[] next = new int[this.nodesById.size()];
+        Arrays.fill(next, -2);
+        next[target] = -1;
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(target);
+        while (!queue.isEmpty()) {
+            int id = queue.poll();
+            DeductionGraphNode node = this.nodesById.get(id);
+            if (this.isPremiseNode(node)) {
+                ArrayList<DeductionGraphNode> path = new ArrayList<>();
+                for (int step = id; step != -1; step = next[step])
+                    path.add(this.nodesById.get(step));
+                return path;
             }
-            if (f < 0 || g < 0 || h < 0) {
-                throw new IllegalArgumentException("f, g, and h must be non-negative");
+            for (int i = 0; i < this.inDegrees[id]; i++) {
+                int from = this.inEdges[id][i];
+                if (next[from] == -2) {
+                    next[from] = id;
+                    queue.add(from);
+                }
             }
         }
+        return null;
     }
 
-    public ArrayList<DeductionGraphNode> multithreadedBidirectionalAStar(Set<String> forwardKnowledgeHistory, Set<String> backwardKnowledgeHistory) throws Exception {
-        final ConcurrentHashMap<String, astarNodeRecord> forwardClosedSet = new ConcurrentHashMap<>();
-        final ConcurrentHashMap<String, astarNodeRecord> backwardClosedSet = new ConcurrentHashMap<>();
-
-        final PriorityBlockingQueue<astarNodeRecord> forwardOpenSet = new PriorityBlockingQueue<>();
-        final PriorityBlockingQueue<astarNodeRecord> backwardOpenSet = new PriorityBlockingQueue<>();
-
-        final AtomicBoolean pathFound = new AtomicBoolean(false);
-        final AtomicReference<DeductionGraphNode> meetingNode = new AtomicReference<>();
-
-        final Object lock = new Object();
-
-        for (DeductionGraphNode premise : this.premiseNodes) {
-            int h = heuristic(premise, this.queryNode);
-            astarNodeRecord nodeRecord = new astarNodeRecord(premise, null, 0, h);
-            forwardOpenSet.add(nodeRecord);
-            forwardClosedSet.put(premise.getExpression(), nodeRecord);
+    /**
+     * Materializes the adjacency matrix of the current nodes, in {@link #getNodes()} order.
+     * 1 = edge present, 0 = no edge. Only meant for small graphs; edges are stored as sparse adjacency lists.
+     *
+     * @throws IllegalStateException if the graph has more than {@link #MAX_MATRIX_NODES} nodes
+     */
+    public ArrayList<ArrayList<Byte>> getAdjacencyMatrix() {
+        int n = this.nodes.size();
+        if (n > MAX_MATRIX_NODES)
+            throw new IllegalStateException("Graph has " + n + " nodes; adjacency matrix is limited to " + MAX_MATRIX_NODES);
+
+        int[] positions = new int[this.nodesById.size()];
+        for (int i = 0; i < n; i++)
+            positions[this.nodes.get(i).getId()] = i;
+
+        ArrayList<ArrayList<Byte>> matrix = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Byte[] row = new Byte[n];
+            Arrays.fill(row, (byte) 0);
+            for (int j : this.getOutIndices(this.nodes.get(i).getId()))
+                row[positions[j]] = (byte) 1;
+            matrix.add(new ArrayList<>(Arrays.asList(row)));
         }
+        return matrix;
+    }
 
-        int hBackward = heuristic(this.queryNode, this.premiseNodes.get(0));
-        astarNodeRecord nodeRecord = new astarNodeRecord(this.queryNode, null, 0, hBackward);
-        backwardOpenSet.add(nodeRecord);
-        backwardClosedSet.put(this.queryNode.getExpression(), nodeRecord);
-
-        Runnable forwardTask = () -> {
-            try {
-                while (!forwardOpenSet.isEmpty() && !pathFound.get()) {
-                    astarNodeRecord currentForward = forwardOpenSet.take();
-
-                    for (DeductionGraphNode neighbor : currentForward.node.getOutNodes()) {
-                        if (pathFound.get()) break;
-
-                        String expression = neighbor.getExpression();
-                        if (forwardClosedSet.containsKey(expression)) continue;
-
-                        int tentativeG = currentForward.g + 1;
-                        int h = heuristic(neighbor, this.queryNode);
-                        int f = tentativeG + h;
-
-                        astarNodeRecord neighborRecord = new astarNodeRecord(neighbor, f, tentativeG, h);
-                        forwardOpenSet.add(neighborRecord);
-                        forwardClosedSet.put(expression, neighborRecord);
+    /**
+     * Prints each node's adjacency list as {@code id: expression -> out ids}.
+     */
+    public void printAdjacencyMatrix() {
+        for (DeductionGraphNode node : this.nodes) {
+            System.out.println(node.getId() + ": " + node.getExpression() + " -> " + Arrays.toString(this.getOutIndices(node.getId())));
+        }
+    }
 
-                        if (backwardClosedSet.containsKey(expression)) {
-                            synchronized (lock) {
-                                pathFound.set(true);
-                                meetingNode.set(neighbor);
-                            }
-                        }
-                        break;
-                    }
-                }
-            } catch (Exception e) {
-                Thread.currentThread().interrupt();
-            }
-        };
+    public DeductionHeuristic getHeuristic() {
+        return this.heuristic;
+    }
 
-        Runnable backwardTask = () -> {
-            try {
-                while (!backwardOpenSet.isEmpty() && !pathFound.get()) {
-                    astarNodeRecord currentBackward = backwardOpenSet.take();
+    /**
+     * Sets the distance {@link #multithreadedBidirectionalAStar(Set, Set)} estimates remaining steps from; see
+     * {@link DeductionHeuristic} for how distances become admissible step estimates.
+     *
+     * @param heuristic distance to use, or null for {@link DeductionHeuristic#NONE}
+     */
+    public void setHeuristic(DeductionHeuristic heuristic) {
+        heuristic = (heuristic == null) ? DeductionHeuristic.NONE : heuristic;
+        if (heuristic != this.heuristic)
+            this.edgeSpanStale = true;
+        this.heuristic = heuristic;
+    }
 
-                    for (DeductionGraphNode neighbor : currentBackward.node.getOutNodes()) {
-                        if (pathFound.get()) break;
+    public int getSearchWorkers() {
+        return this.searchWorkers;
+    }
 
-                        String expression = neighbor.getExpression();
-                        if (backwardClosedSet.containsKey(expression)) continue;
+    /**
+     * Sets how many workers {@link #multithreadedBidirectionalAStar(Set, Set)} runs per search direction.
+     *
+     * @param searchWorkers workers per direction, at least 1
+     */
+    public void setSearchWorkers(int searchWorkers) {
+        if (searchWorkers < 1)
+            throw new IllegalArgumentException("Search worker count must be at least 1.");
+        this.searchWorkers = searchWorkers;
+    }
 
-                        int tentativeG = currentBackward.g + 1;
-                        int h = heuristic(neighbor, this.queryNode);
-                        int f = tentativeG + h;
+    /**
+     * Finds a shortest derivation of the query from the premises with a parallel bidirectional best-first search,
+     * {@link #getSearchWorkers()} workers per direction, guided by the graph's {@link #getHeuristic()}; see
+     * {@link BidirectionalSearch}. The graph must not change while the search runs.
+     *
+     * Workers beyond the calling thread get a new daemon thread each; see
+     * {@link #multithreadedBidirectionalAStar(Set, Set, Executor)} to run them on an existing executor.
+     *
+     * @return path from a premise to the query, premise first, or null if the query is not reachable
+     */
+    public ArrayList<DeductionGraphNode> multithreadedBidirectionalAStar(Set<ExpressionTree> forwardKnowledgeHistory, Set<ExpressionTree> backwardKnowledgeHistory) throws Exception {
+        return multithreadedBidirectionalAStar(forwardKnowledgeHistory, backwardKnowledgeHistory, command -> {
+            Thread worker = new Thread(command, "Bidirectional search");
+            worker.setDaemon(true);
+            worker.start();
+        });
+    }
 
-                        astarNodeRecord neighborRecord = new astarNodeRecord(neighbor, f, tentativeG, h);
-                        backwardOpenSet.add(neighborRecord);
-                        backwardClosedSet.put(expression, neighborRecord);
+    /**
+     * Same search, with the workers beyond the calling thread run on the given executor. The search does not wait
+     * for workers the executor has not started, so any executor works, including a saturated one.
+     */
+    public ArrayList<DeductionGraphNode> multithreadedBidirectionalAStar(Set<ExpressionTree> forwardKnowledgeHistory, Set<ExpressionTree> backwardKnowledgeHistory, Executor executor) throws Exception {
+        return multithreadedBidirectionalAStar(forwardKnowledgeHistory, backwardKnowledgeHistory, executor, null);
+    }
 
-                        if (forwardClosedSet.containsKey(expression)) {
-                            synchronized (lock) {
-                                pathFound.set(true);
-                                meetingNode.set(neighbor);
-                            }
-                        }
-                        break;
-                    }
-                }
-            } catch (Exception e) {
-                Thread.currentThread().interrupt();
+    /**
+     * Same search on the given executor, with a checkpoint every worker runs before each node it expands, e.g. to
+     * stop on a deadline or cancellation.
+     *
+     * @param checkpoint run before each expansion, or null; an exception it throws ends the search and is rethrown
+     */
+    public ArrayList<DeductionGraphNode> multithreadedBidirectionalAStar(Set<ExpressionTree> forwardKnowledgeHistory, Set<ExpressionTree> backwardKnowledgeHistory, Executor executor, Runnable checkpoint) throws Exception {
+        if (executor == null)
+            throw new IllegalArgumentException("Executor cannot be null.");
+
+        int idCount = this.nodesById.size();
+        int[][] outIndices = new int[idCount][];
+        int[][] inIndices = new int[idCount][];
+        int[] forwardEstimates = new int[idCount];
+        int[] backwardEstimates = new int[idCount];
+        int span = edgeSpan();
+        // The query serves as a landmark for the backward estimate: by the triangle inequality a node's distance to
+        // the nearest premise is at least the smallest difference between its own and a premise's distance to the
+        // query, found by binary search over the premises' sorted distances
+        int[] premiseDistances = new int[this.premiseNodes.size()];
+        for (int i = 0; i < premiseDistances.length; i++)
+            premiseDistances[i] = this.heuristic.distance(this.premiseNodes.get(i).getFormula(),
+                    this.queryNode.getFormula());
+        Arrays.sort(premiseDistances);
+        for (int id = 0; id < idCount; id++) {
+            outIndices[id] = getOutIndices(id);
+            inIndices[id] = getInIndices(id);
+            DeductionGraphNode node = this.nodesById.get(id);
+            if (node != null) {
+                int toQuery = this.heuristic.distance(node.getFormula(), this.queryNode.getFormula());
+                forwardEstimates[id] = steps(toQuery, span);
+                backwardEstimates[id] = steps(nearestDifference(premiseDistances, toQuery), span);
             }
-        };
-
-        Thread forwardThread = new Thread(forwardTask, "Forward A*");
-        Thread backwardThread = new Thread(backwardTask, "Backward A*");
-
-        forwardThread.start();
-        backwardThread.start();
-
-        try {
-            forwardThread.join();
-            backwardThread.join();
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-            Thread.currentThread().interrupt();
-        }
-
-        if (meetingNode != null) {
-            ArrayList<DeductionGraphNode> forwardPath = reconstructPath(meetingNode.get(), forwardClosedSet);
-            ArrayList<DeductionGraphNode> backwardPath = reconstructPath(meetingNode.get(), backwardClosedSet);
-            Collections.reverse(backwardPath);
-            forwardPath.addAll(backwardPath.subList(1, backwardPath.size()));
-            return forwardPath;
         }
-
-        return null;
+        int[] premiseIds = new int[this.premiseNodes.size()];
+        for (int i = 0; i < premiseIds.length; i++)
+            premiseIds[i] = this.premiseNodes.get(i).getId();
+
+        BidirectionalSearch search = new BidirectionalSearch(outIndices, inIndices, forwardEstimates,
+                backwardEstimates, this.searchWorkers);
+        int[] pathIds = search.search(premiseIds, this.queryNode.getId(), executor, checkpoint);
+        if (pathIds == null)
+            return null;
+
+        ArrayList<DeductionGraphNode> path = new ArrayList<>(pathIds.length);
+        for (int id : pathIds)
+            path.add(this.nodesById.get(id));
+        return path;
     }
 
-    private int heuristic(DeductionGraphNode start, DeductionGraphNode goal) {
-        return 0;
+    /**
+     * @return fewest edges of at most the span each that cover the distance
+     */
+    private static int steps(int distance, int span) {
+        return (distance + span - 1) / span;
     }
 
-    private ArrayList<DeductionGraphNode> reconstructPath(DeductionGraphNode node, ConcurrentHashMap<String, astarNodeRecord> closedSet) {
-        ArrayList<DeductionGraphNode> path = new ArrayList<>();
-        path.add(node);
+    /**
+     * @return smallest difference between the value and an element of the sorted array, 0 if the array is empty
+     */
+    private static int nearestDifference(int[] sorted, int value) {
+        if (sorted.length == 0)
+            return 0;
+        int i = Arrays.binarySearch(sorted, value);
+        if (i >= 0)
+            return 0;
+        int insertion = -i - 1;
+        int difference = Integer.MAX_VALUE;
+        if (insertion < sorted.length)
+            difference = sorted[insertion] - value;
+        if (insertion > 0)
+            difference = Math.min(difference, value - sorted[insertion - 1]);
+        return difference;
+    }
 
-        while (closedSet.containsKey(node.getExpression())) {
-            astarNodeRecord nodeRecord = closedSet.get(node.getExpression());
-            node = nodeRecord.node;
-            path.add(node);
+    /**
+     * @return largest heuristic distance across an edge not between two premises, at least 1; no single step of a
+     *         shortest derivation covers more
+     */
+    private int edgeSpan() {
+        if (this.edgeSpanStale) {
+            int largest = 1;
+            for (int id = 0; id < this.nodesById.size(); id++) {
+                DeductionGraphNode source = this.nodesById.get(id);
+                if (source == null)
+                    continue;
+                for (int k = 0; k < this.outDegrees[id]; k++) {
+                    DeductionGraphNode target = this.nodesById.get(this.outEdges[id][k]);
+                    if (!(this.isPremiseNode(source) && this.isPremiseNode(target)))
+                        largest = Math.max(largest, this.heuristic.distance(source.getFormula(), target.getFormula()));
+                }
+            }
+            this.edgeSpan = largest;
+            this.edgeSpanStale = false;
         }
-
-        return path;
+        return this.edgeSpan;
     }
 }
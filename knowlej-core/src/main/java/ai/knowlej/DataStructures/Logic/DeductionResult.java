@@ -0,0 +1,46 @@
+package ai.knowlej.DataStructures.Logic;
+
+import ai.knowlej.DataStructures.Graph.DeductionGraphNode;
+
+import java.util.List;
+
+/**
+ * Outcome of a budgeted deduction. Besides the proof, it keeps what the search had reached when it stopped: the
+ * forward frontier derived from the premises, the backward frontier derived from the query, and the forward node
+ * nearest the query with its derivation, so a deduction that ran out of budget still returns its closest progress.
+ *
+ * @param proof            proof of the query; its path is null unless the status is {@link Status#PROVED}
+ * @param status           why the deduction stopped
+ * @param forwardFrontier  nodes derived from the premises, premises included
+ * @param backwardFrontier nodes derived from the query, query included
+ * @param nearestNode      forward node nearest the query by the deduction heuristic, or null if none was reached
+ * @param nearestPath      nodes from a premise to the nearest node, or null if there is no nearest node
+ */
+public record DeductionResult(Proof proof, Status status, List<DeductionGraphNode> forwardFrontier,
+        List<DeductionGraphNode> backwardFrontier, DeductionGraphNode nearestNode,
+        List<DeductionGraphNode> nearestPath) {
+
+    public enum Status {
+        /** a proof was found */
+        PROVED,
+        /** chaining ran all of its epochs without finding a proof */
+        NOT_PROVED,
+        /** the time budget elapsed */
+        TIMED_OUT,
+        /** the deduction graph reached the node budget */
+        NODE_LIMIT,
+        /** the cancellation token was set */
+        CANCELLED
+    }
+
+    public boolean isProved() {
+        return this.status == Status.PROVED;
+    }
+
+    /**
+     * @return true if the deduction stopped on its budget or cancellation rather than running to completion
+     */
+    public boolean isPartial() {
+        return this.status != Status.PROVED && this.status != Status.NOT_PROVED;
+    }
+}
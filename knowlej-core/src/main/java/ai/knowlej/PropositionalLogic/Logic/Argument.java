@@ -1,18 +1,35 @@
 package ai.knowlej.PropositionalLogic.Logic;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
 import java.util.function.Function;
-import java.util.regex.Pattern;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import ai.knowlej.DataStructures.Automation.ONNXModel;
+import ai.knowlej.DataStructures.Graph.BeamScores;
 import ai.knowlej.DataStructures.Graph.DeductionGraphNode;
+import ai.knowlej.DataStructures.Graph.DeductionHeuristic;
 import ai.knowlej.DataStructures.Graph.DirectedDeductionGraph;
+import ai.knowlej.DataStructures.Logic.DeductionResult;
 import ai.knowlej.DataStructures.Logic.Proof;
 import ai.knowlej.Exceptions.InvalidExpressionException;
 import ai.knowlej.Exceptions.InvalidLogicOperatorException;
 import ai.knowlej.Exceptions.InvalidOperandException;
 
-import java.util.regex.Matcher;
 
 import ai.knowlej.PropositionalLogic.Models.LogicModels.DeterministicModel;
 import ai.knowlej.PropositionalLogic.Models.LogicModels.ModelAbstract;
@@ -20,12 +37,29 @@ import ai.knowlej.PropositionalLogic.Models.LogicModels.ModelAbstract;
 import ai.knowlej.Automation.API.KnowleJGrpcServer;
 
 public class Argument<M extends ModelAbstract> {
+    /**
+     * How {@link #checkAllTTModels(Proposition)} decides entailment: by enumerating the KB truth table, by
+     * Tseitin-encoding the KB and the negated query to CNF and handing it to a CDCL solver, or by compiling the KB
+     * conjunction and the query to a shared {@link BinaryDecisionDiagram}. SAT and BDD modes skip the truth table
+     * entirely and so are not limited to 15 operands.
+     */
+    public enum EntailmentMode {
+        TRUTH_TABLE,
+        SAT,
+        BDD
+    }
+
     private M[] knowledgeBase;
+    private EntailmentMode entailmentMode = EntailmentMode.TRUTH_TABLE;
+    /** table rows on which every KB model is T, ascending */
+    private int[] trueKBRows;
     private ArrayList<ArrayList<String>> trueKBModels;
 
     private boolean learn_flag = false;
     private KnowleJGrpcServer grpcServer;
     private final String BEST_SAMPLE_MODEL_PATH = "";
+    /** model ranking deduction frontiers when learning, loaded on first use */
+    private ONNXModel sampleModel;
 
     private char[] operands;
     private byte operandCount;
@@ -33,39 +67,380 @@ public class Argument<M extends ModelAbstract> {
     private String[][] allTruthTable;
     private Boolean[][] allTruthValues;
 
+    private BitParallelTruthTable packedTruthTable;
+    private long[][] modelColumns;
+    private long[] kbColumn;
+
+    /** KB encoded in SAT mode, built on the first query; queries lock the Argument like BDD queries */
+    private CDCLSolver satSolver;
+    private TseitinEncoder satEncoder;
+
+    /**
+     * KB conjunction compiled in BDD mode, built on the first query. Queries lock the Argument while they use it, so
+     * they may run concurrently; changing the knowledge base must not overlap them.
+     */
+    private BinaryDecisionDiagram kbDiagram;
+    private int kbDiagramRoot;
+
+    /** truth tables wider than this many 64-row words are split across fork/join tasks in parallel builds */
+    private static final int PARALLEL_SPLIT_WORDS = 16;
+    private boolean parallelBuild = false;
+    private ForkJoinPool truthTablePool = ForkJoinPool.commonPool();
+
+    private boolean parallelExpansion = false;
+    private ForkJoinPool deductionPool = ForkJoinPool.commonPool();
+    /** executor deductions run on when none is given; see {@link #defaultDeductionExecutor()} */
+    private static volatile ExecutorService defaultDeductionExecutor;
+
+    private static final int EQUALITY_SATURATION_ROUNDS = 2;
+    private boolean equalitySaturation = false;
+    private boolean semiNaiveEvaluation = true;
+    private DeductionHeuristic deductionHeuristic = DeductionHeuristic.OPERAND_DIFFERENCE;
+    private int searchWorkers = 1;
+    /** nodes kept per chaining direction and epoch; 0 expands every node */
+    private int beamWidth = 0;
+    private ToDoubleFunction<DeductionGraphNode> beamScore;
+
+    /** proofs and forward closure of earlier deductions from the current knowledge base */
+    private final DerivationCache derivationCache = new DerivationCache();
+    /** inference laws of this Argument's deductions, caching the results of the premise pairs they try */
+    private final InferenceLaws<ModelAbstract> inferenceLaws = new InferenceLaws<>();
+
     // private String[][] currentTruthTable;
     // private Boolean[][] currentTruthValues;
 
     public Argument(M[] knowledgeBase, boolean learn)
             throws InvalidExpressionException, InvalidOperandException, InvalidLogicOperatorException {
+        this(knowledgeBase, learn, EntailmentMode.TRUTH_TABLE);
+    }
+
+    public Argument(M[] knowledgeBase, boolean learn, EntailmentMode entailmentMode)
+            throws InvalidExpressionException, InvalidOperandException, InvalidLogicOperatorException {
+        this(knowledgeBase, learn, entailmentMode, null);
+    }
+
+    /**
+     * @param truthTablePool pool the truth table is built on in parallel, or null to build it on the calling thread
+     */
+    public Argument(M[] knowledgeBase, boolean learn, EntailmentMode entailmentMode, ForkJoinPool truthTablePool)
+            throws InvalidExpressionException, InvalidOperandException, InvalidLogicOperatorException {
+        if (entailmentMode == null)
+            throw new IllegalArgumentException("Entailment mode cannot be null.");
+
+        if (truthTablePool != null)
+            setParallelBuild(true, truthTablePool);
+        this.entailmentMode = entailmentMode;
         validateKnowledgeBase(knowledgeBase);
-        setTruthTable();
+        if (this.entailmentMode == EntailmentMode.TRUTH_TABLE)
+            setTruthTable();
         this.learn_flag = learn;
     }
 
     public void setKnowledgeBase(M[] knowledgeBase)
             throws InvalidExpressionException, InvalidOperandException, InvalidLogicOperatorException {
         validateKnowledgeBase(knowledgeBase);
-        setTruthTable();
+        this.satSolver = null;
+        this.satEncoder = null;
+        this.kbDiagram = null;
+        this.derivationCache.clear();
+        if (this.entailmentMode == EntailmentMode.TRUTH_TABLE)
+            setTruthTable();
+        else
+            discardTruthTable();
     }
 
+    /**
+     * Adds a model to the knowledge base, updating the truth table instead of rebuilding it. Each operand the model
+     * introduces doubles the table by duplicating the existing columns; the model's column is then computed once
+     * and AND-ed into the KB column, which refines the KB-satisfying rows. A compiled KB diagram is likewise AND-ed
+     * with the model's diagram, new operands going below the existing variables.
+     */
     public void addKnowledgeModel(M model) {
+        if (model == null)
+            throw new IllegalArgumentException("Model cannot be null.");
+
+        StringBuilder operandString = new StringBuilder(String.valueOf(this.operands));
+        appendOperands(operandString, model);
+        if (this.entailmentMode == EntailmentMode.TRUTH_TABLE && operandString.length() > 15)
+            throw new IllegalArgumentException("Too many total operands in knowledge base; only 15 total allowed.");
+        char[] newOperands = operandString.substring(this.operandCount).toCharArray();
+
         M[] updatedKB = Arrays.copyOf(this.knowledgeBase, this.knowledgeBase.length + 1);
         updatedKB[updatedKB.length-1] = model;
         this.knowledgeBase = updatedKB;
+        this.operands = operandString.toString().toCharArray();
+        this.operandCount = (byte) this.operands.length;
+        this.satSolver = null;
+        this.satEncoder = null;
+        this.derivationCache.clear();
+        if (this.kbDiagram != null)
+            this.kbDiagramRoot = this.kbDiagram.and(this.kbDiagramRoot,
+                    this.kbDiagram.compile(model.getProposition().getExpressionTree()));
+
+        if (this.entailmentMode != EntailmentMode.TRUTH_TABLE || this.packedTruthTable == null) {
+            discardTruthTable();
+            return;
+        }
+
+        for (char operand : newOperands) {
+            this.packedTruthTable = this.packedTruthTable.withOperand(operand);
+            for (int i = 0; i < this.modelColumns.length; i++)
+                this.modelColumns[i] = this.packedTruthTable.extendColumn(this.modelColumns[i]);
+            this.kbColumn = this.packedTruthTable.extendColumn(this.kbColumn);
+        }
+
+        long[] modelColumn = this.packedTruthTable.evaluate(model.getProposition().getExpressionTree());
+        this.modelColumns = Arrays.copyOf(this.modelColumns, this.modelColumns.length + 1);
+        this.modelColumns[this.modelColumns.length - 1] = modelColumn;
+        for (int w = 0; w < this.kbColumn.length; w++)
+            this.kbColumn[w] &= modelColumn[w];
+        collectTrueKBModels();
+    }
+
+    /**
+     * Removes a model from the knowledge base. While the remaining models still use every operand, in the same
+     * order of first appearance, the truth table is updated by dropping the model's column and recombining the KB
+     * column from the stored model columns; no formula is re-evaluated. Otherwise the table is rebuilt over the
+     * remaining operands, so it always matches a table built from the remaining models.
+     *
+     * @param index index of the model in the knowledge base
+     */
+    public void removeKnowledgeModel(int index)
+            throws InvalidExpressionException, InvalidOperandException, InvalidLogicOperatorException {
+        if (index < 0 || index >= this.knowledgeBase.length)
+            throw new IndexOutOfBoundsException("No knowledge base model at index " + index + ".");
+        if (this.knowledgeBase.length == 1)
+            throw new IllegalArgumentException("Knowledge base cannot be empty.");
+
+        M[] updatedKB = Arrays.copyOf(this.knowledgeBase, this.knowledgeBase.length - 1);
+        System.arraycopy(this.knowledgeBase, index + 1, updatedKB, index, updatedKB.length - index);
+
+        StringBuilder operandString = new StringBuilder();
+        for (M m : updatedKB)
+            appendOperands(operandString, m);
+        if (!operandString.toString().equals(String.valueOf(this.operands))) {
+            setKnowledgeBase(updatedKB);
+            return;
+        }
+
+        this.knowledgeBase = updatedKB;
+        this.satSolver = null;
+        this.satEncoder = null;
+        this.kbDiagram = null;
+        this.derivationCache.clear();
+
+        if (this.entailmentMode != EntailmentMode.TRUTH_TABLE || this.packedTruthTable == null) {
+            discardTruthTable();
+            return;
+        }
+
+        long[][] updatedColumns = new long[updatedKB.length][];
+        for (int i = 0, j = 0; i < this.modelColumns.length; i++) {
+            if (i != index)
+                updatedColumns[j++] = this.modelColumns[i];
+        }
+        this.modelColumns = updatedColumns;
+        this.kbColumn = this.packedTruthTable.and(updatedColumns);
+        collectTrueKBModels();
+    }
+
+    private static void appendOperands(StringBuilder operandString, ModelAbstract model) {
+        for (char modelOperand : model.getOperands()) {
+            if (operandString.indexOf(String.valueOf(modelOperand)) == -1)
+                operandString.append(modelOperand);
+        }
+    }
+
+    public boolean isParallelBuild() {
+        return this.parallelBuild;
+    }
+
+    /**
+     * Enables building the truth table on a fork/join pool, splitting the rows into word ranges. Takes effect on the
+     * next table build, i.e. the next {@link #setKnowledgeBase(M[])} or switch to {@link EntailmentMode#TRUTH_TABLE}.
+     *
+     * @param parallelBuild true to build in parallel
+     * @param pool          pool to build on, or null for the common pool
+     */
+    public void setParallelBuild(boolean parallelBuild, ForkJoinPool pool) {
+        this.parallelBuild = parallelBuild;
+        this.truthTablePool = (pool == null) ? ForkJoinPool.commonPool() : pool;
+    }
+
+    public boolean isParallelExpansion() {
+        return this.parallelExpansion;
+    }
+
+    /**
+     * Enables expanding each deduction frontier in parallel: the inference and equivalency laws are applied to all
+     * premise pairs or nodes of a frontier concurrently, and the results are merged into the deduction graph in
+     * frontier order, so the graph built is the same as in a sequential deduction.
+     *
+     * @param parallelExpansion true to expand frontiers in parallel
+     * @param pool              pool to expand on, or null for the common pool
+     */
+    public void setParallelExpansion(boolean parallelExpansion, ForkJoinPool pool) {
+        this.parallelExpansion = parallelExpansion;
+        this.deductionPool = (pool == null) ? ForkJoinPool.commonPool() : pool;
+    }
+
+    public boolean isEqualitySaturation() {
+        return this.equalitySaturation;
+    }
+
+    /**
+     * Enables equality saturation during deduction: instead of adding a graph node for every formula the
+     * equivalency laws produce, deduction keeps the formulas' equivalence classes in an e-graph and only links the
+     * query once it falls in the class of a derived formula. Equivalency steps then run sequentially, even with
+     * parallel expansion enabled.
+     *
+     * @param equalitySaturation true to explore equivalencies through an e-graph
+     */
+    public void setEqualitySaturation(boolean equalitySaturation) {
+        if (this.equalitySaturation != equalitySaturation)
+            this.derivationCache.clearUnproved();
+        this.equalitySaturation = equalitySaturation;
+    }
+
+    public boolean isSemiNaiveEvaluation() {
+        return this.semiNaiveEvaluation;
+    }
+
+    /**
+     * Enables semi-naive evaluation of premise pairs, on by default: each deduction epoch only combines the formulas
+     * derived since the previous epoch with the whole knowledge history, instead of recombining every pair. Pairs
+     * combined earlier cannot derive anything new, so the deduction graph built is the same either way.
+     *
+     * @param semiNaiveEvaluation false to recombine the whole history every epoch
+     */
+    public void setSemiNaiveEvaluation(boolean semiNaiveEvaluation) {
+        if (this.semiNaiveEvaluation != semiNaiveEvaluation)
+            this.derivationCache.clearUnproved();
+        this.semiNaiveEvaluation = semiNaiveEvaluation;
+    }
+
+    public DeductionHeuristic getDeductionHeuristic() {
+        return this.deductionHeuristic;
+    }
+
+    /**
+     * Sets the formula distance the proof search is guided by, {@link DeductionHeuristic#OPERAND_DIFFERENCE} by
+     * default. Distances are scaled per deduction graph so the estimate stays admissible, so the proofs found are
+     * equally short under every heuristic; a sharper one only expands fewer nodes.
+     *
+     * @param deductionHeuristic distance to use, or null for {@link DeductionHeuristic#NONE}
+     */
+    public void setDeductionHeuristic(DeductionHeuristic deductionHeuristic) {
+        this.derivationCache.clearUnproved();
+        this.deductionHeuristic = (deductionHeuristic == null) ? DeductionHeuristic.NONE : deductionHeuristic;
+    }
+
+    public int getSearchWorkers() {
+        return this.searchWorkers;
+    }
+
+    /**
+     * Sets how many workers the proof search runs in each direction, 1 by default. The proofs found are equally
+     * short for every worker count.
+     *
+     * @param searchWorkers workers per direction, at least 1
+     */
+    public void setSearchWorkers(int searchWorkers) {
+        if (searchWorkers < 1)
+            throw new IllegalArgumentException("Search worker count must be at least 1.");
+        this.searchWorkers = searchWorkers;
+    }
+
+    public int getBeamWidth() {
+        return this.beamWidth;
+    }
+
+    /**
+     * Switches chaining to beam search, off by default. Each epoch, each direction keeps only the beamWidth
+     * best-scoring of the nodes it derived in the previous epoch, and expands just those: the single-premise laws
+     * and equivalencies are applied to the beam, and premise pairs are formed between the beam and the premises,
+     * or the query when chaining backward. Work per epoch is then bounded by the width instead of by everything
+     * derived so far, but nodes left out of the beam are never expanded, so a query may go unproved that a full
+     * search would prove; such failures are not cached.
+     *
+     * @param beamWidth nodes kept per direction and epoch, or 0 to expand every node
+     */
+    public void setBeamWidth(int beamWidth) {
+        if (beamWidth < 0)
+            throw new IllegalArgumentException("Beam width cannot be negative.");
+        this.beamWidth = beamWidth;
+    }
+
+    public ToDoubleFunction<DeductionGraphNode> getBeamScore() {
+        return this.beamScore;
+    }
+
+    /**
+     * Sets the score beam search ranks nodes by, higher first; see {@link BeamScores}. By default nodes are ranked
+     * by how near they are, under the deduction heuristic, to the query when chaining forward and to the nearest
+     * premise when chaining backward.
+     *
+     * @param beamScore score to rank by, or null for the default
+     */
+    public void setBeamScore(ToDoubleFunction<DeductionGraphNode> beamScore) {
+        this.derivationCache.clearUnproved();
+        this.beamScore = beamScore;
+    }
+
+    public EntailmentMode getEntailmentMode() {
+        return this.entailmentMode;
+    }
+
+    /**
+     * Switches how entailment is decided. Switching to {@link EntailmentMode#TRUTH_TABLE} builds the truth table if
+     * it has not been built yet.
+     */
+    public void setEntailmentMode(EntailmentMode entailmentMode)
+            throws InvalidExpressionException, InvalidOperandException, InvalidLogicOperatorException {
+        if (entailmentMode == null)
+            throw new IllegalArgumentException("Entailment mode cannot be null.");
+
+        if (entailmentMode == EntailmentMode.TRUTH_TABLE && this.packedTruthTable == null) {
+            if (this.operandCount > 15)
+                throw new IllegalArgumentException("Too many total operands in knowledge base; only 15 total allowed.");
+            setTruthTable();
+        }
+        this.entailmentMode = entailmentMode;
     }
 
     public int getKnowledgeBaseSize() {
         return this.knowledgeBase.length;
     }
 
+    /**
+     * Materializes the full String truth table on first call; prefer {@link #truthTableRows()} for large KBs.
+     */
     public String[][] getAllTruthTable() {
+        if (this.allTruthTable == null && this.packedTruthTable != null)
+            this.allTruthTable = truthTableRows().toArray(String[][]::new);
         return this.allTruthTable;
     }
 
+    /**
+     * Materializes the full truth value table on first call; prefer {@link #truthValueRows()} for large KBs.
+     */
     public Boolean[][] getAllTableValues() {
+        if (this.allTruthValues == null && this.packedTruthTable != null)
+            this.allTruthValues = truthValueRows().toArray(Boolean[][]::new);
         return this.allTruthValues;
     }
+
+    public BitParallelTruthTable getPackedTruthTable() {
+        return this.packedTruthTable;
+    }
+
+    /**
+     * @return packed column of the KB conjunction, bit set for each row where every KB model is T
+     */
+    public long[] getKBColumn() {
+        return this.kbColumn;
+    }
+
     public M getKnowledgeBaseModel(int index) {
         return this.knowledgeBase[index];
     }
@@ -98,10 +473,65 @@ public class Argument<M extends ModelAbstract> {
         return propositions;
     }
 
+    /**
+     * Materializes the KB-satisfying rows as String rows, title row first, on first call; prefer
+     * {@link #trueKBModelRows()} or {@link #getTrueKBRows()} for large KBs.
+     */
     public ArrayList<ArrayList<String>> getAllTrueKBModels() {
+        if (this.trueKBModels == null && this.trueKBRows != null) {
+            ArrayList<ArrayList<String>> models = new ArrayList<>(this.trueKBRows.length + 1);
+            trueKBModelRows().forEachOrdered(row -> models.add(new ArrayList<>(Arrays.asList(row))));
+            this.trueKBModels = models;
+        }
         return this.trueKBModels;
     }
 
+    /**
+     * Streams the KB-satisfying rows as String rows, title row first, computing each row only when it is consumed.
+     *
+     * @return row stream, or null in {@link EntailmentMode#SAT} and {@link EntailmentMode#BDD} modes, where no truth table is built
+     */
+    public Stream<String[]> trueKBModelRows() {
+        if (this.trueKBRows == null)
+            return null;
+        return Stream.concat(Stream.<String[]>of(getTruthTableTitleRow()),
+                Arrays.stream(this.trueKBRows).mapToObj(this::computeTruthTableRow));
+    }
+
+    /**
+     * @return copy of the table rows, excluding the title row, on which every KB model is T, ascending; null when no
+     *         truth table is built
+     */
+    public int[] getTrueKBRows() {
+        return (this.trueKBRows == null) ? null : this.trueKBRows.clone();
+    }
+
+    public int getTrueKBModelCount() {
+        return (this.trueKBRows == null) ? 0 : this.trueKBRows.length;
+    }
+
+    /**
+     * Counts the assignments of the KB operands that satisfy every KB model: from the truth table when it is built,
+     * otherwise from the compiled KB diagram, without enumerating assignments.
+     */
+    public long countKBModels() {
+        if (this.trueKBRows != null)
+            return this.trueKBRows.length;
+        synchronized (this) {
+            return getKBDiagram().countModels(this.kbDiagramRoot);
+        }
+    }
+
+    /**
+     * @param model 0 to {@link #getTrueKBModelCount()} - 1
+     * @return operand assignment of the KB-satisfying model, bit {@code j} set when operand {@code j} is T
+     */
+    public long getTrueKBAssignment(int model) {
+        if (this.trueKBRows == null || model < 0 || model >= this.trueKBRows.length)
+            throw new IndexOutOfBoundsException("Model " + model + " is out of bounds");
+        return TruthTableBuilder.rowAssignment(this.trueKBRows[model], this.operandCount);
+    }
+
     private void validateKnowledgeBase(M[] kb) throws InvalidExpressionException, InvalidOperandException, InvalidLogicOperatorException {
         if (kb == null || kb.length == 0)
             throw new IllegalArgumentException("Knowledge base cannot be null or empty.");
@@ -136,7 +566,7 @@ public class Argument<M extends ModelAbstract> {
                 throw new IllegalArgumentException("Knowledge base cannot be empty.");
         }
 
-        if (operandString.length() > 15)
+        if (this.entailmentMode == EntailmentMode.TRUTH_TABLE && operandString.length() > 15)
             throw new IllegalArgumentException("Too many total operands in knowledge base; only 15 total allowed.");
 
         this.operands = operandString.toString().toCharArray();
@@ -146,80 +576,256 @@ public class Argument<M extends ModelAbstract> {
 
     private void setTruthTable()
             throws InvalidExpressionException, InvalidOperandException, InvalidLogicOperatorException {
-        int boolRowsCount = (int) Math.pow(2, this.operandCount);
-        int boolColsCount = this.operandCount + this.knowledgeBase.length + 1;
-
-        // set all truth table
-        TruthTableBuilder ttb = new TruthTableBuilder(this.operands, boolRowsCount, boolColsCount);
-        this.allTruthTable = ttb.getTruthTable();
-        this.allTruthValues = ttb.getValueTable();
-        ttb.close();
-
-        for (int i = operandCount, j = 0; j < this.knowledgeBase.length; i++, j++)
-            this.allTruthTable[0][i] = this.knowledgeBase[j].getExpression();
-
-        this.allTruthTable[0][boolColsCount - 1] = "KB";
-
-        this.trueKBModels = new ArrayList<>();
-        ArrayList<String> titleRow = new ArrayList<>(Arrays.asList(this.allTruthTable[0]).subList(0, boolColsCount));
-
-        this.trueKBModels.add(titleRow);
-        titleRow = null;
-        HashMap<Character, Character> valueMap = new HashMap<>();
-        boolean[] modelEvaluations = new boolean[this.knowledgeBase.length];
-        ArrayList<String> trueKBModelPlaceholder;
-        for (int rows = 0; rows < boolRowsCount; rows++) {
-            // setting base table values
-            for (int i = 0; i < operandCount; i++)
-                valueMap.put(operands[i], this.allTruthTable[rows + 1][i].charAt(0));
-
-            for (int i = 0; i < this.knowledgeBase.length; i++) {
-                Proposition p = new Proposition(this.knowledgeBase[i].getExpression());
-                this.allTruthValues[rows][operandCount + i] = p.evaluateExpression(valueMap);
-                this.allTruthTable[rows + 1][operandCount + i] = this.allTruthValues[rows][operandCount + i] ? "T"
-                : "F";
-            }
-            valueMap.clear();
+        // String and boolean tables are materialized lazily from the row streams
+        this.allTruthTable = null;
+        this.allTruthValues = null;
+
+        // KB model columns are computed 64 rows per word, then the KB column is their conjunction
+        this.packedTruthTable = new BitParallelTruthTable(this.operands);
+        int wordCount = this.packedTruthTable.getWordCount();
+        ExpressionTree[] modelTrees = new ExpressionTree[this.knowledgeBase.length];
+        for (int i = 0; i < modelTrees.length; i++)
+            modelTrees[i] = this.knowledgeBase[i].getProposition().getExpressionTree();
+        this.modelColumns = new long[modelTrees.length][wordCount];
+        this.kbColumn = new long[wordCount];
+
+        if (this.parallelBuild && wordCount > PARALLEL_SPLIT_WORDS)
+            this.truthTablePool.invoke(new TruthTableTask(modelTrees, 0, wordCount));
+        else
+            new TruthTableTask(modelTrees, 0, wordCount).compute();
+
+        collectTrueKBModels();
+    }
+
+    /**
+     * Re-collects the KB-satisfying rows from the current KB column, as row indices only; the String rows are
+     * materialized from them on demand.
+     */
+    private void collectTrueKBModels() {
+        this.allTruthTable = null;
+        this.allTruthValues = null;
+        this.trueKBModels = null;
+        this.trueKBRows = new int[BitParallelTruthTable.cardinality(this.kbColumn)];
+        for (int i = 0, row = this.packedTruthTable.nextSetRow(this.kbColumn, 0); row >= 0;
+                row = this.packedTruthTable.nextSetRow(this.kbColumn, row + 1))
+            this.trueKBRows[i++] = row;
+    }
+
+    /**
+     * Drops a truth table that no longer matches the knowledge base, so switching back to
+     * {@link EntailmentMode#TRUTH_TABLE} rebuilds it.
+     */
+    private void discardTruthTable() {
+        this.packedTruthTable = null;
+        this.modelColumns = null;
+        this.kbColumn = null;
+        this.allTruthTable = null;
+        this.allTruthValues = null;
+        this.trueKBRows = null;
+        this.trueKBModels = null;
+    }
+
+    /**
+     * Fills one word range of the model and KB columns. Each task writes only its own words, so no scratch state is
+     * shared.
+     */
+    private final class TruthTableTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final ExpressionTree[] modelTrees;
+        private final int fromWord;
+        private final int toWord;
 
-            // setting KB table values, including KB evaluation(s)
-            int i = 0;
-            while (operandCount + i < allTruthValues[rows].length - 1) {
-                modelEvaluations[i] = this.allTruthValues[rows][operandCount + i];
-                i++;
+        private TruthTableTask(ExpressionTree[] modelTrees, int fromWord, int toWord) {
+            this.modelTrees = modelTrees;
+            this.fromWord = fromWord;
+            this.toWord = toWord;
+        }
+
+        @Override
+        protected void compute() {
+            if (parallelBuild && toWord - fromWord > PARALLEL_SPLIT_WORDS) {
+                int middle = (fromWord + toWord) >>> 1;
+                invokeAll(new TruthTableTask(modelTrees, fromWord, middle),
+                        new TruthTableTask(modelTrees, middle, toWord));
+                return;
             }
-            this.allTruthValues[rows][boolColsCount - 1] = evaluateKnowledgeBase(modelEvaluations);
-            this.allTruthTable[rows + 1][boolColsCount - 1] = this.allTruthValues[rows][boolColsCount - 1] ? "T" : "F";
 
-            if (allTruthValues[rows][boolColsCount - 1]) {
-                trueKBModelPlaceholder = new ArrayList<>();
-                for (int j = 0; j < boolColsCount; j++)
-                    trueKBModelPlaceholder.add(this.allTruthValues[rows][j] ? "T" : "F");
+            for (int i = 0; i < modelTrees.length; i++)
+                packedTruthTable.evaluate(modelTrees[i], modelColumns[i], fromWord, toWord);
 
-                this.trueKBModels.add(trueKBModelPlaceholder);
+            for (int w = fromWord; w < toWord; w++) {
+                long word = -1L;
+                for (long[] column : modelColumns)
+                    word &= column[w];
+                kbColumn[w] = word;
             }
         }
     }
 
-    private boolean evaluateKnowledgeBase(boolean[] modelEvaluations) {
-        boolean rowAnswer = true;
-        for (boolean modelEvaluation : modelEvaluations) rowAnswer = rowAnswer && modelEvaluation;
+    /**
+     * Streams truth value rows (operands, KB models, then KB) in table order, computing each row only when it is
+     * consumed.
+     *
+     * @return row stream, or null in {@link EntailmentMode#SAT} and {@link EntailmentMode#BDD} modes, where no truth table is built
+     */
+    public Stream<Boolean[]> truthValueRows() {
+        if (this.packedTruthTable == null)
+            return null;
+        return IntStream.range(0, this.packedTruthTable.getRowCount()).mapToObj(this::computeTruthValueRow);
+    }
+
+    /**
+     * Streams the String truth table, title row first, computing each value row only when it is consumed.
+     *
+     * @return row stream, or null in {@link EntailmentMode#SAT} and {@link EntailmentMode#BDD} modes, where no truth table is built
+     */
+    public Stream<String[]> truthTableRows() {
+        if (this.packedTruthTable == null)
+            return null;
+        return Stream.concat(Stream.<String[]>of(getTruthTableTitleRow()),
+                IntStream.range(0, this.packedTruthTable.getRowCount()).mapToObj(this::computeTruthTableRow));
+    }
+
+    /**
+     * @param row 0 for the title row, 1 to 2^n for value rows
+     */
+    public String[] getTruthTableRow(int row) {
+        if (this.packedTruthTable == null)
+            return null;
+        if (row < 0 || row > this.packedTruthTable.getRowCount())
+            throw new IndexOutOfBoundsException("Row " + row + " is out of bounds");
+        return row == 0 ? getTruthTableTitleRow() : computeTruthTableRow(row - 1);
+    }
+
+    /**
+     * @param row 0 to 2^n - 1, excluding the title row
+     */
+    public Boolean[] getTruthValueRow(int row) {
+        if (this.packedTruthTable == null)
+            return null;
+        if (row < 0 || row >= this.packedTruthTable.getRowCount())
+            throw new IndexOutOfBoundsException("Row " + row + " is out of bounds");
+        return computeTruthValueRow(row);
+    }
+
+    private String[] getTruthTableTitleRow() {
+        String[] titleRow = new String[this.operandCount + this.knowledgeBase.length + 1];
+        for (int i = 0; i < this.operandCount; i++)
+            titleRow[i] = String.valueOf(this.operands[i]);
+        for (int i = 0; i < this.knowledgeBase.length; i++)
+            titleRow[this.operandCount + i] = this.knowledgeBase[i].getExpression();
+        titleRow[titleRow.length - 1] = "KB";
+        return titleRow;
+    }
+
+    private Boolean[] computeTruthValueRow(int row) {
+        Boolean[] values = new Boolean[this.operandCount + this.knowledgeBase.length + 1];
+        for (int i = 0; i < this.operandCount; i++)
+            values[i] = BitParallelTruthTable.get(this.packedTruthTable.getOperandColumn(i), row);
+        for (int i = 0; i < this.knowledgeBase.length; i++)
+            values[this.operandCount + i] = BitParallelTruthTable.get(this.modelColumns[i], row);
+        values[values.length - 1] = BitParallelTruthTable.get(this.kbColumn, row);
+        return values;
+    }
 
-        return rowAnswer;
+    private String[] computeTruthTableRow(int row) {
+        Boolean[] values = computeTruthValueRow(row);
+        String[] cells = new String[values.length];
+        for (int i = 0; i < values.length; i++)
+            cells[i] = values[i] ? "T" : "F";
+        return cells;
     }
 
     public String checkAllTTModels(String query)
             throws InvalidExpressionException, InvalidOperandException, InvalidLogicOperatorException {
         if (query == null || query.isEmpty())
             throw new IllegalArgumentException("String query cannot be null or empty.");
-        if (query.contains(",") && !query.startsWith(",") && !query.endsWith(",")) {
-            String[] queries = query.split(",");
-            StringBuilder answer = new StringBuilder();
-            for (String q : queries) {
-                answer.append(checkAllTTModels(new Proposition(q))).append(", ");
+        if (query.contains(",") && !query.startsWith(",") && !query.endsWith(","))
+            return String.join(", ", checkAllTTModels(query.split(",")));
+        return checkAllTTModels(new Proposition(query));
+    }
+
+    /**
+     * Batch form of {@link #checkAllTTModels(String)}; see {@link #checkAllTTModels(Proposition[])}.
+     */
+    public String[] checkAllTTModels(String[] queries)
+            throws InvalidExpressionException, InvalidOperandException, InvalidLogicOperatorException {
+        if (queries == null)
+            throw new IllegalArgumentException("String queries cannot be null.");
+
+        Proposition[] propositions = new Proposition[queries.length];
+        for (int i = 0; i < queries.length; i++) {
+            if (queries[i] == null || queries[i].isEmpty())
+                throw new IllegalArgumentException("String query cannot be null or empty.");
+            propositions[i] = new Proposition(queries[i]);
+        }
+        return checkAllTTModels(propositions);
+    }
+
+    /**
+     * Checks every query against the KB's satisfying models in one shared pass. Each query is compiled to its
+     * expression tree once, then the KB column is walked a word (64 rows) at a time and each query still undecided is
+     * evaluated over that word. A query drops out as soon as it has been both T and F under the KB, and the pass ends
+     * once none is left. Queries over an operand the KB does not have, and all queries in SAT or BDD mode, are
+     * checked one at a time.
+     *
+     * @return answer to each query, in order, as {@link #checkAllTTModels(Proposition)} would give it
+     */
+    public String[] checkAllTTModels(Proposition[] queries) throws InvalidExpressionException {
+        if (queries == null)
+            throw new IllegalArgumentException("Proposition queries cannot be null.");
+
+        String[] answers = new String[queries.length];
+        ExpressionTree[] trees = new ExpressionTree[queries.length];
+        int[] undecided = new int[queries.length];
+        int undecidedCount = 0;
+        String kbOperands = new String(this.operands);
+        for (int i = 0; i < queries.length; i++) {
+            if (queries[i] == null)
+                throw new IllegalArgumentException("Proposition query cannot be null or empty.");
+
+            boolean commonOperand = false, kbOperandsOnly = true;
+            for (String qOp : queries[i].getSentences(0, queries[i].getOperandCount() - 1)) {
+                if (kbOperands.indexOf(qOp.charAt(0)) >= 0)
+                    commonOperand = true;
+                else
+                    kbOperandsOnly = false;
+            }
+            if (!commonOperand)
+                throw new IllegalArgumentException("No common operand found in query when compared with knowledge base.");
+
+            if (this.entailmentMode != EntailmentMode.TRUTH_TABLE || !kbOperandsOnly) {
+                answers[i] = checkAllTTModels(queries[i]);
+            } else {
+                trees[i] = queries[i].getExpressionTree();
+                undecided[undecidedCount++] = i;
             }
-            return answer.substring(0, answer.length() - 2);
         }
-        return checkAllTTModels(new Proposition(query));
+
+        // Whether each query was T, and whether it was F, on some row where the KB is T
+        boolean[] seenTrue = new boolean[queries.length];
+        boolean[] seenFalse = new boolean[queries.length];
+        for (int w = 0; undecidedCount > 0 && w < this.kbColumn.length; w++) {
+            long kbWord = this.kbColumn[w];
+            if (kbWord == 0)
+                continue;
+            for (int k = 0; k < undecidedCount; k++) {
+                int i = undecided[k];
+                long queryWord = this.packedTruthTable.evaluateWord(trees[i], w);
+                seenTrue[i] |= (kbWord & queryWord) != 0;
+                seenFalse[i] |= (kbWord & ~queryWord) != 0;
+                if (seenTrue[i] && seenFalse[i]) {
+                    answers[i] = "Uncertain";
+                    undecided[k--] = undecided[--undecidedCount];
+                }
+            }
+        }
+        for (int k = 0; k < undecidedCount; k++) {
+            int i = undecided[k];
+            answers[i] = seenFalse[i] ? "False" : "True";
+        }
+        return answers;
     }
 
     public String checkAllTTModels(Proposition query) throws InvalidExpressionException {
@@ -241,27 +847,91 @@ public class Argument<M extends ModelAbstract> {
         if (!commonOperand)
             throw new IllegalArgumentException("No common operand found in query when compared with knowledge base.");
 
-        String answer = null;
-        ArrayList<Boolean> queryValues = new ArrayList<>();
-        HashMap<Character, Character> valueMap = new HashMap<>();
-        int valueRows = 1;
-        do {
-            for (int i = 0; i < operandCount; i++) {
-                valueMap.put(this.operands[i], this.trueKBModels.get(valueRows).get(i).charAt(0));
-            }
-            queryValues.add(query.evaluateExpression(valueMap));
-            if (queryValues.get(valueRows - 1))
-                answer = "True";
-            else
-                answer = "False";
+        if (this.entailmentMode == EntailmentMode.SAT)
+            return checkSATModels(query);
+        if (this.entailmentMode == EntailmentMode.BDD)
+            return checkBDDModels(query);
+
+        String kbOperands = new String(this.operands);
+        for (String qOp : qOperands) {
+            if (kbOperands.indexOf(qOp.charAt(0)) < 0)
+                throw new InvalidExpressionException("No truth value given for operand " + qOp);
+        }
 
-            if (valueRows > 1 && queryValues.get(valueRows - 1) != queryValues.get(valueRows - 2)) {
+        ExpressionTree tree = query.getExpressionTree();
+        byte[] operandBits = this.packedTruthTable.getOperandBits();
+        boolean seenTrue = false, seenFalse = false;
+        for (int row : this.trueKBRows) {
+            if (tree.evaluate(TruthTableBuilder.rowAssignment(row, this.operandCount), operandBits))
+                seenTrue = true;
+            else
+                seenFalse = true;
+            if (seenTrue && seenFalse)
                 return "Uncertain";
-            }
-            valueRows++;
-        } while (valueRows <= this.trueKBModels.size() - 1);
+        }
+        return seenFalse ? "False" : "True";
+    }
+
+    /**
+     * Decides the query with the CDCL solver instead of the truth table. The KB is encoded once and kept in the solver;
+     * each query adds its own definition clauses under an activation variable, the two checks run under opposite
+     * assumptions on the query, and the query's clauses and variables are then released from the solver.
+     *
+     * @return "True" if KB & ~query is unsatisfiable, "False" if KB & query is unsatisfiable, else "Uncertain"
+     */
+    private synchronized String checkSATModels(Proposition query) {
+        if (this.satSolver == null) {
+            this.satSolver = new CDCLSolver();
+            this.satEncoder = new TseitinEncoder(this.satSolver);
+            for (M model : this.knowledgeBase)
+                this.satEncoder.assertFormula(model.getProposition().getExpressionTree());
+        }
+
+        int activation = this.satEncoder.beginQuery();
+        try {
+            int queryLiteral = this.satEncoder.literal(query.getExpressionTree());
+            if (!this.satSolver.solve(activation, -queryLiteral))
+                return "True";
+            if (!this.satSolver.solve(activation, queryLiteral))
+                return "False";
+            return "Uncertain";
+        } finally {
+            this.satEncoder.endQuery();
+        }
+    }
+
+    /**
+     * Decides the query on decision diagrams instead of the truth table. The KB conjunction is compiled once and
+     * kept; each query is compiled into the same diagram, so subformulas shared with the KB are not compiled again,
+     * and the diagram is then rolled back so that no query's nodes or tree stay in it.
+     *
+     * @return "True" if the KB entails the query, "False" if it entails its negation, else "Uncertain"
+     */
+    private synchronized String checkBDDModels(Proposition query) {
+        BinaryDecisionDiagram diagram = getKBDiagram();
+        int checkpoint = diagram.checkpoint();
+        try {
+            int queryRoot = diagram.compile(query.getExpressionTree(), false);
+            if (diagram.entails(this.kbDiagramRoot, queryRoot))
+                return "True";
+            if (diagram.entails(this.kbDiagramRoot, diagram.not(queryRoot)))
+                return "False";
+            return "Uncertain";
+        } finally {
+            diagram.rollback(checkpoint);
+        }
+    }
 
-        return answer;
+    private BinaryDecisionDiagram getKBDiagram() {
+        if (this.kbDiagram == null) {
+            BinaryDecisionDiagram diagram = new BinaryDecisionDiagram(this.operands);
+            int root = BinaryDecisionDiagram.TRUE;
+            for (M model : this.knowledgeBase)
+                root = diagram.and(root, diagram.compile(model.getProposition().getExpressionTree()));
+            this.kbDiagram = diagram;
+            this.kbDiagramRoot = root;
+        }
+        return this.kbDiagram;
     }
 
     // public String checkCurrentTTModels(String query) {
@@ -341,8 +1011,55 @@ public class Argument<M extends ModelAbstract> {
         return this.deduce(new Proposition(query));
     }
 
+    /**
+     * Deduces the query with no executor given: frontiers are expanded on the pool given to
+     * {@link #setParallelExpansion(boolean, ForkJoinPool)}, and the search workers and sample-model scoring run on
+     * {@link #defaultDeductionExecutor()}, i.e. on virtual threads on Java 21 and later, and on Java 17 on a pool of
+     * one daemon thread per processor that the Argument class owns.
+     */
     public Proof deduce(Proposition query)
             throws Exception, InvalidExpressionException, InvalidOperandException, InvalidLogicOperatorException {
+        return this.deduce(query, null);
+    }
+
+    /**
+     * Deduces the query with all of the deduction's concurrency on the executor: frontier expansion when parallel
+     * expansion is enabled, the bidirectional search workers, and sample-model scoring when learning. No thread is
+     * created per call, so any number of deductions can share one executor.
+     *
+     * @param executor executor to run on, or null for {@link #defaultDeductionExecutor()}, frontiers then being
+     *                 expanded on the pool given to {@link #setParallelExpansion(boolean, ForkJoinPool)}
+     */
+    public Proof deduce(Proposition query, ExecutorService executor)
+            throws Exception, InvalidExpressionException, InvalidOperandException, InvalidLogicOperatorException {
+        return this.deduce(query, executor, null, Integer.MAX_VALUE, null).proof();
+    }
+
+    /**
+     * Deduces the query within a budget, on {@link #defaultDeductionExecutor()}; see
+     * {@link #deduce(Proposition, ExecutorService, Duration, int, BooleanSupplier)}.
+     */
+    public DeductionResult deduce(Proposition query, Duration timeBudget, int nodeBudget, BooleanSupplier cancellation)
+            throws Exception, InvalidExpressionException, InvalidOperandException, InvalidLogicOperatorException {
+        return this.deduce(query, null, timeBudget, nodeBudget, cancellation);
+    }
+
+    /**
+     * Deduces the query within a budget. Chaining stops as soon as the time budget has elapsed, the deduction graph
+     * holds more than {@code nodeBudget} nodes, or the cancellation token reports true. All three are checked before
+     * every epoch, frontier item expanded and node merged into the graph, and the time budget and token before
+     * every node the final search expands, so one item's expansion is the most the budget is overrun by. A
+     * deduction stopped this way returns the frontiers reached and the forward node nearest the query by the
+     * deduction heuristic, and is not cached, so asking again with a larger budget chains afresh.
+     *
+     * @param executor     executor to run on, as in {@link #deduce(Proposition, ExecutorService)}, or null
+     * @param timeBudget   time the deduction may take, or null for no limit
+     * @param nodeBudget   most nodes the deduction graph may hold
+     * @param cancellation token polled for cancellation, e.g. a request's {@code isCancelled}, or null for none
+     */
+    public DeductionResult deduce(Proposition query, ExecutorService executor, Duration timeBudget, int nodeBudget,
+            BooleanSupplier cancellation)
+            throws Exception, InvalidExpressionException, InvalidOperandException, InvalidLogicOperatorException {
         if (query == null)
             throw new IllegalArgumentException("Proposition query cannot be null or empty.");
 
@@ -367,52 +1084,220 @@ public class Argument<M extends ModelAbstract> {
             kbConversions[i] = kbPropositions[i].getConvertedExpression();
         }
 
+        // The deadline runs from here, once the query is validated
+        DeductionBudget budget = new DeductionBudget(timeBudget, nodeBudget, cancellation);
+
+        // Repeat queries, and formulas already derived while proving earlier ones, skip chaining
+        ExpressionTree queryFormula = query.getExpressionTree();
+        DeductionResult known = this.derivationCache.getResult(queryFormula);
+        if (known != null)
+            return known;
+
         HashSet<String> kbExpressionSet = new HashSet<>(Arrays.asList(this.getKnowledgeBaseExpressions()));
 
         DirectedDeductionGraph dg = new DirectedDeductionGraph(kbExpressionSet, query);
+        dg.setHeuristic(this.deductionHeuristic);
+        dg.setSearchWorkers(this.searchWorkers);
 
-        return new Proof(bidirectionalIterativeKBChaining(dg));
-    }
-
-//    private double
-//
-//    private List<DeductionGraphNode> ChainNodeSample(ArrayList<DeductionGraphNode> nodes) throws Exception {
-//        nodes.sort((Node1, Node2) -> {
-//            double Score1 =;
-//            double Score2 =;
-//            return Double.compare(Score1, Score2);
-//        });
-//
-//        final int K = 5;
-//        return nodes.subList(0, Math.min(K, nodes.size()));
-    private List<DeductionGraphNode> bestNodeSampleModel(List<DeductionGraphNode> nodes) throws Exception {
-        if (this.learn_flag) {
-            ONNXModel model = ONNXModel
+        ExecutorService expansionExecutor = (executor != null) ? executor : this.deductionPool;
+        ExecutorService searchExecutor = (executor != null) ? executor : defaultDeductionExecutor();
+        ArrayList<DeductionGraphNode> proof;
+        try {
+            proof = bidirectionalIterativeKBChaining(dg, expansionExecutor, searchExecutor,
+                    () -> budget.check(dg));
+        } catch (DeductionBudget.Exhausted e) {
+            return deductionResult(dg, null, e.getStatus());
+        }
+        DeductionResult result = deductionResult(dg, proof,
+                (proof != null) ? DeductionResult.Status.PROVED : DeductionResult.Status.NOT_PROVED);
+        // A beam that missed the query does not show that it has no proof
+        if (proof == null && this.beamWidth > 0)
+            return result;
+        return this.derivationCache.record(queryFormula, dg, result);
+    }
+
+    /**
+     * Collects the frontiers of the graph, and the forward node nearest its query with the derivation of that node.
+     * Everything but the proof path is immutable, so cached results can share it.
+     */
+    private DeductionResult deductionResult(DirectedDeductionGraph dg, ArrayList<DeductionGraphNode> proof,
+            DeductionResult.Status status) {
+        List<DeductionGraphNode> forward = List.copyOf((dg.getForwardNodes() != null)
+                ? dg.getForwardNodes() : dg.getPremiseNodes());
+        List<DeductionGraphNode> backward = (dg.getBackwardNodes() != null)
+                ? List.copyOf(dg.getBackwardNodes()) : List.of(dg.getQueryNode());
+
+        DeductionGraphNode nearest = null;
+        List<DeductionGraphNode> nearestPath = null;
+        if (proof != null && !proof.isEmpty()) {
+            nearest = proof.get(proof.size() - 1);
+            nearestPath = List.copyOf(proof);
+        } else {
+            ExpressionTree goal = dg.getQueryNode().getFormula();
+            int nearestDistance = Integer.MAX_VALUE;
+            for (DeductionGraphNode node : forward) {
+                int distance = dg.getHeuristic().distance(node.getFormula(), goal);
+                if (distance < nearestDistance) {
+                    nearest = node;
+                    nearestDistance = distance;
+                }
+            }
+            if (nearest != null) {
+                ArrayList<DeductionGraphNode> path = dg.derivationPath(nearest);
+                nearestPath = (path == null) ? null : List.copyOf(path);
+            }
+        }
+        return new DeductionResult(new Proof(proof), status, forward, backward, nearest, nearestPath);
+    }
+
+    /**
+     * Deduces the query as a task on {@link #defaultDeductionExecutor()}.
+     */
+    public CompletableFuture<Proof> deduceAsync(Proposition query) {
+        return this.deduceAsync(query, defaultDeductionExecutor());
+    }
+
+    /**
+     * Deduces the query as a task on the executor, running all of the deduction's concurrency on it as in
+     * {@link #deduce(Proposition, ExecutorService)}.
+     *
+     * @return proof of the query, completing exceptionally with a {@link CompletionException} wrapping whatever
+     *         deduction threw
+     */
+    public CompletableFuture<Proof> deduceAsync(Proposition query, ExecutorService executor) {
+        if (executor == null)
+            throw new IllegalArgumentException("Executor cannot be null.");
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return this.deduce(query, executor);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Executor shared by deductions given none: one virtual thread per task where the runtime has virtual threads,
+     * otherwise a fixed pool of one daemon thread per available processor, kept for the life of the JVM. The pool is
+     * dedicated to deductions so their blocking search workers never occupy the common fork/join pool; a deduction
+     * finishes on its calling thread when the pool is busy. The build targets Java 17, so the virtual-thread factory
+     * is looked up reflectively.
+     */
+    public static ExecutorService defaultDeductionExecutor() {
+        ExecutorService executor = defaultDeductionExecutor;
+        if (executor == null) {
+            synchronized (Argument.class) {
+                executor = defaultDeductionExecutor;
+                if (executor == null) {
+                    try {
+                        executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+                                .invoke(null);
+                    } catch (ReflectiveOperationException e) {
+                        AtomicInteger threads = new AtomicInteger();
+                        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), task -> {
+                            Thread thread = new Thread(task, "knowlej-deduction-" + threads.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+                    }
+                    defaultDeductionExecutor = executor;
+                }
+            }
         }
-        ONNXModel model = ONNXModel.loadModel("path/to/model.onnx");
-        float[][] result = model.runInference(new float[]{0.0f, 1.0f}, new long[]{1, 2});
-        return nodes;
+        return executor;
+    }
+
+    /**
+     * Orders the frontier best first by the sample model's score when learning with a model configured; otherwise
+     * leaves it in breadth-first order. Nodes are scored as in {@link BeamScores#learned(ONNXModel)}, concurrently on
+     * the executor.
+     */
+    private List<DeductionGraphNode> bestNodeSampleModel(List<DeductionGraphNode> nodes, ExecutorService executor)
+            throws Exception {
+        if (!this.learn_flag || BEST_SAMPLE_MODEL_PATH.isEmpty() || nodes.size() < 2)
+            return nodes;
+        return rankNodes(nodes, BeamScores.learned(getSampleModel()), nodes.size(), executor, null);
+    }
+
+    /**
+     * @param executor   executor to score on, or null to score sequentially
+     * @param checkpoint run before each node is scored, or null
+     * @return the limit highest-scoring nodes, highest first, equal scores in frontier order
+     */
+    private List<DeductionGraphNode> rankNodes(List<DeductionGraphNode> nodes, ToDoubleFunction<DeductionGraphNode> score,
+            int limit, ExecutorService executor, Runnable checkpoint) throws Exception {
+        List<Double> scores = new FrontierExpansion<DeductionGraphNode, Double>(executor, checkpoint, nodes,
+                score::applyAsDouble).getAll();
+
+        Integer[] order = new Integer[nodes.size()];
+        for (int i = 0; i < order.length; i++)
+            order[i] = i;
+        Arrays.sort(order, (i, j) -> Double.compare(scores.get(j), scores.get(i)));
+        List<DeductionGraphNode> ranked = new ArrayList<>(Math.min(limit, order.length));
+        for (int k = 0; k < order.length && k < limit; k++)
+            ranked.add(nodes.get(order[k]));
+        return ranked;
+    }
+
+    private synchronized ONNXModel getSampleModel() throws Exception {
+        if (this.sampleModel == null)
+            this.sampleModel = ONNXModel.loadModel(BEST_SAMPLE_MODEL_PATH);
+        return this.sampleModel;
     }
 
-    private ArrayList<DeductionGraphNode> bidirectionalIterativeKBChaining(DirectedDeductionGraph computationGraph)
+    /**
+     * @param expansionExecutor executor frontiers are expanded on when parallel expansion is enabled
+     * @param searchExecutor    executor the path search and sample-model scoring run on
+     * @param checkpoint        run before each epoch, frontier item and merged node, and by the search workers
+     *                          before each expansion; throws to stop chaining
+     */
+    private ArrayList<DeductionGraphNode> bidirectionalIterativeKBChaining(DirectedDeductionGraph computationGraph,
+            ExecutorService expansionExecutor, ExecutorService searchExecutor, Runnable checkpoint)
             throws Exception, InvalidExpressionException, InvalidOperandException, InvalidLogicOperatorException {
 
         if (this.learn_flag) {
-            this.grpcServer = new KnowleJGrpcServer();
+            synchronized (this) {
+                if (this.grpcServer == null)
+                    this.grpcServer = new KnowleJGrpcServer();
+            }
         }
+        final ExecutorService frontierExecutor = this.parallelExpansion ? expansionExecutor : null;
 
         // Initialize inference and equivalency laws
-        InferenceLaws<ModelAbstract> inferenceLaws = new InferenceLaws<>();
-        final String[] singleCharacterInferenceLaws = new String[] { "Addition", "Simplification" };
+        final InferenceLaws<ModelAbstract> inferenceLaws = this.inferenceLaws;
+        final InferenceLaws.Law[] singleCharacterInferenceLaws = { InferenceLaws.Law.ADDITION, InferenceLaws.Law.SIMPLIFICATION };
         EquivalencyLaws equivalencyLaws = new EquivalencyLaws();
 
-        // Initialize knowledge histories using HashSet for efficient lookup and to prevent duplicates
-        Set<String> forwardKnowledgeHistory = new HashSet<>();
+        // Initialize knowledge histories keyed by interned formula, so equivalent spellings of a formula are one entry;
+        // values keep the expression String each formula was first derived as, in derivation order
+        Map<ExpressionTree, String> forwardKnowledgeHistory = new LinkedHashMap<>();
         for (DeductionGraphNode node : computationGraph.getPremiseNodes()) {
-            forwardKnowledgeHistory.add(node.getExpression()); // initial node(s)
+            forwardKnowledgeHistory.put(node.getFormula(), node.getExpression()); // initial node(s)
+        }
+        Map<ExpressionTree, String> backwardKnowledgeHistory = new LinkedHashMap<>();
+        backwardKnowledgeHistory.put(computationGraph.getQueryNode().getFormula(), computationGraph.getQuery()); // initial node
+        final ExpressionTree queryFormula = computationGraph.getQueryNode().getFormula();
+
+        // Beam search expands only the best nodes each direction derived in the previous epoch
+        final Beam forwardBeam;
+        final Beam backwardBeam;
+        if (this.beamWidth > 0) {
+            List<ExpressionTree> premiseFormulas = new ArrayList<>(forwardKnowledgeHistory.keySet());
+            forwardBeam = new Beam(this.beamWidth, (this.beamScore != null) ? this.beamScore
+                    : BeamScores.nearest(computationGraph.getHeuristic(), List.of(queryFormula)),
+                    frontierExecutor, checkpoint);
+            backwardBeam = new Beam(this.beamWidth, (this.beamScore != null) ? this.beamScore
+                    : BeamScores.nearest(computationGraph.getHeuristic(), premiseFormulas),
+                    frontierExecutor, checkpoint);
+        } else {
+            forwardBeam = null;
+            backwardBeam = null;
         }
-        Set<String> backwardKnowledgeHistory = new HashSet<>();
-        backwardKnowledgeHistory.add(computationGraph.getQuery()); // initial node
+
+        // Equivalence classes of everything derived, in place of one graph node per rewritten formula
+        final EGraph equivalences = this.equalitySaturation ? new EGraph() : null;
+        if (equivalences != null)
+            equivalences.add(queryFormula);
 
         int chainOperations = 1;
         boolean pathExistence = false;
@@ -426,49 +1311,58 @@ public class Argument<M extends ModelAbstract> {
         int iteration = 0;
 
         List<String[]> kbCombinations;
+        // History entries already paired with each other; semi-naive epochs only pair the entries after them
+        int forwardCombined = 0;
+        int backwardCombined = 0;
+        ArrayList<String> history;
         String argSentence1;
         String argSentence2;
 
         List<DeductionGraphNode> currentNodes;
         Function<List<DeductionGraphNode>, List<DeductionGraphNode>> currentNodesLambda = (List<DeductionGraphNode> nodes) -> {
             try {
-                return bestNodeSampleModel(nodes);
+                return bestNodeSampleModel(nodes, searchExecutor);
             } catch (Exception e) {
-                System.out.println("No model found. Using default bfs sampling method. Error: " + e.getMessage());
+                // No sample model is available; expand the frontier in breadth-first order instead
                 return nodes;
             }
         };
 
         // Exceeded maximum number of loops
         do {
+            checkpoint.run();
             switch (chainOperations) {
                 case 1: { // Forward chaining
+                    if (forwardBeam != null)
+                        forwardBeam.advance((computationGraph.getForwardNodes() != null)
+                                ? computationGraph.getForwardNodes() : computationGraph.getPremiseNodes());
+
                     // Inference evaluations
-                    kbCombinations = combineKBExpressions(new ArrayList<>(forwardKnowledgeHistory));
-                    outerloop: for (String[] kbCombination : kbCombinations) {
-                        argSentence1 = kbCombination[0];
-                        argSentence2 = kbCombination[1];
-                        Map<String, ArrayList<String>> inferenceMap = inferenceLaws.checkInferenceLaws(
-                                new Proposition[]{new Proposition(argSentence1), new Proposition(argSentence2)});
-
-                        if (inferenceMap != null) {
-                            for (String law : inferenceMap.keySet()) {
-                                if (!law.equals("Addition") && !law.equals("Simplification")) {
-                                    List<String> inferences = inferenceMap.get(law);
-                                    if (inferences != null) {
-                                        for (String inference : inferences) {
-                                            if (inference != null && !inference.isEmpty() && !forwardKnowledgeHistory.contains(inference)) {
-                                                forwardKnowledgeHistory.add(inference);
-                                                DeductionGraphNode newInferenceNode = computationGraph.add(inference);
-                                                computationGraph.point(computationGraph.getNode(argSentence1), newInferenceNode);
-                                                computationGraph.point(computationGraph.getNode(argSentence2), newInferenceNode);
-                                                computationGraph.addForwardNode(newInferenceNode);
-                                                if (inference.equals(computationGraph.getQuery())) {
-                                                    pathExistence = true;
-                                                    searchLoopCount = MAX_EPOCHS + 1;
-                                                    break outerloop;
-                                                }
-                                            }
+                    history = new ArrayList<>(forwardKnowledgeHistory.values());
+                    kbCombinations = (forwardBeam != null)
+                            ? forwardBeam.combinations(computationGraph.getPremiseNodes(), forwardCombined == 0)
+                            : combineKBExpressions(history, this.semiNaiveEvaluation ? forwardCombined : 0);
+                    forwardCombined = history.size();
+                    FrontierExpansion<String[], LawResults<InferenceLaws.Law>> pairExpansions = new FrontierExpansion<>(frontierExecutor, checkpoint, kbCombinations, pair ->
+                            inferenceLaws.checkInferenceLaws(new Proposition[]{new Proposition(pair[0]), new Proposition(pair[1])}));
+                    outerloop: for (int i = 0; i < kbCombinations.size(); i++) {
+                        argSentence1 = kbCombinations.get(i)[0];
+                        argSentence2 = kbCombinations.get(i)[1];
+                        LawResults<InferenceLaws.Law> inferenceMap = pairExpansions.get(i);
+
+                        for (InferenceLaws.Law law : inferenceMap.laws()) {
+                            if (!law.isSinglePremise()) {
+                                for (String inference : inferenceMap.get(law)) {
+                                    if (forwardKnowledgeHistory.putIfAbsent(formulaOf(inference), inference) == null) {
+                                        checkpoint.run();
+                                        DeductionGraphNode newInferenceNode = computationGraph.add(inference);
+                                        computationGraph.point(computationGraph.getNode(argSentence1), newInferenceNode);
+                                        computationGraph.point(computationGraph.getNode(argSentence2), newInferenceNode);
+                                        computationGraph.addForwardNode(newInferenceNode);
+                                        if (newInferenceNode.getFormula() == queryFormula) {
+                                            pathExistence = true;
+                                            searchLoopCount = MAX_EPOCHS + 1;
+                                            break outerloop;
                                         }
                                     }
                                 }
@@ -478,27 +1372,24 @@ public class Argument<M extends ModelAbstract> {
                     if (pathExistence) break;
 
                     // Single-character inference laws
-                    currentNodes = currentNodesLambda.apply(computationGraph.getForwardNodes());
-                    outerloop: for (DeductionGraphNode node : currentNodes) {
-                        Map<String, ArrayList<String>> inferenceMap = inferenceLaws.checkInferenceLaws(
-                                new Proposition[]{new Proposition(node.getExpression())});
-
-                        if (inferenceMap != null) {
-                            for (String law : singleCharacterInferenceLaws) {
-                                List<String> inferences = inferenceMap.get(law);
-                                if (inferences != null && !inferences.isEmpty()) {
-                                    for (String inference : inferences) {
-                                        if (inference != null && !inference.isEmpty() && !forwardKnowledgeHistory.contains(inference)) {
-                                            forwardKnowledgeHistory.add(inference);
-                                            DeductionGraphNode newInferenceNode = computationGraph.add(inference);
-                                            computationGraph.point(node, newInferenceNode);
-                                            computationGraph.addForwardNode(newInferenceNode);
-                                            if (inference.equals(computationGraph.getQuery())) {
-                                                pathExistence = true;
-                                                searchLoopCount = MAX_EPOCHS + 1;
-                                                break outerloop;
-                                            }
-                                        }
+                    currentNodes = new ArrayList<>(currentNodesLambda.apply((forwardBeam != null) ? forwardBeam.nodes() : computationGraph.getForwardNodes()));
+                    FrontierExpansion<DeductionGraphNode, LawResults<InferenceLaws.Law>> inferenceExpansions = new FrontierExpansion<>(frontierExecutor, checkpoint, currentNodes, frontierNode ->
+                            inferenceLaws.checkInferenceLaws(new Proposition[]{new Proposition(frontierNode.getExpression())}));
+                    outerloop: for (int i = 0; i < currentNodes.size(); i++) {
+                        DeductionGraphNode node = currentNodes.get(i);
+                        LawResults<InferenceLaws.Law> inferenceMap = inferenceExpansions.get(i);
+
+                        for (InferenceLaws.Law law : singleCharacterInferenceLaws) {
+                            for (String inference : inferenceMap.get(law)) {
+                                if (forwardKnowledgeHistory.putIfAbsent(formulaOf(inference), inference) == null) {
+                                    checkpoint.run();
+                                    DeductionGraphNode newInferenceNode = computationGraph.add(inference);
+                                    computationGraph.point(node, newInferenceNode);
+                                    computationGraph.addForwardNode(newInferenceNode);
+                                    if (newInferenceNode.getFormula() == queryFormula) {
+                                        pathExistence = true;
+                                        searchLoopCount = MAX_EPOCHS + 1;
+                                        break outerloop;
                                     }
                                 }
                             }
@@ -507,37 +1398,43 @@ public class Argument<M extends ModelAbstract> {
                     if (pathExistence) break;
 
                     // Equivalency evaluations
-                    currentNodes = currentNodesLambda.apply(computationGraph.getForwardNodes());
-                    List<DeductionGraphNode> newEquivalencies = new ArrayList<>();
-                    outerloop: for (DeductionGraphNode node : currentNodes) {
-                        Map<String, ArrayList<String>> equivalencyMap =
-                                equivalencyLaws.checkEquivalencyLaws(new Proposition(node.getExpression()));
-
-                        if (equivalencyMap != null) {
-                            for (String law : equivalencyMap.keySet()) {
-                                List<String> equivalencies = equivalencyMap.get(law);
-                                if (equivalencies != null) {
-                                    for (String equivalency : equivalencies) {
-                                        if (equivalency != null && !equivalency.isEmpty()
-                                                && !forwardKnowledgeHistory.contains(equivalency)) {
-
-                                            forwardKnowledgeHistory.add(equivalency);
-                                            DeductionGraphNode newEquivalenceNode = computationGraph.add(equivalency);
-                                            computationGraph.point(node, newEquivalenceNode);
-                                            newEquivalencies.add(newEquivalenceNode);
-                                            if (equivalency.equals(computationGraph.getQuery())) {
-                                                pathExistence = true;
-                                                searchLoopCount = MAX_EPOCHS + 1;
-                                                break outerloop;
-                                            }
+                    currentNodes = new ArrayList<>(currentNodesLambda.apply((forwardBeam != null) ? forwardBeam.nodes() : computationGraph.getForwardNodes()));
+                    if (equivalences != null) {
+                        // Equivalence classes stand in for the rewritten formulas; only the query is linked, once reached
+                        if (linkEquivalentQuery(equivalences, currentNodes, computationGraph)) {
+                            forwardKnowledgeHistory.putIfAbsent(queryFormula, computationGraph.getQuery());
+                            computationGraph.addForwardNode(computationGraph.getQueryNode());
+                            pathExistence = true;
+                            searchLoopCount = MAX_EPOCHS + 1;
+                            break;
+                        }
+                    } else {
+                        FrontierExpansion<DeductionGraphNode, LawResults<EquivalencyLaws.Law>> equivalencyExpansions = new FrontierExpansion<>(frontierExecutor, checkpoint, currentNodes, frontierNode ->
+                                equivalencyLaws.checkEquivalencyLaws(new Proposition(frontierNode.getExpression())));
+                        List<DeductionGraphNode> newEquivalencies = new ArrayList<>();
+                        outerloop: for (int i = 0; i < currentNodes.size(); i++) {
+                            DeductionGraphNode node = currentNodes.get(i);
+                            LawResults<EquivalencyLaws.Law> equivalencyMap = equivalencyExpansions.get(i);
+
+                            for (EquivalencyLaws.Law law : equivalencyMap.laws()) {
+                                for (String equivalency : equivalencyMap.get(law)) {
+                                    if (forwardKnowledgeHistory.putIfAbsent(formulaOf(equivalency), equivalency) == null) {
+                                        checkpoint.run();
+                                        DeductionGraphNode newEquivalenceNode = computationGraph.add(equivalency);
+                                        computationGraph.point(node, newEquivalenceNode);
+                                        newEquivalencies.add(newEquivalenceNode);
+                                        if (newEquivalenceNode.getFormula() == queryFormula) {
+                                            pathExistence = true;
+                                            searchLoopCount = MAX_EPOCHS + 1;
+                                            break outerloop;
                                         }
                                     }
                                 }
                             }
                         }
-                    }
-                    for (DeductionGraphNode equNode : newEquivalencies) {
-                        computationGraph.addForwardNode(equNode);
+                        for (DeductionGraphNode equNode : newEquivalencies) {
+                            computationGraph.addForwardNode(equNode);
+                        }
                     }
 
                     iteration++;
@@ -548,33 +1445,37 @@ public class Argument<M extends ModelAbstract> {
                     break;
                 }
                 case 2: { // Backward chaining
+                    if (backwardBeam != null)
+                        backwardBeam.advance((computationGraph.getBackwardNodes() != null)
+                                ? computationGraph.getBackwardNodes() : List.of(computationGraph.getQueryNode()));
+
                     if (!firstIteration) {
                         // Inference evaluations
-                        kbCombinations = combineKBExpressions(new ArrayList<>(backwardKnowledgeHistory));
-                        outerloop: for (String[] kbCombination : kbCombinations) {
-                            argSentence1 = kbCombination[0];
-                            argSentence2 = kbCombination[1];
-                            Map<String, ArrayList<String>> inferenceMap = inferenceLaws.checkInferenceLaws(
-                                    new Proposition[]{new Proposition(argSentence1), new Proposition(argSentence2)});
-
-                            if (inferenceMap != null) {
-                                for (String law : inferenceMap.keySet()) {
-                                    if (!law.equals("Addition") && !law.equals("Simplification")) {
-                                        List<String> inferences = inferenceMap.get(law);
-                                        if (inferences != null) {
-                                            for (String inference : inferences) {
-                                                if (inference != null && !inference.isEmpty() && !backwardKnowledgeHistory.contains(inference)) {
-                                                    backwardKnowledgeHistory.add(inference);
-                                                    DeductionGraphNode newInferenceNode = computationGraph.add(inference);
-                                                    computationGraph.point(computationGraph.getNode(argSentence1), newInferenceNode);
-                                                    computationGraph.point(computationGraph.getNode(argSentence2), newInferenceNode);
-                                                    computationGraph.addBackwardNode(newInferenceNode);
-                                                    if (inference.equals(computationGraph.getQuery())) {
-                                                        pathExistence = true;
-                                                        searchLoopCount = MAX_EPOCHS + 1;
-                                                        break outerloop;
-                                                    }
-                                                }
+                        history = new ArrayList<>(backwardKnowledgeHistory.values());
+                        kbCombinations = (backwardBeam != null)
+                                ? backwardBeam.combinations(List.of(computationGraph.getQueryNode()), backwardCombined == 0)
+                                : combineKBExpressions(history, this.semiNaiveEvaluation ? backwardCombined : 0);
+                        backwardCombined = history.size();
+                        FrontierExpansion<String[], LawResults<InferenceLaws.Law>> pairExpansions = new FrontierExpansion<>(frontierExecutor, checkpoint, kbCombinations, pair ->
+                                inferenceLaws.checkInferenceLaws(new Proposition[]{new Proposition(pair[0]), new Proposition(pair[1])}));
+                        outerloop: for (int i = 0; i < kbCombinations.size(); i++) {
+                            argSentence1 = kbCombinations.get(i)[0];
+                            argSentence2 = kbCombinations.get(i)[1];
+                            LawResults<InferenceLaws.Law> inferenceMap = pairExpansions.get(i);
+
+                            for (InferenceLaws.Law law : inferenceMap.laws()) {
+                                if (!law.isSinglePremise()) {
+                                    for (String inference : inferenceMap.get(law)) {
+                                        if (backwardKnowledgeHistory.putIfAbsent(formulaOf(inference), inference) == null) {
+                                            checkpoint.run();
+                                            DeductionGraphNode newInferenceNode = computationGraph.add(inference);
+                                            computationGraph.point(computationGraph.getNode(argSentence1), newInferenceNode);
+                                            computationGraph.point(computationGraph.getNode(argSentence2), newInferenceNode);
+                                            computationGraph.addBackwardNode(newInferenceNode);
+                                            if (newInferenceNode.getFormula() == queryFormula) {
+                                                pathExistence = true;
+                                                searchLoopCount = MAX_EPOCHS + 1;
+                                                break outerloop;
                                             }
                                         }
                                     }
@@ -584,27 +1485,24 @@ public class Argument<M extends ModelAbstract> {
                         if (pathExistence) break;
 
                         // Single-character inference laws
-                        currentNodes = currentNodesLambda.apply(computationGraph.getBackwardNodes());
-                        outerloop: for (DeductionGraphNode node : currentNodes) {
-                            Map<String, ArrayList<String>> inferenceMap = inferenceLaws.checkInferenceLaws(
-                                    new Proposition[]{new Proposition(node.getExpression())});
-
-                            if (inferenceMap != null) {
-                                for (String law : singleCharacterInferenceLaws) {
-                                    List<String> inferences = inferenceMap.get(law);
-                                    if (inferences != null && !inferences.isEmpty()) {
-                                        for (String inference : inferences) {
-                                            if (inference != null && !inference.isEmpty() && !backwardKnowledgeHistory.contains(inference)) {
-                                                backwardKnowledgeHistory.add(inference);
-                                                DeductionGraphNode newInferenceNode = computationGraph.add(inference);
-                                                computationGraph.point(node, newInferenceNode);
-                                                computationGraph.addBackwardNode(newInferenceNode);
-                                                if (inference.equals(computationGraph.getQuery())) {
-                                                    pathExistence = true;
-                                                    searchLoopCount = MAX_EPOCHS + 1;
-                                                    break outerloop;
-                                                }
-                                            }
+                        currentNodes = new ArrayList<>(currentNodesLambda.apply((backwardBeam != null) ? backwardBeam.nodes() : computationGraph.getBackwardNodes()));
+                        FrontierExpansion<DeductionGraphNode, LawResults<InferenceLaws.Law>> inferenceExpansions = new FrontierExpansion<>(frontierExecutor, checkpoint, currentNodes, frontierNode ->
+                                inferenceLaws.checkInferenceLaws(new Proposition[]{new Proposition(frontierNode.getExpression())}));
+                        outerloop: for (int i = 0; i < currentNodes.size(); i++) {
+                            DeductionGraphNode node = currentNodes.get(i);
+                            LawResults<InferenceLaws.Law> inferenceMap = inferenceExpansions.get(i);
+
+                            for (InferenceLaws.Law law : singleCharacterInferenceLaws) {
+                                for (String inference : inferenceMap.get(law)) {
+                                    if (backwardKnowledgeHistory.putIfAbsent(formulaOf(inference), inference) == null) {
+                                        checkpoint.run();
+                                        DeductionGraphNode newInferenceNode = computationGraph.add(inference);
+                                        computationGraph.point(node, newInferenceNode);
+                                        computationGraph.addBackwardNode(newInferenceNode);
+                                        if (newInferenceNode.getFormula() == queryFormula) {
+                                            pathExistence = true;
+                                            searchLoopCount = MAX_EPOCHS + 1;
+                                            break outerloop;
                                         }
                                     }
                                 }
@@ -613,35 +1511,37 @@ public class Argument<M extends ModelAbstract> {
                         if (pathExistence) break;
 
                         // Equivalency evaluations
-                        currentNodes = currentNodesLambda.apply(computationGraph.getBackwardNodes());
-                        List<DeductionGraphNode> newEquivalencies = new ArrayList<>();
-                        outerloop: for (DeductionGraphNode node : currentNodes) {
-                            Map<String, ArrayList<String>> equivalencyMap = equivalencyLaws.checkEquivalencyLaws(
-                                    new Proposition(node.getExpression()));
-
-                            if (equivalencyMap != null) {
-                                for (String law : equivalencyMap.keySet()) {
-                                    List<String> equivalencies = equivalencyMap.get(law);
-                                    if (equivalencies != null) {
-                                        for (String equivalency : equivalencies) {
-                                            if (equivalency != null && !equivalency.isEmpty() && !backwardKnowledgeHistory.contains(equivalency)) {
-                                                backwardKnowledgeHistory.add(equivalency);
-                                                DeductionGraphNode newEquivalencyNode = computationGraph.add(equivalency);
-                                                computationGraph.point(node, newEquivalencyNode);
-                                                newEquivalencies.add(newEquivalencyNode);
-                                                if (equivalency.equals(computationGraph.getQuery())) {
-                                                    pathExistence = true;
-                                                    searchLoopCount = MAX_EPOCHS + 1;
-                                                    break outerloop;
-                                                }
+                        currentNodes = new ArrayList<>(currentNodesLambda.apply((backwardBeam != null) ? backwardBeam.nodes() : computationGraph.getBackwardNodes()));
+                        if (equivalences != null) {
+                            // Backward formulas derive from the query, so none is linked to it; they only join the e-graph
+                            addEquivalences(equivalences, currentNodes);
+                        } else {
+                            FrontierExpansion<DeductionGraphNode, LawResults<EquivalencyLaws.Law>> equivalencyExpansions = new FrontierExpansion<>(frontierExecutor, checkpoint, currentNodes, frontierNode ->
+                                    equivalencyLaws.checkEquivalencyLaws(new Proposition(frontierNode.getExpression())));
+                            List<DeductionGraphNode> newEquivalencies = new ArrayList<>();
+                            outerloop: for (int i = 0; i < currentNodes.size(); i++) {
+                                DeductionGraphNode node = currentNodes.get(i);
+                                LawResults<EquivalencyLaws.Law> equivalencyMap = equivalencyExpansions.get(i);
+
+                                for (EquivalencyLaws.Law law : equivalencyMap.laws()) {
+                                    for (String equivalency : equivalencyMap.get(law)) {
+                                        if (backwardKnowledgeHistory.putIfAbsent(formulaOf(equivalency), equivalency) == null) {
+                                            checkpoint.run();
+                                            DeductionGraphNode newEquivalencyNode = computationGraph.add(equivalency);
+                                            computationGraph.point(node, newEquivalencyNode);
+                                            newEquivalencies.add(newEquivalencyNode);
+                                            if (newEquivalencyNode.getFormula() == queryFormula) {
+                                                pathExistence = true;
+                                                searchLoopCount = MAX_EPOCHS + 1;
+                                                break outerloop;
                                             }
                                         }
                                     }
                                 }
                             }
-                        }
-                        for (DeductionGraphNode equNode : newEquivalencies) {
-                            computationGraph.addBackwardNode(equNode);
+                            for (DeductionGraphNode equNode : newEquivalencies) {
+                                computationGraph.addBackwardNode(equNode);
+                            }
                         }
                         iteration++;
                         if (iteration >= MAX_BACKWARD_ITERATIONS) {
@@ -652,60 +1552,57 @@ public class Argument<M extends ModelAbstract> {
                         break;
                     } else {
                         // First iteration of backward chaining
-                        Map<String, ArrayList<String>> inferenceMap = inferenceLaws.checkInferenceLaws(
+                        LawResults<InferenceLaws.Law> inferenceMap = inferenceLaws.checkInferenceLaws(
                                 new Proposition[]{new Proposition(computationGraph.getQuery())});
 
-                        if (inferenceMap != null) {
-                            outerloop: for (String law : inferenceMap.keySet()) {
-                                List<String> inferences = inferenceMap.get(law);
-                                if (inferences != null) {
-                                    for (String inference : inferences) {
-                                        if (inference != null && !inference.isEmpty() && !backwardKnowledgeHistory.contains(inference)) {
-                                            backwardKnowledgeHistory.add(inference);
-                                            DeductionGraphNode newInferenceNode = computationGraph.add(inference);
-                                            computationGraph.point(computationGraph.getQueryNode(), newInferenceNode);
-                                            computationGraph.addBackwardNode(newInferenceNode);
-                                            if (inference.equals(computationGraph.getQuery())) {
-                                                pathExistence = true;
-                                                searchLoopCount = MAX_EPOCHS + 1;
-                                                break outerloop;
-                                            }
-                                        }
+                        outerloop: for (InferenceLaws.Law law : inferenceMap.laws()) {
+                            for (String inference : inferenceMap.get(law)) {
+                                if (backwardKnowledgeHistory.putIfAbsent(formulaOf(inference), inference) == null) {
+                                    checkpoint.run();
+                                    DeductionGraphNode newInferenceNode = computationGraph.add(inference);
+                                    computationGraph.point(computationGraph.getQueryNode(), newInferenceNode);
+                                    computationGraph.addBackwardNode(newInferenceNode);
+                                    if (newInferenceNode.getFormula() == queryFormula) {
+                                        pathExistence = true;
+                                        searchLoopCount = MAX_EPOCHS + 1;
+                                        break outerloop;
                                     }
                                 }
                             }
                         }
                         if (pathExistence) break;
 
-                        currentNodes = currentNodesLambda.apply(computationGraph.getBackwardNodes());
-                        List<DeductionGraphNode> newEquivalencies = new ArrayList<>();
-                        outerloop: for (DeductionGraphNode node : currentNodes) {
-                            Map<String, ArrayList<String>> equivalencyMap = equivalencyLaws.checkEquivalencyLaws(
-                                    new Proposition(node.getExpression()));
-
-                            if (equivalencyMap != null) {
-                                for (String law : equivalencyMap.keySet()) {
-                                    List<String> equivalencies = equivalencyMap.get(law);
-                                    if (equivalencies != null) {
-                                        for (String equivalency : equivalencies) {
-                                            if (equivalency != null && !equivalency.isEmpty() && !backwardKnowledgeHistory.contains(equivalency)) {
-                                                backwardKnowledgeHistory.add(equivalency);
-                                                DeductionGraphNode newEquivalencyNode = computationGraph.add(equivalency);
-                                                computationGraph.point(node, newEquivalencyNode);
-                                                newEquivalencies.add(newEquivalencyNode);
-                                                if (equivalency.equals(computationGraph.getQuery())) {
-                                                    pathExistence = true;
-                                                    searchLoopCount = MAX_EPOCHS + 1;
-                                                    break outerloop;
-                                                }
+                        currentNodes = new ArrayList<>(currentNodesLambda.apply((backwardBeam != null) ? backwardBeam.nodes() : computationGraph.getBackwardNodes()));
+                        if (equivalences != null) {
+                            // Backward formulas derive from the query, so none is linked to it; they only join the e-graph
+                            addEquivalences(equivalences, currentNodes);
+                        } else {
+                            FrontierExpansion<DeductionGraphNode, LawResults<EquivalencyLaws.Law>> equivalencyExpansions = new FrontierExpansion<>(frontierExecutor, checkpoint, currentNodes, frontierNode ->
+                                    equivalencyLaws.checkEquivalencyLaws(new Proposition(frontierNode.getExpression())));
+                            List<DeductionGraphNode> newEquivalencies = new ArrayList<>();
+                            outerloop: for (int i = 0; i < currentNodes.size(); i++) {
+                                DeductionGraphNode node = currentNodes.get(i);
+                                LawResults<EquivalencyLaws.Law> equivalencyMap = equivalencyExpansions.get(i);
+
+                                for (EquivalencyLaws.Law law : equivalencyMap.laws()) {
+                                    for (String equivalency : equivalencyMap.get(law)) {
+                                        if (backwardKnowledgeHistory.putIfAbsent(formulaOf(equivalency), equivalency) == null) {
+                                            checkpoint.run();
+                                            DeductionGraphNode newEquivalencyNode = computationGraph.add(equivalency);
+                                            computationGraph.point(node, newEquivalencyNode);
+                                            newEquivalencies.add(newEquivalencyNode);
+                                            if (newEquivalencyNode.getFormula() == queryFormula) {
+                                                pathExistence = true;
+                                                searchLoopCount = MAX_EPOCHS + 1;
+                                                break outerloop;
                                             }
                                         }
                                     }
                                 }
                             }
-                        }
-                        for (DeductionGraphNode equNode : newEquivalencies) {
-                            computationGraph.addBackwardNode(equNode);
+                            for (DeductionGraphNode equNode : newEquivalencies) {
+                                computationGraph.addBackwardNode(equNode);
+                            }
                         }
 
                         firstIteration = false;
@@ -718,19 +1615,191 @@ public class Argument<M extends ModelAbstract> {
         } while (searchLoopCount <= MAX_EPOCHS);
 
         if (pathExistence) {
-            computationGraph.printAdjacencyMatrix();
-            return computationGraph.multithreadedBidirectionalAStar(forwardKnowledgeHistory, backwardKnowledgeHistory);
+            return computationGraph.multithreadedBidirectionalAStar(forwardKnowledgeHistory.keySet(),
+                    backwardKnowledgeHistory.keySet(), searchExecutor, checkpoint);
         }
 
         return null; // Return null if no path is found within the maximum number of loops
     }
 
 
-    private ArrayList<String[]> combineKBExpressions(ArrayList<String> kb)
+    /**
+     * Adds the frontier to the e-graph and saturates it.
+     */
+    private static void addEquivalences(EGraph equivalences, List<DeductionGraphNode> frontier) {
+        for (DeductionGraphNode node : frontier) {
+            equivalences.add(node.getFormula());
+        }
+        equivalences.saturate(EQUALITY_SATURATION_ROUNDS);
+    }
+
+    /**
+     * Adds the frontier to the e-graph, saturates it, and links the first frontier node found equivalent to the query
+     * that a premise derives; linking any other node would claim a path the search cannot find.
+     *
+     * @return true if the query was linked
+     */
+    private boolean linkEquivalentQuery(EGraph equivalences, List<DeductionGraphNode> frontier,
+            DirectedDeductionGraph computationGraph) {
+        DeductionGraphNode queryNode = computationGraph.getQueryNode();
+        addEquivalences(equivalences, frontier);
+        for (DeductionGraphNode node : frontier) {
+            if (node != queryNode && equivalences.equivalent(node.getFormula(), queryNode.getFormula())
+                    && computationGraph.derivationPath(node) != null) {
+                computationGraph.point(node, queryNode);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Beam of one chaining direction: the highest-scoring of the nodes the direction derived since the previous
+     * epoch. Nodes that do not make the beam are dropped for good.
+     */
+    private final class Beam {
+        private final int width;
+        private final ToDoubleFunction<DeductionGraphNode> score;
+        private final ExecutorService executor;
+        private final Runnable checkpoint;
+        /** nodes of the direction's node list already ranked */
+        private int ranked = 0;
+        private List<DeductionGraphNode> nodes = List.of();
+
+        private Beam(int width, ToDoubleFunction<DeductionGraphNode> score, ExecutorService executor,
+                Runnable checkpoint) {
+            this.width = width;
+            this.score = score;
+            this.executor = executor;
+            this.checkpoint = checkpoint;
+        }
+
+        /**
+         * Replaces the beam with the best of the nodes appended to the direction's node list since the last call.
+         */
+        private void advance(List<DeductionGraphNode> reached) throws Exception {
+            List<DeductionGraphNode> derived = new ArrayList<>(reached.subList(this.ranked, reached.size()));
+            this.ranked = reached.size();
+            this.nodes = rankNodes(derived, this.score, this.width, this.executor, this.checkpoint);
+        }
+
+        private List<DeductionGraphNode> nodes() {
+            return this.nodes;
+        }
+
+        /**
+         * Pairs the beam with the anchors, the premises or the query, and with itself; anchors are only paired with
+         * each other on the first epoch.
+         */
+        private ArrayList<String[]> combinations(List<DeductionGraphNode> anchors, boolean firstEpoch)
+                throws InvalidExpressionException, InvalidOperandException, InvalidLogicOperatorException {
+            ArrayList<String> expressions = new ArrayList<>();
+            for (DeductionGraphNode anchor : anchors)
+                expressions.add(anchor.getExpression());
+            for (DeductionGraphNode node : this.nodes) {
+                if (!anchors.contains(node))
+                    expressions.add(node.getExpression());
+            }
+            return combineKBExpressions(expressions, firstEpoch ? 0 : anchors.size());
+        }
+    }
+
+    @FunctionalInterface
+    private interface LawApplication<T, R> {
+        R apply(T frontierItem) throws Exception;
+    }
+
+    /**
+     * Law results for the items of one frontier, by frontier index. Sequentially, an item is expanded only when the
+     * merge loop reaches it, so a loop that stops at the query skips the rest. Given an executor, the whole frontier
+     * is expanded up front: helper tasks on the executor and the constructing thread claim items one at a time, so
+     * the expansion completes even if no helper ever runs. The merge loop still consumes results in frontier order.
+     */
+    private final class FrontierExpansion<T, R> {
+        private final List<T> frontier;
+        private final LawApplication<T, R> application;
+        private final List<R> expanded;
+
+        private final Runnable checkpoint;
+
+        /**
+         * @param executor   executor to expand the frontier on, or null to expand items as they are read
+         * @param checkpoint run before each item is expanded, or null; an exception it throws ends the expansion
+         */
+        private FrontierExpansion(ExecutorService executor, Runnable checkpoint, List<T> frontier,
+                LawApplication<T, R> application) throws Exception {
+            this.frontier = frontier;
+            this.application = application;
+            this.checkpoint = checkpoint;
+            this.expanded = (executor != null && frontier.size() > 1) ? expandAll(executor) : null;
+        }
+
+        @SuppressWarnings("unchecked")
+        private List<R> expandAll(Executor executor) throws Exception {
+            int size = frontier.size();
+            Object[] results = new Object[size];
+            AtomicInteger next = new AtomicInteger();
+            CountDownLatch remaining = new CountDownLatch(size);
+            AtomicReference<Exception> failure = new AtomicReference<>();
+            Runnable drain = () -> {
+                for (int i = next.getAndIncrement(); i < size; i = next.getAndIncrement()) {
+                    try {
+                        if (failure.get() == null)
+                            results[i] = expand(i);
+                    } catch (Exception e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        remaining.countDown();
+                    }
+                }
+            };
+
+            int helpers = Math.min(size, Runtime.getRuntime().availableProcessors()) - 1;
+            for (int k = 0; k < helpers; k++)
+                executor.execute(drain);
+            drain.run();
+            // Only items helpers have already claimed can still be in progress
+            remaining.await();
+
+            if (failure.get() != null)
+                throw failure.get();
+            return (List<R>) Arrays.asList(results);
+        }
+
+        private R expand(int index) throws Exception {
+            if (checkpoint != null)
+                checkpoint.run();
+            return application.apply(frontier.get(index));
+        }
+
+        private R get(int index) throws Exception {
+            return (expanded != null) ? expanded.get(index) : expand(index);
+        }
+
+        private List<R> getAll() throws Exception {
+            if (expanded != null)
+                return expanded;
+            List<R> all = new ArrayList<>(frontier.size());
+            for (int i = 0; i < frontier.size(); i++)
+                all.add(expand(i));
+            return all;
+        }
+    }
+
+    private static ExpressionTree formulaOf(String expression)
+            throws InvalidExpressionException, InvalidOperandException, InvalidLogicOperatorException {
+        return PropositionCache.getShared().getExpressionTree(expression);
+    }
+
+    /**
+     * Pairs each expression with every later one, leaving out pairs whose expressions both come before
+     * {@code fromIndex}; those were combined in an earlier epoch.
+     */
+    private ArrayList<String[]> combineKBExpressions(ArrayList<String> kb, int fromIndex)
             throws InvalidExpressionException, InvalidOperandException, InvalidLogicOperatorException {
         ArrayList<String[]> kbCombinations = new ArrayList<>();
         for (int i = 0; i < kb.size(); i++) {
-            for (int j = i + 1; j < kb.size(); j++) {
+            for (int j = Math.max(i + 1, fromIndex); j < kb.size(); j++) {
                 String[] combination = new String[2];
                 combination[0] = kb.get(i);
                 combination[1] = kb.get(j);
@@ -742,511 +1811,161 @@ public class Argument<M extends ModelAbstract> {
     }
 
     public void printAllTrueKBModels() {
-        for (ArrayList<String> trueKBModel : this.trueKBModels) {
+        if (this.trueKBRows == null)
+            return;
+        trueKBModelRows().forEachOrdered(trueKBModel -> {
             for (String s : trueKBModel) {
                 System.out.print(s + " ");
             }
             System.out.println();
-        }
+        });
     }
 
     public void printTruthTable() {
+        if (this.packedTruthTable == null)
+            return;
         System.out.println();
-        for (int i = 0; i < allTruthTable[i].length; i++) {
-            System.out.print(allTruthTable[0][i] + "\s\s\s");
+        for (String title : getTruthTableTitleRow()) {
+            System.out.print(title + "\s\s\s");
         }
         System.out.println();
-        for (int i = 1; i < allTruthTable.length; i++) {
-            for (int j = 0; j < allTruthTable[i].length; j++) {
-                System.out.print(allTruthTable[i][j] + "\s\s\s\s\s");
+        truthTableRows().skip(1).forEach(row -> {
+            for (String cell : row) {
+                System.out.print(cell + "\s\s\s\s\s");
             }
             System.out.println();
-        }
+        });
     }
 
     public void printTruthTable(int fromCol, int toCol) {
         if (fromCol > toCol)
             throw new IndexOutOfBoundsException(fromCol + " is out of bounds.");
+        if (this.packedTruthTable == null)
+            return;
 
-        for (int i = 0; i < allTruthTable[i].length; i++) {
+        String[] titleRow = getTruthTableTitleRow();
+        for (int i = 0; i < titleRow.length; i++) {
             System.out.print(i + " ");
-            System.out.print(allTruthTable[0][i] + "\s\s\s");
+            System.out.print(titleRow[i] + "\s\s\s");
         }
 
-        for (int i = 1; i < allTruthTable.length; i++) {
+        truthTableRows().skip(1).forEach(row -> {
             for (int j = fromCol; j < toCol; j++) {
-                System.out.print(allTruthTable[i][j] + "\s\s\s\s\s");
+                System.out.print(row[j] + "\s\s\s\s\s");
             }
             System.out.println();
-        }
+        });
     }
 
     /* Used for constructing argumentative inference */
     static final class InferenceLaws<M extends ModelAbstract> {
+        static final int PAIR_CACHE_SIZE = 1 << 14;
 
-        private static final Map<String, ArrayList<String>> answerTemplate = new HashMap<>() {
-            {
-                put("Modus Ponens", null);
-                put("Modus Tollens", null);
-                put("Addition", null);
-                put("Simplification", null);
-                put("Conjunction", null);
-                put("Hypothetical Syllogism", null);
-                put("Disjunctive Syllogism", null);
-                put("Resolution", null);
-            }
-        };
+        /** results of premise pairs already tried; emptied once it holds PAIR_CACHE_SIZE pairs */
+        private final ConcurrentHashMap<PremisePair, LawResults<Law>> pairCache = new ConcurrentHashMap<>();
 
-        /**
-         *
-         * @param kbPropositions an Argument object containing given knowledge base and each
-         *            successive deduction; knowledge history
-         * @return Maps inference law to list of strings, with each string containing
-         *         [applied premises] and resulting {conclusion}.
-         */
-        public Map<String, ArrayList<String>> checkInferenceLaws(Proposition[] kbPropositions) {
-            String[] kbConversions = new String[kbPropositions.length];
-            for (int i = 0; i < kbPropositions.length; i++) {
-                kbConversions[i] = kbPropositions[i].getConvertedExpression();
-            }
+        enum Law {
+            MODUS_PONENS("Modus Ponens"),
+            MODUS_TOLLENS("Modus Tollens"),
+            ADDITION("Addition"),
+            SIMPLIFICATION("Simplification"),
+            CONJUNCTION("Conjunction"),
+            HYPOTHETICAL_SYLLOGISM("Hypothetical Syllogism"),
+            DISJUNCTIVE_SYLLOGISM("Disjunctive Syllogism"),
+            RESOLUTION("Resolution");
 
-            Map<String, ArrayList<String>> answerSet = answerTemplate;
-            Map<String, ArrayList<Map<Character, String>>> answerEncodings = argumentEncoder(kbConversions);
-            if (answerEncodings == null)
-                return null;
-            for (String law : answerEncodings.keySet()) {
-                for (Map<Character, String> encoding : answerEncodings.get(law)) {
-                    int i = 0;
-                    for (Map.Entry<Character, String> entry : encoding.entrySet()) {
-                            kbConversions[i] = kbConversions[i].replace(entry.getValue(), entry.getKey().toString());
-                            i++;
-                    }
-                    ArrayList<String> answerDecodings = new ArrayList<>();
-                    switch (law) {
-                        case "Modus Ponens": {
-                            answerDecodings.add(argumentDecoder(modusPonens(kbConversions), encoding));
-                            break;
-                        }
-                        case "Modus Tollens": {
-                            answerDecodings.add(argumentDecoder(modusTollens(kbConversions), encoding));
-                            break;
-                        }
-                        case "Addition": {
-                            if (kbConversions.length == 1)
-                                answerDecodings.add(argumentDecoder(addition(kbConversions[0]), encoding));
-                            break;
-                        }
-                        case "Simplification": {
-                            if (kbConversions.length == 1)
-                                answerDecodings.add(argumentDecoder(simplification(kbConversions[0]), encoding));
-                            break;
-                        }
-                        case "Conjunction": {
-                            answerDecodings.add(argumentDecoder(conjunction(kbConversions), encoding));
-                            break;
-                        }
-                        case "Hypothetical Syllogism": {
-                            answerDecodings.add(argumentDecoder(hypotheticalSyllogism(kbConversions), encoding));
-                            break;
-                        }
-                        case "Disjunctive Syllogism": {
-                            answerDecodings.add(argumentDecoder(disjunctiveSyllogism(kbConversions), encoding));
-                            break;
-                        }
-                        case "Resolution": {
-                            answerDecodings.add(argumentDecoder(resolution(kbConversions), encoding));
-                            break;
-                        }
-                        default: {
-                            break;
-                        }
-                    }
+            private final String lawName;
 
-                    answerSet.put(law, answerDecodings);
-                }
+            Law(String lawName) {
+                this.lawName = lawName;
             }
-            return answerSet;
-        }
 
-        private Map<String, ArrayList<Map<Character, String>>> argumentEncoder(String[] kb) {
-            Map<String, ArrayList<Map<Character, String>>> encodedLawMap = new HashMap<>();
-            for (String law : answerTemplate.keySet()) {
-                encodedLawMap.put(law, null);
+            String getLawName() {
+                return this.lawName;
             }
 
-            final String[] modusPonens = new String[] {
-                    "^(.*)$", "^(.*)m(.*)$"
-            };
-            final String[] modusTollens = new String[] {
-                    "^n(.*)", "^(.*)m(.*)$"
-            };
-            final String simplification = "^(.*)a(.*)$";
-            final String[] hypotheticalSyllogism = new String[] {
-                    "^(.*)m(.*)$", "^(.*)m(.*)$"
-            };
-            final String[] disjunctiveSyllogism = new String[] {
-                    "^(.*)o(.*)$", "^n(.*)$"
-            };
-            final String[] resolution = new String[] {
-                    "^(.*)o(.*)$", "^n(.*)o(.*)$"
-            };
-
-            final Character[] lawOperands = new Character[] {
-                    'P', 'Q', 'R'
-            };
-
-            for (String law : encodedLawMap.keySet()) {
-                ArrayList<Map<Character, String>> encodings = new ArrayList<>();
-                if (kb.length == 2 && !Objects.equals(law, "Addition") && !Objects.equals(law, "Simplification")) {
-                    switch (law) {
-                        case "Modus Ponens": {
-                            final String[] premise2Substrings = subdivideExpressionCharacters(kb[1], modusPonens[1]);
-                            if (premise2Substrings == null)
-                                break;
-                            else if (premise2Substrings.length != 2)
-                                break;
-                            if (kb[0].equals(premise2Substrings[0]) && !kb[0].equals(premise2Substrings[1])) {
-                                encodings.add(new HashMap<Character, String>() {
-                                    {
-                                        put(lawOperands[0], kb[0]);
-                                        put(lawOperands[1], premise2Substrings[1]);
-                                    }
-                                });
-                            }
-                            break;
-                        }
-                        case "Modus Tollens": {
-                            final String[] premise2Substrings = subdivideExpressionCharacters(kb[1], modusTollens[1]);
-                            if (premise2Substrings == null)
-                                break;
-                            else if (premise2Substrings.length != 2)
-                                break;
-                            if (kb[0].equals(premise2Substrings[1]) && !kb[0].equals(premise2Substrings[0])) {
-                                encodings.add(new HashMap<Character, String>() {
-                                    {
-                                        put(lawOperands[0], premise2Substrings[0]);
-                                        put(lawOperands[1], kb[0]);
-                                    }
-                                });
-                            }
-                            break;
-                        }
-                        case "Simplification": {
-                            for (String s : kb) {
-                                final String[] premise1Substrings = subdivideExpressionCharacters(s,
-                                        simplification);
-                                if (premise1Substrings == null)
-                                    break;
-                                else if (premise1Substrings.length != 2)
-                                    break;
-                                if (!premise1Substrings[0].equals(premise1Substrings[1])) {
-                                    encodings.add(new HashMap<Character, String>() {
-                                        {
-                                            put(lawOperands[0], premise1Substrings[0]);
-                                            put(lawOperands[1], premise1Substrings[1]);
-                                        }
-                                    });
-                                }
-                            }
-                            break;
-                        }
-                        case "Conjunction": {
-                            if (!kb[0].equals(kb[1])) {
-                                encodings.add(new HashMap<Character, String>() {
-                                    {
-                                        put(lawOperands[0], kb[0]);
-                                        put(lawOperands[1], kb[1]);
-                                    }
-                                });
-                            }
-                            break;
-                        }
-                        case "Hypothetical Syllogism": {
-                            final String[] premise1Substrings = subdivideExpressionCharacters(kb[0],
-                                    hypotheticalSyllogism[0]);
-                            final String[] premise2Substrings = subdivideExpressionCharacters(kb[1],
-                                    hypotheticalSyllogism[1]);
-                            if (premise1Substrings == null || premise2Substrings == null)
-                                break;
-                            if (!premise1Substrings[0].equals(premise1Substrings[1])
-                                    && !premise1Substrings[0].equals(premise2Substrings[1])
-                                    && !premise2Substrings[0].equals(premise2Substrings[1])
-                                    && premise1Substrings[1].equals(premise2Substrings[0])) {
-                                encodings.add(new HashMap<Character, String>() {
-                                    {
-                                        put(lawOperands[0], premise1Substrings[0]);
-                                        put(lawOperands[1], premise1Substrings[1]);
-                                        put(lawOperands[2], premise2Substrings[1]);
-                                    }
-                                });
-                            }
-                            break;
-                        }
-                        case "Disjunctive Syllogism": {
-                            final String[] premise1Substrings = subdivideExpressionCharacters(kb[0],
-                                    disjunctiveSyllogism[0]);
-                            final String[] premise2Substrings = subdivideExpressionCharacters(kb[1],
-                                    disjunctiveSyllogism[1]);
-                            if (premise1Substrings == null || premise2Substrings == null)
-                                break;
-                            if (!premise1Substrings[0].equals(premise1Substrings[1])
-                                    && premise1Substrings[0].equals(premise2Substrings[0])) {
-                                encodings.add(new HashMap<Character, String>() {
-                                    {
-                                        put(lawOperands[0], premise1Substrings[0]);
-                                        put(lawOperands[1], premise1Substrings[1]);
-                                    }
-                                });
-                            }
-                            break;
-                        }
-                        case "Resolution": {
-                            final String[] premise1Substrings = subdivideExpressionCharacters(kb[0], resolution[0]);
-                            final String[] premise2Substrings = subdivideExpressionCharacters(kb[1], resolution[1]);
-                            if (premise1Substrings == null || premise2Substrings == null)
-                                break;
-                            if (!premise1Substrings[0].equals(premise1Substrings[1])
-                                    && !premise1Substrings[0].equals(premise2Substrings[1])
-                                    && !premise1Substrings[1].equals(premise2Substrings[1])
-                                    && premise1Substrings[0].equals(premise2Substrings[0])) {
-                                encodings.add(new HashMap<Character, String>() {
-                                    {
-                                        put(lawOperands[0], premise1Substrings[0]);
-                                        put(lawOperands[1], premise1Substrings[1]);
-                                        put(lawOperands[2], premise2Substrings[1]);
-                                    }
-                                });
-                            }
-                            break;
-                        }
-                    }
-                } else if (kb.length == 1 && (Objects.equals(law, "Addition") || Objects.equals(law, "Simplification"))) { // addition law
-                    switch(law) {
-                        case "Addition": {
-
-                        }
-                        case "Simplification": {
-
-                        }
-                    }
-                } else
-                    continue;
-
-                encodedLawMap.put(law, encodings);
+            /** Addition and Simplification take one premise; every other law takes two */
+            boolean isSinglePremise() {
+                return this == ADDITION || this == SIMPLIFICATION;
             }
-            // cleans up unfounded encoded laws
-            encodedLawMap.values().removeIf(Objects::isNull);
-            if (encodedLawMap.isEmpty())
-                return null;
-
-            return encodedLawMap;
-        }
-
-        private String argumentDecoder(String kbExpression, Map<Character, String> encoding) {
-            if (kbExpression == null || encoding == null)
-                return null;
-            String decodedExpression = kbExpression;
 
-            for (Map.Entry<Character, String> entry : encoding.entrySet()) {
-                String placeholder = Pattern.quote(entry.getKey().toString());
-                String actualExpression = entry.getValue();
-
-                if (actualExpression == null) {
-                    return null;
+            static Law fromLawName(String lawName) {
+                for (Law law : values()) {
+                    if (law.lawName.equals(lawName))
+                        return law;
                 }
-
-                decodedExpression = decodedExpression.replaceAll(placeholder, actualExpression);
+                throw new IllegalArgumentException("Unknown inference law: " + lawName);
             }
-
-            return decodedExpression;
-        }
-
-        private String findMatchingSubstringPairs(String cE, String operator) {
-            String[] cESubstrings = cE.split(operator);
-
-            if (cESubstrings.length < 2) {
-                return null;
-            }
-
-            for (int i = 0; i < cESubstrings.length; i++) {
-                for (int j = cESubstrings.length-1; j >= 0; j--) {
-                    if (j == i) continue;
-                    if (cESubstrings[i].equals(cESubstrings[j]))
-                        return cESubstrings[i];
-                }
-            }
-
-            return null;
-        }
-
-        private String[] subdivideExpressionCharacters(String kbExpression, String regex) {
-            if (kbExpression == null || regex == null)
-                return null;
-
-            ArrayList<String> kbExpressionSubstrings = new ArrayList<>();
-            Pattern pattern = Pattern.compile(regex);
-            Matcher matcher = pattern.matcher(kbExpression);
-
-            while (matcher.find()) {
-                for (int i = 0; i <= matcher.groupCount(); i++) {
-                    String group = matcher.group(i);
-                    if (group != null && !group.equals(kbExpression))
-                        kbExpressionSubstrings.add(group);
-                }
-            }
-            if (kbExpressionSubstrings.isEmpty())
-                return null;
-
-            return kbExpressionSubstrings.toArray(new String[0]);
-        }
-
-        /* Rules of Argument Inference */
-
-        /**
-         * Rule: [P], [P->Q] entails {Q}
-         *
-         * @param premises
-         * @return Rule string
-         */
-        private String modusPonens(String[] premises) {
-            String conclusion = null;
-            if ((premises[0].equals("P") && premises[1].equals("PmQ"))
-                    || (premises[0].equals("PmQ") && premises[1].equals("P")))
-                conclusion = "Q";
-            else if ((premises[0].equals("Q") && premises[1].equals("QmP"))
-                    || (premises[0].equals("QmP") && premises[1].equals("Q")))
-                conclusion = "P";
-
-            return conclusion;
         }
 
         /**
-         * Rule: [~Q], [P->Q] entails {~P}
          *
-         * @param premises
-         * @return Rule string
-         */
-        private String modusTollens(String[] premises) {
-            String conclusion = null;
-            if ((premises[0].equals("nQ") && premises[1].equals("PmQ")) ||
-                    (premises[0].equals("PmQ") && premises[1].equals("nQ"))) {
-                conclusion = "nP";
-            } else if ((premises[0].equals("nP") && premises[1].equals("QmP")) ||
-                    (premises[0].equals("QmP") && premises[1].equals("nP"))) {
-                conclusion = "nQ";
-            }
-
-            return conclusion;
-        }
-
-        /**
-         * Rule: [P] entails {P|Q}
-         *
-         * @param premise
-         * @return Rule string
+         * @param kbPropositions an Argument object containing given knowledge base and each
+         *            successive deduction; knowledge history
+         * @return conclusions derived by each inference law; a new, immutable object per call
          */
-        private String addition(String premise) {
-            String conclusion = null;
-            if (premise.equals("P"))
-                conclusion = "PoQ";
-            else if (premise.equals("Q"))
-                conclusion = "QoP";
-
-            return conclusion;
+        public LawResults<Law> checkInferenceLaws(Proposition[] kbPropositions) {
+            if (kbPropositions.length == 2)
+                return checkPair(kbPropositions[0].getExpressionTree(), kbPropositions[1].getExpressionTree());
+
+            LawResults.Builder<Law> answerSet = LawResults.builder(Law.class);
+            if (kbPropositions.length == 1)
+                InferenceRuleIndex.applySingle(kbPropositions[0].getExpressionTree(), answerSet);
+            return answerSet.build();
         }
 
         /**
-         * Rule: [P&Q] entails {P}
-         *
-         * @param premise
-         * @return Rule string
+         * Results for a premise pair, from the pair cache when the pair was tried before in either order. A pair's
+         * results do not depend on the knowledge base, so the cache outlives knowledge base changes. Threads
+         * expanding a frontier look pairs up without locking; two of them may both compute a missing pair, and the
+         * first result stored is kept.
          */
-        private String simplification(String premise) {
-            String conclusion = null;
-            if (premise.equals("PaQ"))
-                conclusion = "P";
-            else if (premise.equals("QaP"))
-                conclusion = "Q";
-
-            return conclusion;
+        private LawResults<Law> checkPair(ExpressionTree premise1, ExpressionTree premise2) {
+            PremisePair pair = PremisePair.of(premise1, premise2);
+            LawResults<Law> results = pairCache.get(pair);
+            if (results != null)
+                return results;
+
+            LawResults.Builder<Law> answerSet = LawResults.builder(Law.class);
+            InferenceRuleIndex.applyPair(pair.first, pair.second, answerSet);
+            results = answerSet.build();
+            if (pairCache.size() >= PAIR_CACHE_SIZE)
+                pairCache.clear();
+            LawResults<Law> cached = pairCache.putIfAbsent(pair, results);
+            return (cached != null) ? cached : results;
         }
 
         /**
-         * Rule: [P], [Q] entails {P&Q}
-         *
-         * @param premises
-         * @return Rule string
+         * Unordered premise pair, stored in a canonical order so that both orders share one cache entry.
          */
-        private String conjunction(String[] premises) {
-            String conclusion = null;
-            if (premises[0].equals("P") && premises[1].equals("Q"))
-                conclusion = "PaQ";
-            else if (premises[0].equals("Q") && premises[1].equals("P"))
-                conclusion = "QaP";
-
-            return conclusion;
-        }
+        private static final class PremisePair {
+            private final ExpressionTree first;
+            private final ExpressionTree second;
 
-        /**
-         * Rule: [P->Q], [Q->R] entails {P->R}
-         *
-         * @param premises
-         * @return Rule string
-         */
-        private String hypotheticalSyllogism(String[] premises) {
-            String conclusion = null;
-            if ((premises[0].equals("PmQ") && premises[1].equals("QmR"))
-                    || (premises[0].equals("QmR") && premises[1].equals("PmQ")))
-                conclusion = "PmR";
-            else if ((premises[0].equals("QmR") && premises[1].equals("RmP"))
-                    || (premises[0].equals("RmP") && premises[1].equals("QmR")))
-                conclusion = "QmP";
-            else if ((premises[0].equals("RmP") && premises[1].equals("PmQ"))
-                    || (premises[0].equals("PmQ") && premises[1].equals("RmP")))
-                conclusion = "RmQ";
-
-            return conclusion;
-        }
+            private PremisePair(ExpressionTree first, ExpressionTree second) {
+                this.first = first;
+                this.second = second;
+            }
 
-        /**
-         * Rule: [P|Q], [~P] entails {Q}
-         *
-         * @param premises
-         * @return Rule string
-         */
-        private String disjunctiveSyllogism(String[] premises) {
-            String conclusion = null;
-            if ((premises[0].equals("PoQ") && premises[1].equals("nP")) ||
-                    (premises[0].equals("nP") && premises[1].equals("PoQ"))) {
-                conclusion = "Q";
-            } else if ((premises[0].equals("QoP") && premises[1].equals("nQ")) ||
-                    (premises[0].equals("nQ") && premises[1].equals("QoP"))) {
-                conclusion = "P";
+            private static PremisePair of(ExpressionTree a, ExpressionTree b) {
+                int order = Integer.compare(a.hashCode(), b.hashCode());
+                if (order == 0)
+                    order = a.toString().compareTo(b.toString());
+                return (order <= 0) ? new PremisePair(a, b) : new PremisePair(b, a);
             }
 
-            return conclusion;
-        }
+            @Override
+            public boolean equals(Object o) {
+                if (!(o instanceof PremisePair))
+                    return false;
+                PremisePair other = (PremisePair) o;
+                return first == other.first && second == other.second;
+            }
 
-        /**
-         * Rule: [P|Q], [~P|R] entails {Q|R}
-         * this one is powerful
-         *
-         * @param premises
-         * @return Rule string
-         */
-        private String resolution(String[] premises) {
-            String conclusion = null;
-            if ((premises[0].equals("PoQ") && premises[1].equals("nPoR")) ||
-                    (premises[0].equals("nPoR") && premises[1].equals("PoQ")))
-                conclusion = "QoR";
-            else if ((premises[0].equals("QoP") && premises[1].equals("nQoR")) ||
-                    (premises[0].equals("nQoR") && premises[1].equals("QoP")))
-                conclusion = "RoP";
-            else if ((premises[0].equals("PoQ") && premises[1].equals("nRoP")) ||
-                    (premises[0].equals("nRoP") && premises[1].equals("PoQ")))
-                conclusion = "QoR";
-
-            return conclusion;
+            @Override
+            public int hashCode() {
+                return 31 * first.hashCode() + second.hashCode();
+            }
         }
     }
 
@@ -1256,706 +1975,47 @@ public class Argument<M extends ModelAbstract> {
      */
     static final class EquivalencyLaws {
 
-        private static final Map<String, ArrayList<String>> answerTemplate = new HashMap<>() {
-            {
-                put("Idempotent Law", null);
-                put("Associative Law", null);
-                put("Commutative Law", null);
-                put("Distributive Law", null);
-                put("Identity Law", null);
-                put("Dominant Law", null);
-                put("Double Negation Law", null);
-                put("Complement Law", null);
-                put("DeMorgan's Law", null);
-                put("Absorption Law", null);
-                put("Conditional Identity", null);
-            }
-        };
-
-        /**
-         *
-         * @param p A single propositional expression
-         * @return Maps equivalency to list strings, with each string containing
-         *         [applied expression] and resulting {conversion}.
-         */
-        public Map<String, ArrayList<String>> checkEquivalencyLaws(Proposition p) {
-            // parse cE and store similar substrings (if any) into variables to then
-            // construct applicable rules. This will use key-value mapping, and then
-            // using those mapped values to evaluate applicable rules, i.e. P|Q is P,
-            // therefore (P|Q)|(P|Q) => P|Q or, alternatively, P|P => P.
-            // also check if there are any operand propositional equivalencies as well.
-
-            /*
-             * With Propoposition p as the root/reference value and For each law,
-             * First, cycle through cE and check if there are any operand equivalencies. If
-             * so, evaluate and store result in applicableLaws.
-             * Second, cycle through cE and check for similar substrings, and map them to
-             * operand if found (relative to law operand format).
-             * Third, new_cE = cE, and replace similar substrings in new_cE with mapped
-             * operands.
-             * Fourth, evaluate and store result in answerSet.
-             * Repeat steps until possible evaluations is exhausted.
-             * Fifth, return answerSet.
-             *
-             * ## REMEMBER: Do not store repeated evaluations in answerSet, i.e.
-             */
-            String cE = p.getConvertedExpression(); // easier to work with
-            Map<String, ArrayList<String>> answerSet = answerTemplate;
-            Map<String, ArrayList<Map<Character, String>>> answerEncodings = expressionEncoder(cE);
-            String encoded_cE = cE;
-            assert answerEncodings != null;
-            for (String law : answerEncodings.keySet()) {
-                if (cE.length() > 1) {
-                    for (Map<Character, String> encoding : answerEncodings.get(law)) {
-                        for (Map.Entry<Character, String> entry : encoding.entrySet()) {
-                            encoded_cE = encoded_cE.replace(entry.getValue(), entry.getKey().toString());
-                        }
-                        ArrayList<String> answerDecodings = new ArrayList<>();
-                        switch (law) {
-                            case "Idempotent Law": {
-                                answerDecodings.add(expressionDecoder(idempotentLaw(encoded_cE), encoding));
-                                break;
-                            }
-                            case "Associative Law": {
-                                answerDecodings.add(expressionDecoder(associativeLaw(encoded_cE), encoding));
-                                break;
-                            }
-                            case "Commutative Law": {
-                                answerDecodings.add(expressionDecoder(commutativeLaw(encoded_cE), encoding));
-                                break;
-                            }
-                            case "Distributive Law": {
-                                answerDecodings.add(expressionDecoder(distributiveLaw(encoded_cE), encoding));
-                                break;
-                            }
-                            case "Identity Law": {
-                                answerDecodings.add(expressionDecoder(identityLaw(encoded_cE), encoding));
-                                break;
-                            }
-                            case "Domination Law": {
-                                answerDecodings.add(expressionDecoder(dominationLaw(encoded_cE), encoding));
-                                break;
-                            }
-                            case "Double Negation Law": {
-                                answerDecodings.add(expressionDecoder(doubleNegationLaw(encoded_cE), encoding));
-                                break;
-                            }
-                            case "Complement Law": {
-                                answerDecodings.add(expressionDecoder(complementLaw(encoded_cE), encoding));
-                                break;
-                            }
-                            case "DeMorgan's Law": {
-                                answerDecodings.add(expressionDecoder(deMorgansLaw(encoded_cE), encoding));
-                                break;
-                            }
-                            case "Absorption Law": {
-                                answerDecodings.add(expressionDecoder(absorptionLaw(encoded_cE), encoding));
-                                break;
-                            }
-                            case "Conditional Identity": {
-                                answerDecodings.add(expressionDecoder(conditionalIdentity(encoded_cE), encoding));
-                                break;
-                            }
-                            default: {
-                                break;
-                            }
-                        }
-
-                        answerSet.put(law, answerDecodings);
-                    }
-                }
-            }
-
-            return answerSet;
-        }
-
-        private Map<String, ArrayList<Map<Character, String>>> expressionEncoder(String cE) {
-            Map<String, ArrayList<Map<Character, String>>> encodedLawMap = new HashMap<>();
-            for (String law : answerTemplate.keySet()) {
-                encodedLawMap.put(law, null);
-            }
-
-            final String[] idempotentLaw = new String[] {
-                    "^(.*)o(.*)$", "^(.*)a(.*)$"
-            };
-            final String[] associativeLaw = new String[] {
-                    "^((.*)o(.*))o(.*)$", "^(.*)o((.*)o(.*))$", "^((.*)a(.*))a(.*)$", "^(.*)a((.*)a(.*))$"
-            };
-            final String[] commutativeLaw = new String[] {
-                    "^(.*)o(.*)$", "^(.*)a(.*)$"
-            };
-            final String[] distributiveLaw = new String[] {
-                    "^(.*)o((.*)a(.*))$", "^((.*)o(.*))a((.*)o(.*))$", "^(.*)a((.*)o(.*))$", "^((.*)a(.*))o((.*)a(.*))$"
-            };
-            final String[] identityLaw = new String[] {
-                    "^(.*)oF$", "^(.*)aT$", "^Fo(.*)$", "^Ta(.*)$"
-            };
-            final String[] dominationLaw = new String[] {
-                    "^(.*)aF$", "^(.*)oT$", "^Fa(.*)$", "^To(.*)$"
-            };
-            final String[] complementLaw = new String[] {
-                    "^(.*)an(.*)$", "^(.*)on(.*)$"
-            };
-            final String[] deMorgansLaw = new String[] {
-                    "^n((.*)o(.*))$", "^n(.*)an(.*)$", "^n((.*)a(.*))$", "^n(.*)on(.*)$"
-            };
-            final String[] absorptionLaw = new String[] {
-                    "^(.*)o((.*)a(.*))", "^(.*)a((.*)o(.*))$"
-            };
-            final String[] conditionalIdentity = new String[] {
-                    "^(.*)m(.*)$", "^n(.*)o(.*)$", "^(.*)i(.*)$", "^((.*)m(.*))a((.*)m(.*))$"
-            };
-
-            final Character[] lawOperands = new Character[] {
-                    'P', 'Q', 'R', 'T', 'F'
-            };
-
-            final int j = 0;
-            final int sentence = j;
-            for (String law : encodedLawMap.keySet()) {
-                if (cE.length() > 1) {
-                    ArrayList<Map<Character, String>> encodings = new ArrayList<>();
-                    switch (law) {
-                        case "Idempotent Law": {
-                            for (String law_str : idempotentLaw) {
-                                if (cE.matches(law_str)) {
-                                    final String[] cESubstrings = subdivideExpressionCharacters(cE, law_str);
-                                    if (cESubstrings[j].equals(cESubstrings[j + 1])) {
-                                        encodings.add(new HashMap<Character, String>() {
-                                            {
-                                                put(lawOperands[0], cESubstrings[sentence]);
-                                            }
-                                        });
-                                    }
-                                }
-                            }
-                            break;
-                        }
-                        case "Associative Law": {
-                            for (String law_str : associativeLaw) {
-                                if (cE.matches(law_str)) {
-                                    final String[] cESubstrings = subdivideExpressionCharacters(cE, law_str);
-                                    if (!cESubstrings[j].equals(cESubstrings[j + 1])
-                                            && !cESubstrings[j].equals(cESubstrings[j + 2])
-                                            && !cESubstrings[j + 1].equals(cESubstrings[j + 2])) {
-                                        encodings.add(new HashMap<Character, String>() {
-                                            {
-                                                put(lawOperands[0], cESubstrings[sentence]);
-                                                put(lawOperands[1], cESubstrings[sentence + 1]);
-                                                put(lawOperands[2], cESubstrings[sentence + 2]);
-                                            }
-                                        });
-                                    }
-                                }
-                            }
-                            break;
-                        }
-                        case "Commutative Law": {
-                            for (String law_str : commutativeLaw) {
-                                if (cE.matches(law_str)) {
-                                    final String[] cESubstrings = subdivideExpressionCharacters(cE, law_str);
-                                    if (!cESubstrings[j].equals(cESubstrings[j + 1])) {
-                                        encodings.add(new HashMap<Character, String>() {
-                                            {
-                                                put(lawOperands[0], cESubstrings[sentence]);
-                                                put(lawOperands[1], cESubstrings[sentence + 1]);
-                                            }
-                                        });
-                                    }
-                                }
-                            }
-                            break;
-                        }
-                        case "Distributive Law": {
-                            for (int i = 0; i < distributiveLaw.length; i++) {
-                                if (cE.matches(distributiveLaw[i])) {
-                                    final String[] cESubstrings = subdivideExpressionCharacters(cE, distributiveLaw[i]);
-                                    if (i == 0 || i == 2) {
-                                        if (!cESubstrings[j].equals(cESubstrings[j + 1])
-                                                && !cESubstrings[j].equals(cESubstrings[j + 2])
-                                                && !cESubstrings[j + 1].equals(cESubstrings[j + 2])) {
-                                            encodings.add(new HashMap<Character, String>() {
-                                                {
-                                                    put(lawOperands[0], cESubstrings[sentence]);
-                                                    put(lawOperands[1], cESubstrings[sentence + 1]);
-                                                    put(lawOperands[2], cESubstrings[sentence + 2]);
-                                                }
-                                            });
-                                        }
-                                    } else if ((i == 1 || i == 3) && findMatchingSubstringPairs(cESubstrings)) {
-                                        if (cESubstrings[j].equals(cESubstrings[j + 2])
-                                                && !cESubstrings[j + 1].equals(cESubstrings[j + 3])) {
-                                            encodings.add(new HashMap<Character, String>() {
-                                                {
-                                                    put(lawOperands[0], cESubstrings[sentence]);
-                                                    put(lawOperands[1], cESubstrings[sentence + 1]);
-                                                    put(lawOperands[2], cESubstrings[sentence + 3]);
-                                                }
-                                            });
-                                        } else if (cESubstrings[j + 1].equals(cESubstrings[j + 2])
-                                                && !cESubstrings[j].equals(cESubstrings[j + 3])) {
-                                            encodings.add(new HashMap<Character, String>() {
-                                                {
-                                                    put(lawOperands[0], cESubstrings[sentence + 1]);
-                                                    put(lawOperands[1], cESubstrings[sentence]);
-                                                    put(lawOperands[2], cESubstrings[sentence + 3]);
-                                                }
-                                            });
-                                        } else if (cESubstrings[j].equals(cESubstrings[j + 3])
-                                                && !cESubstrings[j + 1].equals(cESubstrings[j + 2])) {
-                                            encodings.add(new HashMap<Character, String>() {
-                                                {
-                                                    put(lawOperands[0], cESubstrings[sentence]);
-                                                    put(lawOperands[1], cESubstrings[sentence + 1]);
-                                                    put(lawOperands[2], cESubstrings[sentence + 2]);
-                                                }
-                                            });
-                                        } else if (cESubstrings[j + 1].equals(cESubstrings[j + 3])
-                                                && !cESubstrings[j].equals(cESubstrings[j + 2])) {
-                                            encodings.add(new HashMap<Character, String>() {
-                                                {
-                                                    put(lawOperands[0], cESubstrings[sentence + 1]);
-                                                    put(lawOperands[1], cESubstrings[sentence]);
-                                                    put(lawOperands[2], cESubstrings[sentence + 2]);
-                                                }
-                                            });
-                                        }
-
-                                    }
-                                }
-                            }
-                            break;
-                        }
-                        case "Identity Law": {
-                            for (String law_str : identityLaw) {
-                                if (cE.matches(law_str)) {
-                                    final String[] cESubstrings = subdivideExpressionCharacters(cE, law_str);
-                                    encodings.add(new HashMap<Character, String>() {
-                                        {
-                                            put(lawOperands[0], cESubstrings[0]);
-                                        }
-                                    });
-                                }
-                            }
-                            break;
-                        }
-                        case "Domination Law": {
-                            for (String law_str : dominationLaw) {
-                                if (cE.matches(law_str)) {
-                                    final String[] cESubstrings = subdivideExpressionCharacters(cE, law_str);
-                                    encodings.add(new HashMap<Character, String>() {
-                                        {
-                                            put(lawOperands[0], cESubstrings[0]);
-                                        }
-                                    });
-                                }
-                            }
-                            break;
-                        }
-                        case "Complement Law": {
-                            for (String law_str : complementLaw) {
-                                if (cE.matches(law_str)) {
-                                    final String[] cESubstrings = subdivideExpressionCharacters(cE, law_str);
-                                    if (cESubstrings[j].equals(cESubstrings[j + 1])) {
-                                        encodings.add(new HashMap<Character, String>() {
-                                            {
-                                                put(lawOperands[0], cESubstrings[sentence]);
-                                            }
-                                        });
-                                    }
-                                }
-                            }
-                            break;
-                        }
-                        case "DeMorgan's Law": {
-                            for (String law_str : deMorgansLaw) {
-                                if (cE.matches(law_str)) {
-                                    final String[] cESubstrings = subdivideExpressionCharacters(cE, law_str);
-                                    if (!cESubstrings[j].equals(cESubstrings[j + 1])) {
-                                        encodings.add(new HashMap<Character, String>() {
-                                            {
-                                                put(lawOperands[0], cESubstrings[sentence]);
-                                                put(lawOperands[1], cESubstrings[sentence + 1]);
-                                            }
-                                        });
-                                    }
-                                }
-                            }
-                            break;
-                        }
-                        case "Absorption Law": {
-                            for (String law_str : absorptionLaw) {
-                                if (cE.matches(law_str)) {
-                                    final String[] cESubstrings = subdivideExpressionCharacters(cE, law_str);
-                                    if (cESubstrings[j].equals(cESubstrings[j + 1])
-                                            && !cESubstrings[j + 2].equals(cESubstrings[j])) {
-                                        encodings.add(new HashMap<Character, String>() {
-                                            {
-                                                put(lawOperands[0], cESubstrings[sentence]);
-                                                put(lawOperands[1], cESubstrings[sentence + 2]);
-                                            }
-                                        });
-                                    } else if (cESubstrings[j].equals(cESubstrings[j + 2])
-                                            && !cESubstrings[j + 1].equals(cESubstrings[j])) {
-                                        encodings.add(new HashMap<Character, String>() {
-                                            {
-                                                put(lawOperands[0], cESubstrings[sentence]);
-                                                put(lawOperands[1], cESubstrings[sentence + 1]);
-                                            }
-                                        });
-                                    }
-
-                                }
-                            }
-                            break;
-                        }
-                        case "Conditional Identity": {
-                            for (int i = 0; i < conditionalIdentity.length; i++) {
-                                if (cE.matches(conditionalIdentity[i])) {
-                                    final String[] cESubstrings = subdivideExpressionCharacters(cE,
-                                            conditionalIdentity[i]);
-                                    if (i <= 2) {
-                                        if (!cESubstrings[j].equals(cESubstrings[j + 1])) {
-                                            encodings.add(new HashMap<Character, String>() {
-                                                {
-                                                    put(lawOperands[0], cESubstrings[sentence]);
-                                                    put(lawOperands[1], cESubstrings[sentence + 1]);
-                                                }
-                                            });
-                                        }
-                                    } else {
-                                        if (cESubstrings[j].equals(cESubstrings[j + 3])
-                                                && cESubstrings[j + 1].equals(cESubstrings[j + 2])
-                                                && !cESubstrings[j].equals(cESubstrings[j + 1])) {
-                                            encodings.add(new HashMap<Character, String>() {
-                                                {
-                                                    put(lawOperands[0], cESubstrings[sentence]);
-                                                    put(lawOperands[1], cESubstrings[sentence + 1]);
-                                                }
-                                            });
-                                        }
-                                    }
-                                }
-                            }
-                        }
-                            break;
-                    }
-                    encodedLawMap.put(law, encodings);
-                }
+        enum Law {
+            IDEMPOTENT("Idempotent Law"),
+            ASSOCIATIVE("Associative Law"),
+            COMMUTATIVE("Commutative Law"),
+            DISTRIBUTIVE("Distributive Law"),
+            IDENTITY("Identity Law"),
+            DOMINATION("Domination Law"),
+            DOUBLE_NEGATION("Double Negation Law"),
+            COMPLEMENT("Complement Law"),
+            DE_MORGANS("DeMorgan's Law"),
+            ABSORPTION("Absorption Law"),
+            CONDITIONAL_IDENTITY("Conditional Identity");
+
+            private final String lawName;
+
+            Law(String lawName) {
+                this.lawName = lawName;
             }
 
-            encodedLawMap.values().removeIf(Objects::isNull);
-            if (encodedLawMap.isEmpty())
-                return null;
-
-            return encodedLawMap;
-        }
-
-        private String expressionDecoder(String cE, Map<Character, String> encodings) {
-            if (cE == null || encodings == null)
-                return null;
-            String decodedExpression = cE;
-
-            for (Map.Entry<Character, String> entry : encodings.entrySet()) {
-                String placeholder = Pattern.quote(entry.getKey().toString());
-                String actualExpression = entry.getValue();
-
-                if (actualExpression == null) {
-                    return null;
-                }
-
-                decodedExpression = decodedExpression.replaceAll(placeholder, actualExpression);
+            String getLawName() {
+                return this.lawName;
             }
 
-            return decodedExpression;
-        }
-
-        private boolean findMatchingSubstringPairs(String[] substrings) {
-            if (substrings == null)
-                throw new IllegalArgumentException();
-
-            for (int i = 0; i < substrings.length; i++) {
-                for (int j = substrings.length-1; j >= 0; j--) {
-                    if (j == i) continue;
-                    if (substrings[i].equals(substrings[j]))
-                        return true;
+            static Law fromLawName(String lawName) {
+                for (Law law : values()) {
+                    if (law.lawName.equals(lawName))
+                        return law;
                 }
+                throw new IllegalArgumentException("Unknown equivalency law: " + lawName);
             }
-            return false;
-        }
-
-        private static String[] subdivideExpressionCharacters(String cE, String regex) {
-            if (cE == null || regex == null)
-                return null;
-
-            ArrayList<String> cESubstrings = new ArrayList<>();
-            Pattern pattern = Pattern.compile(regex);
-            Matcher matcher = pattern.matcher(cE);
-
-            while (matcher.find()) {
-                for (int i = 1; i <= matcher.groupCount(); i++) {
-                    cESubstrings.add(matcher.group(i));
-                }
-            }
-
-            return cESubstrings.toArray(new String[cESubstrings.size()]);
-        }
-
-        /**
-         * Rule: [P|P] == {P} OR [P&P] == {P}
-         *
-         */
-        private String idempotentLaw(String cE) {
-            String law = null;
-            if (cE.equals("PaP") || cE.equals("PoP"))
-                law = "P";
-
-            return law;
-        }
-
-        /**
-         * Rule: [(P|Q)|R] == {P|(Q|R)} OR [(P&Q)&R] == {P&(Q&R)}
-         *
-         * @param cE
-         * @return
-         */
-        private String associativeLaw(String cE) {
-            String law = null;
-            if (cE.equals("(PoQ)oR"))
-                law = "Po(QoR)";
-            else if (cE.equals("(PaQ)aR"))
-                law = "Pa(QaR)";
-
-            if (cE.equals("Po(QoR)"))
-                law = "(PoQ)oR";
-            else if (cE.equals("Pa(QaR)"))
-                law = "(PaQ)aR";
-
-            return law;
-        }
-
-        /**
-         * Rule: [P|Q] == {Q|P} OR [P&Q] == {Q&P}
-         *
-         * @param cE
-         * @return
-         */
-        private String commutativeLaw(String cE) {
-            String law = null;
-            if (cE.equals("PoQ") || cE.equals("QoP"))
-                law = cE.equals("PoQ") ? "QoP" : "PoQ";
-            else if (cE.equals("PaQ") || cE.equals("QaP"))
-                law = cE.equals("PaQ") ? "QaP" : "PaQ";
-
-            return law;
-        }
-
-        /**
-         * Rule: [P|(Q&R)] == {(P|Q)&(P|R)} OR [P&(Q|R)] == {(P&Q)|(P&R)}
-         *
-         * @param cE
-         * @return
-         */
-        private String distributiveLaw(String cE) {
-            String law = null;
-            if (cE.equals("Po(QaR)"))
-                law = "(PoQ)a(PoR)";
-            else if (cE.equals("Pa(QoR)"))
-                law = "(PaQ)o(PaR)";
-
-            if (cE.equals("(PoQ)a(PoR)"))
-                law = "Po(QaR)";
-            else if (cE.equals("(PaQ)o(PaR)"))
-                law = "Pa(QoR)";
-
-            return law;
-        }
-
-        /**
-         * Rule: [P|F] == {P} OR [P&T] == {P}
-         *
-         * @param cE
-         * @return
-         */
-        private String identityLaw(String cE) {
-            String law = null;
-            if (cE.equals("PoF") || cE.equals("PaT"))
-                law = "P";
-
-            return law;
-        }
-
-        /**
-         * Rule: [P&F] == {F} OR [P|T] == {T}
-         *
-         * @param cE
-         * @return
-         */
-        private String dominationLaw(String cE) {
-            String law = null;
-            if (cE.equals("PaF"))
-                law = "F";
-            else if (cE.equals("PoT"))
-                law = "T";
-
-            return law;
         }
 
         /**
-         * Rule: [~~P] == {P}
          *
-         * @param cE
-         * @return
-         */
-        private String doubleNegationLaw(String cE) {
-            String law = null;
-            if (cE.equals("nnP"))
-                law = "P";
-
-            return law;
-        }
-
-        /**
-         * Rule: [P&~P] == {F}, [~T] == {F} OR [P|~P] == {T}, [~F] == {T}
-         *
-         * @param cE
-         * @return
-         */
-        private String complementLaw(String cE) {
-            String law = null;
-            if (cE.equals("PanP") || cE.equals("nPaP"))
-                law = "F";
-            else if (cE.equals("nT"))
-                law = "F";
-            else if (cE.equals("PonP") || cE.equals("nPoP"))
-                law = "T";
-            else if (cE.equals("nF"))
-                law = "T";
-
-            return law;
-        }
-
-        /**
-         * Rule: [~(P|Q)] == {~P&~Q} OR [~(P&Q)] == {~P|~Q}
-         *
-         * @param cE
-         * @return
-         */
-        private String deMorgansLaw(String cE) {
-            String law = null;
-            if (cE.equals("n(PoQ)"))
-                law = "nPanQ";
-            else if (cE.equals("n(PaQ)"))
-                law = "nPonQ";
-
-            if (cE.equals("nPanQ"))
-                law = "n(PoQ)";
-            else if (cE.equals("nPonQ"))
-                law = "n(PaQ)";
-
-            return law;
-        }
-
-        /**
-         * Rule: [P|(P&Q)] == {P} OR [P&(P|Q)] == {P}
-         *
-         * @param cE
-         * @return
-         */
-        private String absorptionLaw(String cE) {
-            String law = null;
-            if (cE.equals("Po(PaQ)") || cE.equals("Pa(PoQ)"))
-                law = "P";
-
-            return law;
-        }
-
-        /**
-         * Rule: [P->Q] == {~P|Q} OR [P<>Q] == {(P->Q)&(Q->P)}
-         *
-         * @param cE
-         * @return
+         * @param p A single propositional expression
+         * @return equivalent expressions derived by each law; a new, immutable object per call
          */
-        private String conditionalIdentity(String cE) {
-            String law = null;
-            if (cE.equals("PmQ"))
-                law = "nPoQ";
-            else if (cE.equals("PiQ"))
-                law = "(PmQ)a(QmP)";
-
-            if (cE.equals("nPoQ"))
-                law = "PmQ";
-            else if (cE.equals("(PmQ)a(QmP)"))
-                law = "PiQ";
-
-            return law;
-        }
-
-        private String[] singleOperandEquivalencies(String law, String cE) {
-            if (cE.length() > 1) {
-                return null;
-            }
-
-            String[] equivalencies = null;
-            switch (law) {
-                case "Idempotent Law": {
-                    if (cE.equals("P")) {
-                        equivalencies = new String[2];
-                        equivalencies[0] = "PoP";
-                        equivalencies[1] = "PaP";
-                    }
-                    break;
-                }
-                case "Identity Law": {
-                    if (cE.equals("P")) {
-                        equivalencies = new String[2];
-                        equivalencies[0] = "PoF";
-                        equivalencies[1] = "PaT";
-                    }
-                    break;
-                }
-                case "Domination Law": {
-                    if (cE.equals("F")) {
-                        equivalencies = new String[1];
-                        equivalencies[0] = "PaF";
-                    } else if (cE.equals("T")) {
-                        equivalencies = new String[1];
-                        equivalencies[0] = "PoT";
-                    }
-                    break;
-                }
-                case "Double Negation Law": {
-                    if (cE.equals("P")) {
-                        equivalencies = new String[1];
-                        equivalencies[0] = "nnP";
-                    }
-                    break;
-                }
-                case "Complement Law": {
-                    if (cE.equals("F")) {
-                        equivalencies = new String[2];
-                        equivalencies[0] = "PanP";
-                        equivalencies[1] = "nT";
-                    } else if (cE.equals("T")) {
-                        equivalencies = new String[2];
-                        equivalencies[0] = "PonP";
-                        equivalencies[1] = "nF";
-                    }
-                    break;
-                }
-                case "Absorption Law": {
-                    if (cE.equals("P")) {
-                        equivalencies = new String[2];
-                        equivalencies[0] = "Po(PaQ)";
-                        equivalencies[1] = "Pa(PoQ)";
-                    }
-                    break;
-                }
-                default: {
-                    return null;
-                }
-            }
-            return equivalencies;
+        public LawResults<Law> checkEquivalencyLaws(Proposition p) {
+            LawResults.Builder<Law> answerSet = LawResults.builder(Law.class);
+            EquivalencyRewriter.rewrite(p.getExpressionTree(), answerSet);
+            return answerSet.build();
         }
     }
 }
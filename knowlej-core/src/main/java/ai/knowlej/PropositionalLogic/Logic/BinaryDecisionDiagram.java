@@ -0,0 +1,388 @@
+package ai.knowlej.PropositionalLogic.Logic;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Reduced ordered binary decision diagram (ROBDD) store. Formulas compile to int node handles shared across every
+ * formula compiled into the same store; {@link #FALSE} and {@link #TRUE} are the two terminals. Nodes are hash-consed
+ * through a unique table, so two formulas over the same variable order are equivalent exactly when they compile to
+ * the same handle, and tautology, contradiction and entailment checks are handle comparisons instead of a 2^n
+ * enumeration.
+ *
+ * Every operation goes through {@link #ite(int, int, int)}, whose results are kept in a fixed-size, lossy
+ * {@value #ITE_CACHE_SIZE}-entry cache. Variables are ordered by first appearance: operands given up front come
+ * first, and operands met later while compiling are appended below them, so handles stay valid as variables are
+ * added. Nodes are only freed by {@link #rollback(int)}, which drops every node and variable added since a
+ * {@link #checkpoint()}, so formulas compiled for one check need not stay in the store. Not thread-safe.
+ */
+public final class BinaryDecisionDiagram {
+    public static final int FALSE = 0;
+    public static final int TRUE = 1;
+
+    static final int ITE_CACHE_SIZE = 1 << 16;
+    private static final int TERMINAL_LEVEL = Integer.MAX_VALUE;
+
+    /** variables in order, and the level of each operand indexed by {@code operand - 'A'}, -1 if absent */
+    private char[] variables = new char[0];
+    private final byte[] variableLevels = new byte[26];
+    /** node count when each variable was added, indexed by level */
+    private final int[] variableCheckpoints = new int[26];
+
+    /** nodes: decision level, and the node followed when the variable is F (low) or T (high) */
+    private int[] levels = new int[64];
+    private int[] lows = new int[64];
+    private int[] highs = new int[64];
+    private int nodeCount = 0;
+
+    /** open-addressed unique table of node handles, 0 marking an empty slot since terminals are never stored */
+    private int[] uniqueTable = new int[128];
+
+    private final int[] iteF = new int[ITE_CACHE_SIZE];
+    private final int[] iteG = new int[ITE_CACHE_SIZE];
+    private final int[] iteH = new int[ITE_CACHE_SIZE];
+    private final int[] iteResults = new int[ITE_CACHE_SIZE];
+
+    /** handle each compiled tree compiled to */
+    private final HashMap<ExpressionTree, Integer> compiled = new HashMap<>();
+
+    public BinaryDecisionDiagram() {
+        this(new char[0]);
+    }
+
+    /**
+     * @param operands operands in variable order, topmost first
+     */
+    public BinaryDecisionDiagram(char[] operands) {
+        Arrays.fill(this.variableLevels, (byte) -1);
+        Arrays.fill(this.iteF, -1);
+        addNode(TERMINAL_LEVEL, FALSE, FALSE);
+        addNode(TERMINAL_LEVEL, TRUE, TRUE);
+        for (char operand : operands)
+            variable(operand);
+    }
+
+    /**
+     * @return handle of the single-variable formula for the operand, adding the operand at the bottom of the
+     *         variable order if it is new
+     */
+    public int variable(char operand) {
+        if (operand < 'A' || operand > 'Z')
+            throw new IllegalArgumentException("Invalid operand '" + operand + "'.");
+        int level = this.variableLevels[operand - 'A'];
+        if (level < 0) {
+            level = this.variables.length;
+            this.variables = Arrays.copyOf(this.variables, level + 1);
+            this.variables[level] = operand;
+            this.variableLevels[operand - 'A'] = (byte) level;
+            this.variableCheckpoints[level] = this.nodeCount;
+        }
+        return makeNode(level, FALSE, TRUE);
+    }
+
+    /**
+     * Compiles a formula; subformulas compiled before, in this or in any earlier formula, are not compiled again.
+     *
+     * @return handle of the formula
+     */
+    public int compile(ExpressionTree tree) {
+        return compile(tree, true);
+    }
+
+    /**
+     * @param retain whether the store remembers the formula's subformulas for later compiles; when false, only
+     *               repeats within this formula are shared and the store keeps no reference to the tree
+     * @return handle of the formula
+     */
+    public int compile(ExpressionTree tree, boolean retain) {
+        return compile(tree, retain ? this.compiled : new HashMap<>());
+    }
+
+    private int compile(ExpressionTree tree, HashMap<ExpressionTree, Integer> memo) {
+        Integer known = this.compiled.get(tree);
+        if (known == null && memo != this.compiled)
+            known = memo.get(tree);
+        if (known != null)
+            return known;
+
+        int node;
+        switch (tree.getSymbol()) {
+            case 'T':
+                node = TRUE;
+                break;
+            case 'F':
+                node = FALSE;
+                break;
+            case 'n':
+                node = not(compile(tree.getLeft(), memo));
+                break;
+            case 'a':
+                node = and(compile(tree.getLeft(), memo), compile(tree.getRight(), memo));
+                break;
+            case 'o':
+                node = or(compile(tree.getLeft(), memo), compile(tree.getRight(), memo));
+                break;
+            case 'm':
+                node = implies(compile(tree.getLeft(), memo), compile(tree.getRight(), memo));
+                break;
+            case 'i':
+                node = iff(compile(tree.getLeft(), memo), compile(tree.getRight(), memo));
+                break;
+            case 'x':
+                node = xor(compile(tree.getLeft(), memo), compile(tree.getRight(), memo));
+                break;
+            default:
+                node = variable(tree.getSymbol());
+                break;
+        }
+        memo.put(tree, node);
+        return node;
+    }
+
+    public int not(int f) {
+        return ite(f, FALSE, TRUE);
+    }
+
+    public int and(int f, int g) {
+        return ite(f, g, FALSE);
+    }
+
+    public int or(int f, int g) {
+        return ite(f, TRUE, g);
+    }
+
+    public int implies(int f, int g) {
+        return ite(f, g, TRUE);
+    }
+
+    public int iff(int f, int g) {
+        return ite(f, g, not(g));
+    }
+
+    public int xor(int f, int g) {
+        return ite(f, not(g), g);
+    }
+
+    /**
+     * If-then-else: the formula that is {@code g} where {@code f} is T and {@code h} where {@code f} is F.
+     */
+    public int ite(int f, int g, int h) {
+        if (f == TRUE)
+            return g;
+        if (f == FALSE)
+            return h;
+        if (g == h)
+            return g;
+        if (g == TRUE && h == FALSE)
+            return f;
+
+        int slot = cacheSlot(f, g, h);
+        if (this.iteF[slot] == f && this.iteG[slot] == g && this.iteH[slot] == h)
+            return this.iteResults[slot];
+
+        int top = Math.min(this.levels[f], Math.min(this.levels[g], this.levels[h]));
+        int high = ite(cofactor(f, top, true), cofactor(g, top, true), cofactor(h, top, true));
+        int low = ite(cofactor(f, top, false), cofactor(g, top, false), cofactor(h, top, false));
+        int result = makeNode(top, low, high);
+
+        this.iteF[slot] = f;
+        this.iteG[slot] = g;
+        this.iteH[slot] = h;
+        this.iteResults[slot] = result;
+        return result;
+    }
+
+    public boolean isTautology(int f) {
+        return f == TRUE;
+    }
+
+    public boolean isContradiction(int f) {
+        return f == FALSE;
+    }
+
+    public boolean isContingency(int f) {
+        return f != TRUE && f != FALSE;
+    }
+
+    /**
+     * @return true if every assignment satisfying {@code premise} satisfies {@code conclusion}
+     */
+    public boolean entails(int premise, int conclusion) {
+        return implies(premise, conclusion) == TRUE;
+    }
+
+    public boolean equivalent(int f, int g) {
+        return f == g;
+    }
+
+    /**
+     * Counts satisfying assignments over every variable of the store, including those the formula does not use.
+     */
+    public long countModels(int f) {
+        HashMap<Integer, Long> counts = new HashMap<>();
+        return countBelow(f, counts) << levelOf(f);
+    }
+
+    /**
+     * @return assignments to the variables at and below the node's level that satisfy it
+     */
+    private long countBelow(int node, HashMap<Integer, Long> counts) {
+        if (node == FALSE)
+            return 0L;
+        if (node == TRUE)
+            return 1L;
+        Long known = counts.get(node);
+        if (known != null)
+            return known;
+
+        int level = this.levels[node];
+        long count = (countBelow(this.lows[node], counts) << (levelOf(this.lows[node]) - level - 1))
+                + (countBelow(this.highs[node], counts) << (levelOf(this.highs[node]) - level - 1));
+        counts.put(node, count);
+        return count;
+    }
+
+    /**
+     * @return number of decision nodes reachable from the handle
+     */
+    public int size(int f) {
+        boolean[] visited = new boolean[this.nodeCount];
+        int[] stack = new int[this.nodeCount];
+        int top = 0, size = 0;
+        stack[top++] = f;
+        while (top > 0) {
+            int node = stack[--top];
+            if (node <= TRUE || visited[node])
+                continue;
+            visited[node] = true;
+            size++;
+            stack[top++] = this.lows[node];
+            stack[top++] = this.highs[node];
+        }
+        return size;
+    }
+
+    /**
+     * @return state of the store that {@link #rollback(int)} returns it to
+     */
+    public int checkpoint() {
+        return this.nodeCount;
+    }
+
+    /**
+     * Frees every node and variable added since the checkpoint. Handles taken since then are invalid afterwards, and
+     * retained compilations of formulas that compiled to them are forgotten.
+     */
+    public void rollback(int checkpoint) {
+        if (checkpoint <= TRUE || checkpoint > this.nodeCount)
+            throw new IllegalArgumentException("Invalid checkpoint " + checkpoint + ".");
+        if (checkpoint == this.nodeCount)
+            return;
+
+        // Removing nodes newest first leaves the unique table as it was before they were inserted
+        int mask = this.uniqueTable.length - 1;
+        for (int node = this.nodeCount - 1; node >= checkpoint; node--) {
+            int slot = hash(this.levels[node], this.lows[node], this.highs[node]) & mask;
+            while (this.uniqueTable[slot] != node)
+                slot = (slot + 1) & mask;
+            this.uniqueTable[slot] = 0;
+        }
+        this.nodeCount = checkpoint;
+
+        int variableCount = this.variables.length;
+        while (variableCount > 0 && this.variableCheckpoints[variableCount - 1] >= checkpoint)
+            this.variableLevels[this.variables[--variableCount] - 'A'] = -1;
+        this.variables = Arrays.copyOf(this.variables, variableCount);
+
+        for (int slot = 0; slot < ITE_CACHE_SIZE; slot++) {
+            if (this.iteF[slot] >= checkpoint || this.iteG[slot] >= checkpoint || this.iteH[slot] >= checkpoint
+                    || this.iteResults[slot] >= checkpoint)
+                this.iteF[slot] = -1;
+        }
+        this.compiled.values().removeIf(node -> node >= checkpoint);
+    }
+
+    /**
+     * @return number of nodes in the store, terminals included
+     */
+    public int getNodeCount() {
+        return this.nodeCount;
+    }
+
+    /**
+     * @return operands in variable order, topmost first
+     */
+    public char[] getVariables() {
+        return this.variables.clone();
+    }
+
+    public int getVariableCount() {
+        return this.variables.length;
+    }
+
+    /**
+     * @return level of the node, the variable count for terminals
+     */
+    private int levelOf(int node) {
+        return (node <= TRUE) ? this.variables.length : this.levels[node];
+    }
+
+    private int cofactor(int node, int level, boolean value) {
+        if (this.levels[node] != level)
+            return node;
+        return value ? this.highs[node] : this.lows[node];
+    }
+
+    private int makeNode(int level, int low, int high) {
+        if (low == high)
+            return low;
+
+        int mask = this.uniqueTable.length - 1;
+        int slot = hash(level, low, high) & mask;
+        for (int node = this.uniqueTable[slot]; node != 0; node = this.uniqueTable[slot]) {
+            if (this.levels[node] == level && this.lows[node] == low && this.highs[node] == high)
+                return node;
+            slot = (slot + 1) & mask;
+        }
+
+        int node = addNode(level, low, high);
+        this.uniqueTable[slot] = node;
+        if (this.nodeCount * 2 > this.uniqueTable.length)
+            growUniqueTable();
+        return node;
+    }
+
+    private int addNode(int level, int low, int high) {
+        if (this.nodeCount == this.levels.length) {
+            int capacity = this.nodeCount * 2;
+            this.levels = Arrays.copyOf(this.levels, capacity);
+            this.lows = Arrays.copyOf(this.lows, capacity);
+            this.highs = Arrays.copyOf(this.highs, capacity);
+        }
+        this.levels[this.nodeCount] = level;
+        this.lows[this.nodeCount] = low;
+        this.highs[this.nodeCount] = high;
+        return this.nodeCount++;
+    }
+
+    private void growUniqueTable() {
+        int[] table = new int[this.uniqueTable.length * 2];
+        int mask = table.length - 1;
+        for (int node = TRUE + 1; node < this.nodeCount; node++) {
+            int slot = hash(this.levels[node], this.lows[node], this.highs[node]) & mask;
+            while (table[slot] != 0)
+                slot = (slot + 1) & mask;
+            table[slot] = node;
+        }
+        this.uniqueTable = table;
+    }
+
+    private static int hash(int level, int low, int high) {
+        int h = level * 0x9E3779B1 + low * 0x85EBCA6B + high * 0xC2B2AE35;
+        return h ^ (h >>> 16);
+    }
+
+    private static int cacheSlot(int f, int g, int h) {
+        return hash(f, g, h) & (ITE_CACHE_SIZE - 1);
+    }
+}
@@ -0,0 +1,241 @@
+package ai.knowlej.PropositionalLogic.Logic;
+
+import java.util.Arrays;
+
+/**
+ * Truth table engine that packs every column into a {@code long[]} bitset, 64 rows per word. Operand columns are
+ * generated from the standard enumeration patterns and formula columns are computed a word at a time with
+ * AND/OR/XOR/NOT, so a 2^15 row table costs 512 word operations per tree node.
+ *
+ * Row {@code r} is bit {@code r % 64} of word {@code r / 64}, and rows follow the {@link TruthTableBuilder} order
+ * (see {@link TruthTableBuilder#rowAssignment(int, int)}), so packed columns line up with the String tables.
+ */
+public final class BitParallelTruthTable {
+    /** standard enumeration columns of operands 0-5: bit r of column j is set when bit j of r is set */
+    private static final long[] ENUMERATION_PATTERNS = new long[] {
+            0xAAAAAAAAAAAAAAAAL,
+            0xCCCCCCCCCCCCCCCCL,
+            0xF0F0F0F0F0F0F0F0L,
+            0xFF00FF00FF00FF00L,
+            0xFFFF0000FFFF0000L,
+            0xFFFFFFFF00000000L
+    };
+
+    private final char[] operands;
+    private final int operandCount;
+    private final int rowCount;
+    private final int wordCount;
+    /** valid row bits of the last word */
+    private final long lastWordMask;
+    private final byte[] operandBits;
+    private final long[][] operandColumns;
+
+    public BitParallelTruthTable(char[] operands) {
+        if (operands.length > 30)
+            throw new IllegalArgumentException("Too many operands for a packed truth table; only 30 allowed.");
+
+        this.operands = operands.clone();
+        this.operandCount = operands.length;
+        this.rowCount = 1 << operandCount;
+        this.wordCount = (rowCount + 63) >>> 6;
+        this.lastWordMask = (rowCount % 64 == 0) ? -1L : (1L << rowCount) - 1;
+        this.operandBits = ExpressionTree.operandBitIndex(this.operands);
+
+        this.operandColumns = new long[operandCount][];
+        for (int j = 0; j < operandCount; j++)
+            this.operandColumns[j] = buildOperandColumn(j);
+    }
+
+    /**
+     * Table over the given table's operands plus one more. Existing operand columns are extended by duplication
+     * rather than regenerated; see {@link #extendColumn(long[])}.
+     */
+    private BitParallelTruthTable(BitParallelTruthTable table, char operand) {
+        if (table.operandCount >= 30)
+            throw new IllegalArgumentException("Too many operands for a packed truth table; only 30 allowed.");
+
+        this.operands = Arrays.copyOf(table.operands, table.operandCount + 1);
+        this.operands[table.operandCount] = operand;
+        this.operandCount = table.operandCount + 1;
+        this.rowCount = 1 << operandCount;
+        this.wordCount = (rowCount + 63) >>> 6;
+        this.lastWordMask = (rowCount % 64 == 0) ? -1L : (1L << rowCount) - 1;
+        this.operandBits = ExpressionTree.operandBitIndex(this.operands);
+
+        this.operandColumns = new long[operandCount][];
+        for (int j = 0; j < table.operandCount; j++)
+            this.operandColumns[j] = extendColumn(table.operandColumns[j]);
+        this.operandColumns[table.operandCount] = buildOperandColumn(table.operandCount);
+    }
+
+    /**
+     * @return table with the operand appended as its last operand, and so twice the rows
+     */
+    public BitParallelTruthTable withOperand(char operand) {
+        for (char existing : operands) {
+            if (existing == operand)
+                throw new IllegalArgumentException("Operand " + operand + " is already in the table.");
+        }
+        return new BitParallelTruthTable(this, operand);
+    }
+
+    /**
+     * Extends a column of the table this one was made from by {@link #withOperand(char)}. Row {@code r} assigns the
+     * previous operands the low bits of {@code ~(r + 1)}, which repeat with a period of the previous row count, so a
+     * formula without the new operand repeats its previous column in each half of the table.
+     *
+     * @param column column over the previous table, which had half as many rows
+     * @return column over this table
+     */
+    public long[] extendColumn(long[] column) {
+        long[] extended = new long[wordCount];
+        int previousRows = rowCount >>> 1;
+        if (previousRows < 64) {
+            extended[0] = (column[0] | (column[0] << previousRows)) & lastWordMask;
+        } else {
+            int previousWords = previousRows >>> 6;
+            System.arraycopy(column, 0, extended, 0, previousWords);
+            System.arraycopy(column, 0, extended, previousWords, previousWords);
+        }
+        return extended;
+    }
+
+    /**
+     * Builds the column of operand {@code j}. The standard enumeration column has bit {@code r} set when bit
+     * {@code j} of {@code r} is set; the table order reads that column one row ahead and negated.
+     */
+    private long[] buildOperandColumn(int j) {
+        long[] standard = new long[wordCount];
+        for (int w = 0; w < wordCount; w++) {
+            if (j < 6)
+                standard[w] = ENUMERATION_PATTERNS[j];
+            else
+                standard[w] = ((w >>> (j - 6)) & 1) != 0 ? -1L : 0L;
+        }
+        standard[wordCount - 1] &= lastWordMask;
+
+        long[] column = new long[wordCount];
+        if (rowCount < 64) {
+            long shifted = (standard[0] >>> 1) | ((standard[0] & 1L) << (rowCount - 1));
+            column[0] = ~shifted & lastWordMask;
+        } else {
+            for (int w = 0; w < wordCount; w++)
+                column[w] = ~((standard[w] >>> 1) | (standard[(w + 1) % wordCount] << 63));
+        }
+        return column;
+    }
+
+    /**
+     * Computes the packed column of a formula over this table's operands.
+     *
+     * @param tree formula whose operands are all operands of this table
+     * @return packed column, bit set where the formula is T
+     */
+    public long[] evaluate(ExpressionTree tree) {
+        long[] column = new long[wordCount];
+        evaluate(tree, column, 0, wordCount);
+        return column;
+    }
+
+    /**
+     * Computes words {@code [fromWord, toWord)} of a formula column into {@code column}.
+     */
+    public void evaluate(ExpressionTree tree, long[] column, int fromWord, int toWord) {
+        for (int w = fromWord; w < toWord; w++)
+            column[w] = evaluateWord(tree, w);
+        if (toWord == wordCount)
+            column[wordCount - 1] &= lastWordMask;
+    }
+
+    /**
+     * Computes one word of a formula column: rows {@code 64 * word} to {@code 64 * word + 63}. Bits past the last row
+     * of the table are not masked off.
+     */
+    public long evaluateWord(ExpressionTree tree, int word) {
+        switch (tree.getSymbol()) {
+            case 'T':
+                return -1L;
+            case 'F':
+                return 0L;
+            case 'n':
+                return ~evaluateWord(tree.getLeft(), word);
+            case 'a':
+                return evaluateWord(tree.getLeft(), word) & evaluateWord(tree.getRight(), word);
+            case 'o':
+                return evaluateWord(tree.getLeft(), word) | evaluateWord(tree.getRight(), word);
+            case 'm':
+                return ~evaluateWord(tree.getLeft(), word) | evaluateWord(tree.getRight(), word);
+            case 'i':
+                return ~(evaluateWord(tree.getLeft(), word) ^ evaluateWord(tree.getRight(), word));
+            case 'x':
+                return evaluateWord(tree.getLeft(), word) ^ evaluateWord(tree.getRight(), word);
+            default:
+                return operandColumns[operandBits[tree.getSymbol() - 'A']][word];
+        }
+    }
+
+    /**
+     * @return conjunction of the given columns; all true when no columns are given
+     */
+    public long[] and(long[]... columns) {
+        long[] conjunction = new long[wordCount];
+        Arrays.fill(conjunction, -1L);
+        conjunction[wordCount - 1] = lastWordMask;
+        for (long[] column : columns) {
+            for (int w = 0; w < wordCount; w++)
+                conjunction[w] &= column[w];
+        }
+        return conjunction;
+    }
+
+    public static boolean get(long[] column, int row) {
+        return ((column[row >>> 6] >>> (row & 63)) & 1L) != 0;
+    }
+
+    public static int cardinality(long[] column) {
+        int count = 0;
+        for (long word : column)
+            count += Long.bitCount(word);
+        return count;
+    }
+
+    /**
+     * @return next row at or after {@code fromRow} whose bit is set, or -1 if there is none
+     */
+    public int nextSetRow(long[] column, int fromRow) {
+        if (fromRow >= rowCount)
+            return -1;
+        int w = fromRow >>> 6;
+        long word = column[w] & (-1L << (fromRow & 63));
+        while (word == 0) {
+            if (++w == wordCount)
+                return -1;
+            word = column[w];
+        }
+        return (w << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    public long[] getOperandColumn(int operand) {
+        return this.operandColumns[operand];
+    }
+
+    public char[] getOperands() {
+        return this.operands.clone();
+    }
+
+    public byte[] getOperandBits() {
+        return this.operandBits;
+    }
+
+    public int getOperandCount() {
+        return this.operandCount;
+    }
+
+    public int getRowCount() {
+        return this.rowCount;
+    }
+
+    public int getWordCount() {
+        return this.wordCount;
+    }
+}
@@ -0,0 +1,679 @@
+package ai.knowlej.PropositionalLogic.Logic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Conflict-driven clause learning SAT solver used for entailment checks that are too large to enumerate.
+ *
+ * Literals are DIMACS style at the API: variable {@code v >= 1} is the literal {@code v} and its negation is
+ * {@code -v}. Internally a literal is {@code 2 * (v - 1) + sign}. The solver uses two watched literals per clause,
+ * first-UIP conflict analysis, activity-based branching from a variable heap with phase saving, and Luby restarts.
+ * Clauses can be added between calls to {@link #solve(int...)}, and assumptions let the same clause database answer
+ * several queries.
+ *
+ * Learnt clauses are kept up to a limit that grows with each reduction; at a restart past the limit, the less active
+ * half of the learnt clauses longer than two literals is deleted. Clauses needed for one query only can be guarded
+ * by an activation variable: each clause gets the literal {@code -activation}, queries assume {@code activation},
+ * and {@link #release(int, int...)} then deletes every guarded clause and frees the query's variables for reuse.
+ */
+final class CDCLSolver {
+    private static final byte UNASSIGNED = -1;
+    private static final double ACTIVITY_DECAY = 0.95;
+    private static final double CLAUSE_ACTIVITY_DECAY = 0.999;
+    private static final int RESTART_BASE = 100;
+    /** learnt clauses kept before the first reduction, at least; a third of the problem clauses if that is more */
+    static final int LEARNT_LIMIT = 1000;
+    private static final double LEARNT_LIMIT_GROWTH = 1.1;
+
+    private int variableCount = 0;
+    /** variables released for reuse by {@link #newVariable()} */
+    private int[] freeVariables = new int[0];
+    private int freeVariableCount = 0;
+
+    /** clauses by index, null for a deleted clause whose index is free for reuse */
+    private final ArrayList<int[]> clauses = new ArrayList<>();
+    private int[] freeClauses = new int[0];
+    private int freeClauseCount = 0;
+    private boolean[] learntFlags = new boolean[0];
+    private double[] clauseActivity = new double[0];
+    private double clauseActivityIncrement = 1.0;
+    private int learntCount = 0;
+    private long conflictCount = 0;
+    private double learntLimit = LEARNT_LIMIT;
+    /** clause indices watching each internal literal */
+    private int[][] watches = new int[0][];
+    private int[] watchSizes = new int[0];
+
+    /** per variable: 0 = false, 1 = true, -1 = unassigned */
+    private byte[] assigns = new byte[0];
+    private int[] levels = new int[0];
+    private int[] reasons = new int[0];
+    private boolean[] savedPhases = new boolean[0];
+    private double[] activity = new double[0];
+    private double activityIncrement = 1.0;
+    private boolean[] seen = new boolean[0];
+
+    /** binary max-heap of branching candidates by activity, and each variable's position in it, -1 if absent */
+    private int[] heap = new int[0];
+    private int heapSize = 0;
+    private int[] heapPositions = new int[0];
+
+    private int[] trail = new int[0];
+    private int trailSize = 0;
+    private int[] trailLimits = new int[0];
+    private int decisionLevel = 0;
+    private int propagationHead = 0;
+
+    /** set when the clause database is unsatisfiable without assumptions */
+    private boolean rootConflict = false;
+    private boolean[] model = new boolean[0];
+
+    /**
+     * @return a fresh variable, numbered from 1; variables freed by {@link #release(int, int...)} are reused first
+     */
+    public int newVariable() {
+        int v;
+        if (freeVariableCount > 0) {
+            v = freeVariables[--freeVariableCount];
+        } else {
+            v = variableCount++;
+            if (v == assigns.length)
+                grow(Math.max(16, v * 2));
+        }
+        assigns[v] = UNASSIGNED;
+        levels[v] = 0;
+        reasons[v] = -1;
+        savedPhases[v] = false;
+        activity[v] = 0;
+        watchSizes[2 * v] = 0;
+        watchSizes[2 * v + 1] = 0;
+        heapInsert(v);
+        return v + 1;
+    }
+
+    private void grow(int capacity) {
+        assigns = Arrays.copyOf(assigns, capacity);
+        levels = Arrays.copyOf(levels, capacity);
+        reasons = Arrays.copyOf(reasons, capacity);
+        savedPhases = Arrays.copyOf(savedPhases, capacity);
+        activity = Arrays.copyOf(activity, capacity);
+        seen = Arrays.copyOf(seen, capacity);
+        trail = Arrays.copyOf(trail, capacity);
+        trailLimits = Arrays.copyOf(trailLimits, capacity + 1);
+        heap = Arrays.copyOf(heap, capacity);
+        int oldVariables = heapPositions.length;
+        heapPositions = Arrays.copyOf(heapPositions, capacity);
+        Arrays.fill(heapPositions, oldVariables, capacity, -1);
+
+        int oldLiterals = watches.length;
+        watches = Arrays.copyOf(watches, capacity * 2);
+        watchSizes = Arrays.copyOf(watchSizes, capacity * 2);
+        for (int l = oldLiterals; l < watches.length; l++)
+            watches[l] = new int[4];
+    }
+
+    /**
+     * @return variables allocated, free ones included
+     */
+    public int getVariableCount() {
+        return this.variableCount;
+    }
+
+    /**
+     * @return clauses in the database, learnt ones included; unit clauses are kept as root assignments instead
+     */
+    int getClauseCount() {
+        return this.clauses.size() - this.freeClauseCount;
+    }
+
+    int getLearntCount() {
+        return this.learntCount;
+    }
+
+    /**
+     * @return conflicts met by every {@link #solve(int...)} call so far
+     */
+    long getConflictCount() {
+        return this.conflictCount;
+    }
+
+    /**
+     * Adds a clause. Must not be called while the solver is searching.
+     *
+     * @param literals DIMACS literals of the clause
+     * @return false if the clause database became unsatisfiable
+     */
+    public boolean addClause(int... literals) {
+        if (rootConflict)
+            return false;
+        cancelUntil(0);
+
+        int[] clause = new int[literals.length];
+        int size = 0;
+        outer:
+        for (int dimacs : literals) {
+            int lit = internalLiteral(dimacs);
+            for (int k = 0; k < size; k++) {
+                if (clause[k] == lit)
+                    continue outer;
+                if (clause[k] == (lit ^ 1))
+                    return true; // tautology
+            }
+            int value = value(lit);
+            if (value == 1)
+                return true; // already satisfied at the root
+            if (value == 0)
+                continue;    // false at the root, drop the literal
+            clause[size++] = lit;
+        }
+
+        if (size == 0) {
+            rootConflict = true;
+            return false;
+        } else if (size == 1) {
+            enqueue(clause[0], -1);
+            if (propagate() != -1)
+                rootConflict = true;
+            return !rootConflict;
+        }
+        attachClause(Arrays.copyOf(clause, size), false);
+        return true;
+    }
+
+    /**
+     * Retires an activation variable: asserts {@code -activation}, deletes every clause that is then satisfied,
+     * which includes every clause guarded by the activation variable and every clause learnt from them, and frees the
+     * activation variable and the given variables for reuse. A variable some remaining clause still uses is kept.
+     *
+     * @param variables DIMACS variables only the guarded clauses use
+     */
+    public void release(int activation, int... variables) {
+        cancelUntil(0);
+        if (!rootConflict) {
+            int lit = internalLiteral(-activation);
+            if (value(lit) == UNASSIGNED)
+                enqueue(lit, -1);
+            if (propagate() != -1)
+                rootConflict = true;
+        }
+        if (rootConflict) {
+            // Every later call fails without reading the clauses, so the variables are reused as they are
+            seen[activation - 1] = true;
+            freeVariable(activation - 1);
+            for (int variable : variables) {
+                seen[variable - 1] = true;
+                freeVariable(variable - 1);
+            }
+            return;
+        }
+
+        // Variables assigned at the root stay, as clauses satisfied by their value are deleted below
+        for (int variable : variables)
+            seen[variable - 1] = assigns[variable - 1] == UNASSIGNED;
+        seen[activation - 1] = true;
+        for (int index = 0; index < clauses.size(); index++) {
+            int[] c = clauses.get(index);
+            if (c == null)
+                continue;
+            boolean satisfied = false;
+            for (int q : c)
+                satisfied |= value(q) == 1;
+            if (satisfied) {
+                deleteClause(index);
+            } else {
+                for (int q : c)
+                    seen[q >>> 1] = false;
+            }
+        }
+        purgeWatches();
+
+        // The activation variable's root assignment comes off the trail once no remaining clause uses it
+        if (seen[activation - 1]) {
+            int kept = 0;
+            for (int i = 0; i < trailSize; i++) {
+                if ((trail[i] >>> 1) != activation - 1)
+                    trail[kept++] = trail[i];
+            }
+            trailSize = kept;
+            propagationHead = kept;
+        }
+        freeVariable(activation - 1);
+        for (int variable : variables)
+            freeVariable(variable - 1);
+    }
+
+    private void freeVariable(int v) {
+        if (!seen[v])
+            return;
+        seen[v] = false;
+        assigns[v] = UNASSIGNED;
+        reasons[v] = -1;
+        heapRemove(v);
+        if (freeVariableCount == freeVariables.length)
+            freeVariables = Arrays.copyOf(freeVariables, Math.max(16, freeVariableCount * 2));
+        freeVariables[freeVariableCount++] = v;
+    }
+
+    /**
+     * Decides satisfiability of the clause database under the given assumptions.
+     *
+     * @param assumptions DIMACS literals assumed true for this call only
+     * @return true if a satisfying assignment exists; it is then readable through {@link #modelValue(int)}
+     */
+    public boolean solve(int... assumptions) {
+        if (rootConflict)
+            return false;
+        cancelUntil(0);
+        if (propagate() != -1) {
+            rootConflict = true;
+            return false;
+        }
+
+        int[] assumed = new int[assumptions.length];
+        for (int i = 0; i < assumptions.length; i++)
+            assumed[i] = internalLiteral(assumptions[i]);
+        learntLimit = Math.max(learntLimit, (getClauseCount() - learntCount) / 3.0);
+
+        int conflicts = 0;
+        int restart = 1;
+        int restartLimit = RESTART_BASE * luby(restart);
+        while (true) {
+            int conflict = propagate();
+            if (conflict != -1) {
+                if (decisionLevel == 0) {
+                    rootConflict = true;
+                    return false;
+                }
+                conflictCount++;
+                int[] clause = analyze(conflict);
+                cancelUntil(backjumpLevel(clause));
+                if (clause.length == 1) {
+                    enqueue(clause[0], -1);
+                } else {
+                    int index = attachClause(clause, true);
+                    bumpClauseActivity(index);
+                    enqueue(clause[0], index);
+                }
+                activityIncrement /= ACTIVITY_DECAY;
+                clauseActivityIncrement /= CLAUSE_ACTIVITY_DECAY;
+
+                if (++conflicts >= restartLimit) {
+                    conflicts = 0;
+                    restartLimit = RESTART_BASE * luby(++restart);
+                    cancelUntil(0);
+                    if (learntCount >= learntLimit)
+                        reduceLearnts();
+                }
+            } else if (decisionLevel < assumed.length) {
+                int p = assumed[decisionLevel];
+                int value = value(p);
+                if (value == 0) {
+                    cancelUntil(0);
+                    return false; // assumptions contradict the clause database
+                }
+                newDecisionLevel();
+                if (value == UNASSIGNED)
+                    enqueue(p, -1);
+            } else {
+                int next = pickBranchVariable();
+                if (next == -1) {
+                    model = new boolean[variableCount];
+                    for (int v = 0; v < variableCount; v++)
+                        model[v] = assigns[v] == 1;
+                    cancelUntil(0);
+                    return true;
+                }
+                newDecisionLevel();
+                enqueue(2 * next + (savedPhases[next] ? 0 : 1), -1);
+            }
+        }
+    }
+
+    /**
+     * @param variable DIMACS variable
+     * @return its value in the last satisfying assignment found by {@link #solve(int...)}
+     */
+    public boolean modelValue(int variable) {
+        return variable - 1 < model.length && model[variable - 1];
+    }
+
+    private static int internalLiteral(int dimacs) {
+        return dimacs > 0 ? 2 * (dimacs - 1) : 2 * (-dimacs - 1) + 1;
+    }
+
+    /**
+     * @return 1 if the literal is true, 0 if false, -1 if unassigned
+     */
+    private int value(int lit) {
+        byte assign = assigns[lit >>> 1];
+        if (assign == UNASSIGNED)
+            return UNASSIGNED;
+        return assign ^ (lit & 1);
+    }
+
+    private int attachClause(int[] clause, boolean isLearnt) {
+        int index;
+        if (freeClauseCount > 0) {
+            index = freeClauses[--freeClauseCount];
+            clauses.set(index, clause);
+        } else {
+            index = clauses.size();
+            clauses.add(clause);
+            if (index == learntFlags.length) {
+                learntFlags = Arrays.copyOf(learntFlags, Math.max(16, index * 2));
+                clauseActivity = Arrays.copyOf(clauseActivity, learntFlags.length);
+            }
+        }
+        learntFlags[index] = isLearnt;
+        clauseActivity[index] = 0;
+        if (isLearnt)
+            learntCount++;
+        watch(clause[0], index);
+        watch(clause[1], index);
+        return index;
+    }
+
+    /**
+     * Deletes the clause, leaving its watches until {@link #purgeWatches()}; only called at the root, where no
+     * reason clause is read again.
+     */
+    private void deleteClause(int index) {
+        clauses.set(index, null);
+        if (learntFlags[index])
+            learntCount--;
+        if (freeClauseCount == freeClauses.length)
+            freeClauses = Arrays.copyOf(freeClauses, Math.max(16, freeClauseCount * 2));
+        freeClauses[freeClauseCount++] = index;
+    }
+
+    /**
+     * Drops the watches of deleted clauses, so that their indices can be reused.
+     */
+    private void purgeWatches() {
+        for (int lit = 0; lit < 2 * variableCount; lit++) {
+            int[] ws = watches[lit];
+            int j = 0;
+            for (int i = 0; i < watchSizes[lit]; i++) {
+                if (clauses.get(ws[i]) != null)
+                    ws[j++] = ws[i];
+            }
+            watchSizes[lit] = j;
+        }
+        for (int i = 0; i < trailSize; i++)
+            reasons[trail[i] >>> 1] = -1;
+    }
+
+    /**
+     * Deletes the less active half of the learnt clauses longer than two literals, and raises the limit. Called at
+     * the root.
+     */
+    private void reduceLearnts() {
+        int[] candidates = new int[learntCount];
+        int count = 0;
+        for (int index = 0; index < clauses.size(); index++) {
+            int[] c = clauses.get(index);
+            if (c != null && learntFlags[index] && c.length > 2)
+                candidates[count++] = index;
+        }
+        Integer[] order = new Integer[count];
+        for (int k = 0; k < count; k++)
+            order[k] = candidates[k];
+        Arrays.sort(order, (a, b) -> Double.compare(clauseActivity[a], clauseActivity[b]));
+        for (int k = 0; k < count / 2; k++)
+            deleteClause(order[k]);
+        purgeWatches();
+        learntLimit *= LEARNT_LIMIT_GROWTH;
+    }
+
+    private void watch(int lit, int clauseIndex) {
+        if (watchSizes[lit] == watches[lit].length)
+            watches[lit] = Arrays.copyOf(watches[lit], watchSizes[lit] * 2);
+        watches[lit][watchSizes[lit]++] = clauseIndex;
+    }
+
+    private void enqueue(int lit, int reason) {
+        int v = lit >>> 1;
+        assigns[v] = (byte) ((lit & 1) ^ 1);
+        levels[v] = decisionLevel;
+        reasons[v] = reason;
+        trail[trailSize++] = lit;
+    }
+
+    private void newDecisionLevel() {
+        trailLimits[decisionLevel++] = trailSize;
+    }
+
+    private void cancelUntil(int level) {
+        if (decisionLevel <= level)
+            return;
+        for (int i = trailSize - 1; i >= trailLimits[level]; i--) {
+            int v = trail[i] >>> 1;
+            savedPhases[v] = assigns[v] == 1;
+            assigns[v] = UNASSIGNED;
+            reasons[v] = -1;
+            if (heapPositions[v] < 0)
+                heapInsert(v);
+        }
+        trailSize = trailLimits[level];
+        propagationHead = trailSize;
+        decisionLevel = level;
+    }
+
+    /**
+     * Unit propagation over the two watched literals of each clause.
+     *
+     * @return index of a conflicting clause, or -1
+     */
+    private int propagate() {
+        while (propagationHead < trailSize) {
+            int falseLit = trail[propagationHead++] ^ 1;
+            int[] ws = watches[falseLit];
+            int size = watchSizes[falseLit];
+            int i = 0, j = 0;
+            while (i < size) {
+                int clauseIndex = ws[i++];
+                int[] c = clauses.get(clauseIndex);
+                if (c[0] == falseLit) {
+                    c[0] = c[1];
+                    c[1] = falseLit;
+                }
+                if (value(c[0]) == 1) {
+                    ws[j++] = clauseIndex;
+                    continue;
+                }
+
+                boolean moved = false;
+                for (int k = 2; k < c.length; k++) {
+                    if (value(c[k]) != 0) {
+                        c[1] = c[k];
+                        c[k] = falseLit;
+                        watch(c[1], clauseIndex);
+                        moved = true;
+                        break;
+                    }
+                }
+                if (moved)
+                    continue;
+
+                ws[j++] = clauseIndex;
+                if (value(c[0]) == 0) {
+                    while (i < size)
+                        ws[j++] = ws[i++];
+                    watchSizes[falseLit] = j;
+                    propagationHead = trailSize;
+                    return clauseIndex;
+                }
+                enqueue(c[0], clauseIndex);
+            }
+            watchSizes[falseLit] = j;
+        }
+        return -1;
+    }
+
+    /**
+     * First-UIP conflict analysis.
+     *
+     * @return learnt clause, asserting literal first and the highest remaining level second
+     */
+    private int[] analyze(int conflict) {
+        int[] learnt = new int[8];
+        int learntSize = 1;
+        int pathCount = 0;
+        int p = -1;
+        int index = trailSize - 1;
+        int clauseIndex = conflict;
+
+        do {
+            int[] c = clauses.get(clauseIndex);
+            if (learntFlags[clauseIndex])
+                bumpClauseActivity(clauseIndex);
+            for (int k = (p == -1) ? 0 : 1; k < c.length; k++) {
+                int q = c[k];
+                int v = q >>> 1;
+                if (!seen[v] && levels[v] > 0) {
+                    bumpActivity(v);
+                    seen[v] = true;
+                    if (levels[v] >= decisionLevel) {
+                        pathCount++;
+                    } else {
+                        if (learntSize == learnt.length)
+                            learnt = Arrays.copyOf(learnt, learntSize * 2);
+                        learnt[learntSize++] = q;
+                    }
+                }
+            }
+            while (!seen[trail[index] >>> 1])
+                index--;
+            p = trail[index--];
+            clauseIndex = reasons[p >>> 1];
+            seen[p >>> 1] = false;
+            pathCount--;
+        } while (pathCount > 0);
+        learnt[0] = p ^ 1;
+
+        for (int k = 1; k < learntSize; k++)
+            seen[learnt[k] >>> 1] = false;
+
+        // keep the highest-level literal in position 1 so it is watched after backjumping
+        int highest = 1;
+        for (int k = 2; k < learntSize; k++) {
+            if (levels[learnt[k] >>> 1] > levels[learnt[highest] >>> 1])
+                highest = k;
+        }
+        if (learntSize > 1) {
+            int swap = learnt[1];
+            learnt[1] = learnt[highest];
+            learnt[highest] = swap;
+        }
+        return Arrays.copyOf(learnt, learntSize);
+    }
+
+    private int backjumpLevel(int[] learnt) {
+        return learnt.length == 1 ? 0 : levels[learnt[1] >>> 1];
+    }
+
+    private void bumpActivity(int v) {
+        activity[v] += activityIncrement;
+        if (activity[v] > 1e100) {
+            for (int i = 0; i < variableCount; i++)
+                activity[i] *= 1e-100;
+            activityIncrement *= 1e-100;
+        }
+        if (heapPositions[v] >= 0)
+            heapUp(heapPositions[v]);
+    }
+
+    private void bumpClauseActivity(int index) {
+        clauseActivity[index] += clauseActivityIncrement;
+        if (clauseActivity[index] > 1e20) {
+            for (int i = 0; i < clauses.size(); i++)
+                clauseActivity[i] *= 1e-20;
+            clauseActivityIncrement *= 1e-20;
+        }
+    }
+
+    /**
+     * @return the most active unassigned variable, or -1 when every variable is assigned
+     */
+    private int pickBranchVariable() {
+        while (heapSize > 0) {
+            int v = heap[0];
+            heapRemove(v);
+            if (assigns[v] == UNASSIGNED)
+                return v;
+        }
+        return -1;
+    }
+
+    private void heapInsert(int v) {
+        heap[heapSize] = v;
+        heapPositions[v] = heapSize;
+        heapUp(heapSize++);
+    }
+
+    private void heapRemove(int v) {
+        int position = heapPositions[v];
+        if (position < 0)
+            return;
+        heapPositions[v] = -1;
+        int last = heap[--heapSize];
+        if (position == heapSize)
+            return;
+        heap[position] = last;
+        heapPositions[last] = position;
+        heapUp(position);
+        heapDown(heapPositions[last]);
+    }
+
+    private void heapUp(int position) {
+        int v = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) >> 1;
+            if (activity[heap[parent]] >= activity[v])
+                break;
+            heap[position] = heap[parent];
+            heapPositions[heap[position]] = position;
+            position = parent;
+        }
+        heap[position] = v;
+        heapPositions[v] = position;
+    }
+
+    private void heapDown(int position) {
+        int v = heap[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= heapSize)
+                break;
+            if (child + 1 < heapSize && activity[heap[child + 1]] > activity[heap[child]])
+                child++;
+            if (activity[heap[child]] <= activity[v])
+                break;
+            heap[position] = heap[child];
+            heapPositions[heap[position]] = position;
+            position = child;
+        }
+        heap[position] = v;
+        heapPositions[v] = position;
+    }
+
+    /**
+     * @return i-th element (from 1) of the Luby restart sequence 1, 1, 2, 1, 1, 2, 4, ...
+     */
+    private static int luby(int i) {
+        int size = 1;
+        int sequence = 0;
+        while (size < i + 1) {
+            sequence++;
+            size = 2 * size + 1;
+        }
+        int x = i;
+        while (size - 1 != x) {
+            size = (size - 1) >> 1;
+            sequence--;
+            x = x % size;
+        }
+        return 1 << sequence;
+    }
+}
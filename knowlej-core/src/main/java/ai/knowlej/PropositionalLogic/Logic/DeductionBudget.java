@@ -0,0 +1,75 @@
+package ai.knowlej.PropositionalLogic.Logic;
+
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+import ai.knowlej.DataStructures.Graph.DirectedDeductionGraph;
+import ai.knowlej.DataStructures.Logic.DeductionResult;
+
+/**
+ * Time budget, node budget and cancellation token of one {@link Argument} deduction, checked by chaining before each
+ * epoch, each frontier item it expands and each node it merges into the graph, and by the final search before each
+ * node it expands. The deadline is fixed when the budget is created. Checks may come from any thread expanding the
+ * frontier or searching.
+ */
+final class DeductionBudget {
+    private final long deadline;
+    private final boolean timed;
+    private final int maximumNodes;
+    private final BooleanSupplier cancellation;
+
+    /**
+     * @param timeBudget   time the deduction may take from now, or null for no limit
+     * @param maximumNodes most nodes the deduction graph may hold
+     * @param cancellation token reporting true once the deduction should stop, or null for none
+     */
+    DeductionBudget(Duration timeBudget, int maximumNodes, BooleanSupplier cancellation) {
+        if (timeBudget != null && timeBudget.isNegative())
+            throw new IllegalArgumentException("Time budget cannot be negative.");
+        if (maximumNodes < 1)
+            throw new IllegalArgumentException("Node budget must be at least 1.");
+
+        this.timed = timeBudget != null;
+        this.deadline = this.timed ? System.nanoTime() + saturatedNanos(timeBudget) : 0L;
+        this.maximumNodes = maximumNodes;
+        this.cancellation = cancellation;
+    }
+
+    /**
+     * @throws Exhausted if the deduction is cancelled, past its deadline, or the graph holds more nodes than allowed
+     */
+    void check(DirectedDeductionGraph graph) {
+        if (this.cancellation != null && this.cancellation.getAsBoolean())
+            throw new Exhausted(DeductionResult.Status.CANCELLED);
+        if (this.timed && System.nanoTime() - this.deadline >= 0)
+            throw new Exhausted(DeductionResult.Status.TIMED_OUT);
+        if (graph.getNodes().size() > this.maximumNodes)
+            throw new Exhausted(DeductionResult.Status.NODE_LIMIT);
+    }
+
+    private static long saturatedNanos(Duration duration) {
+        try {
+            return Math.min(duration.toNanos(), Long.MAX_VALUE / 2);
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE / 2;
+        }
+    }
+
+    /**
+     * Unwinds chaining once the budget is spent; carries why, and no stack trace.
+     */
+    static final class Exhausted extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final DeductionResult.Status status;
+
+        private Exhausted(DeductionResult.Status status) {
+            super("Deduction stopped: " + status, null, false, false);
+            this.status = status;
+        }
+
+        DeductionResult.Status getStatus() {
+            return this.status;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package ai.knowlej.PropositionalLogic.Logic;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import ai.knowlej.DataStructures.Graph.DeductionGraphNode;
+import ai.knowlej.DataStructures.Graph.DirectedDeductionGraph;
+import ai.knowlej.DataStructures.Logic.DeductionResult;
+import ai.knowlej.DataStructures.Logic.Proof;
+
+/**
+ * Derivations an {@link Argument} has already made from its current knowledge base, kept between
+ * {@link Argument#deduce(Proposition)} calls: the result of each deduced query, and the forward closure, i.e. every
+ * formula forward chaining derived from the premises, together with the graph that derives it. A query that was
+ * asked before, or that an earlier deduction already derived on its way to another query, is answered from here.
+ *
+ * Only valid for one knowledge base; the Argument clears it whenever its knowledge base changes, and forgets the
+ * queries it failed to prove whenever a search setting changes.
+ */
+final class DerivationCache {
+    static final int MAXIMUM_PROOFS = 1024;
+    static final int MAXIMUM_GRAPHS = 8;
+
+    /** result of each query formula deduced, or found in the forward closure */
+    private final LinkedHashMap<ExpressionTree, DeductionResult> results = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ExpressionTree, DeductionResult> eldest) {
+            return size() > MAXIMUM_PROOFS;
+        }
+    };
+    /** graph holding each forward-derived formula */
+    private final HashMap<ExpressionTree, DirectedDeductionGraph> forwardClosure = new HashMap<>();
+    /** graphs the closure refers to, oldest first */
+    private final ArrayDeque<DirectedDeductionGraph> graphs = new ArrayDeque<>();
+
+    /**
+     * @return known result of the query, with its own copy of the proof, or null if none is known
+     */
+    synchronized DeductionResult getResult(ExpressionTree query) {
+        DeductionResult result = results.get(query);
+        if (result == null) {
+            result = closureResult(query);
+            if (result == null)
+                return null;
+            results.put(query, result);
+        }
+        return withOwnProof(result);
+    }
+
+    /**
+     * @return the result with a copy of its proof path; the rest of a result is immutable, so it is shared
+     */
+    private static DeductionResult withOwnProof(DeductionResult result) {
+        ArrayList<DeductionGraphNode> proof = result.proof().proof();
+        return new DeductionResult(new Proof((proof == null) ? null : new ArrayList<>(proof)), result.status(),
+                result.forwardFrontier(), result.backwardFrontier(), result.nearestNode(), result.nearestPath());
+    }
+
+    /**
+     * @return proved result for a formula in the forward closure: the forward nodes of the graph deriving it, and
+     *         the formula's node as the backward frontier, or null if the formula is not in the closure
+     */
+    private DeductionResult closureResult(ExpressionTree formula) {
+        DirectedDeductionGraph graph = forwardClosure.get(formula);
+        if (graph == null)
+            return null;
+        DeductionGraphNode node = graph.getNode(formula);
+        ArrayList<DeductionGraphNode> path = graph.derivationPath(node);
+        if (path == null)
+            return null;
+        return new DeductionResult(new Proof(path), DeductionResult.Status.PROVED,
+                List.copyOf(graph.getForwardNodes()), List.of(node), node, List.copyOf(path));
+    }
+
+    /**
+     * Records the outcome of a deduction, and the forward closure of its graph.
+     *
+     * @return result a later {@link #getResult(ExpressionTree)} gives for the query
+     */
+    synchronized DeductionResult record(ExpressionTree query, DirectedDeductionGraph graph, DeductionResult result) {
+        boolean extended = false;
+        if (graph.getForwardNodes() != null) {
+            for (DeductionGraphNode node : graph.getForwardNodes()) {
+                if (forwardClosure.putIfAbsent(node.getFormula(), graph) == null)
+                    extended = true;
+            }
+        }
+        if (extended) {
+            graphs.add(graph);
+            if (graphs.size() > MAXIMUM_GRAPHS) {
+                DirectedDeductionGraph evicted = graphs.poll();
+                forwardClosure.values().removeIf(g -> g == evicted);
+            }
+        }
+
+        // A search that gave up may still have derived the query forward
+        DeductionResult closure = result.isProved() ? null : closureResult(query);
+        DeductionResult recorded = (closure != null) ? closure : withOwnProof(result);
+        results.put(query, recorded);
+        return withOwnProof(recorded);
+    }
+
+    /**
+     * Forgets the queries no proof was found for, which a search with other settings may still prove.
+     */
+    synchronized void clearUnproved() {
+        results.values().removeIf(result -> !result.isProved());
+    }
+
+    synchronized void clear() {
+        results.clear();
+        forwardClosure.clear();
+        graphs.clear();
+    }
+}
@@ -0,0 +1,211 @@
+package ai.knowlej.PropositionalLogic.Logic;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Equality-saturation store: equivalence classes of formulas kept as an e-graph. Each e-node is an operator or
+ * operand over child equivalence classes, so every commutative or associative variant of a formula costs one e-node
+ * over shared classes instead of a separate deduction graph node. Classes are merged with a union-find and kept
+ * congruence-closed, so two formulas are equivalent exactly when their classes have the same root, which makes
+ * {@link #equivalent(ExpressionTree, ExpressionTree)} a pair of near-constant lookups.
+ *
+ * Rewrites come from {@link EquivalencyRewriter}; {@link #saturate(int)} applies them to every formula added since
+ * the previous round, until the e-node bound is reached. Not thread-safe.
+ */
+final class EGraph {
+    static final int DEFAULT_MAXIMUM_NODES = 1 << 14;
+
+    private final int maximumNodes;
+
+    /** union-find parent of each class id */
+    private int[] parent = new int[64];
+    private int classCount = 0;
+
+    /** e-nodes: symbol and child class ids (-1 if absent), and the class each belongs to */
+    private char[] nodeSymbols = new char[64];
+    private int[] nodeLefts = new int[64];
+    private int[] nodeRights = new int[64];
+    private int[] nodeClasses = new int[64];
+    private int nodeCount = 0;
+
+    /** canonical e-node key to class id; see {@link #key(char, int, int)} */
+    private HashMap<Long, Integer> hashcons = new HashMap<>();
+    /** class id each interned tree was added as; may be stale, so always resolved through {@link #find(int)} */
+    private final HashMap<ExpressionTree, Integer> termClasses = new HashMap<>();
+
+    /** formulas added but not yet rewritten */
+    private final ArrayDeque<ExpressionTree> pending = new ArrayDeque<>();
+    private final HashSet<ExpressionTree> rewritten = new HashSet<>();
+    private boolean dirty = false;
+
+    EGraph() {
+        this(DEFAULT_MAXIMUM_NODES);
+    }
+
+    EGraph(int maximumNodes) {
+        if (maximumNodes < 1 || maximumNodes >= 1 << 23)
+            throw new IllegalArgumentException("E-graph size must be between 1 and " + ((1 << 23) - 1) + ".");
+        this.maximumNodes = maximumNodes;
+    }
+
+    /**
+     * Adds a formula and queues it for rewriting.
+     *
+     * @return root id of the formula's class
+     */
+    int add(ExpressionTree formula) {
+        int id = addTerm(formula);
+        if (!rewritten.contains(formula))
+            pending.add(formula);
+        return id;
+    }
+
+    /**
+     * @return true if both formulas have been added and are in the same class
+     */
+    boolean equivalent(ExpressionTree a, ExpressionTree b) {
+        if (a == b)
+            return true;
+        rebuild();
+        Integer idA = termClasses.get(a), idB = termClasses.get(b);
+        return idA != null && idB != null && find(idA) == find(idB);
+    }
+
+    /**
+     * Runs up to the given number of rounds, each rewriting every formula queued by the previous one and merging
+     * each rewrite into the class of its source. Stops early once nothing is left to rewrite or the e-node bound is
+     * reached.
+     *
+     * @return true if formulas are still queued
+     */
+    boolean saturate(int rounds) {
+        for (int round = 0; round < rounds && !pending.isEmpty(); round++) {
+            int queued = pending.size();
+            for (int i = 0; i < queued && nodeCount < maximumNodes; i++) {
+                ExpressionTree formula = pending.poll();
+                if (!rewritten.add(formula))
+                    continue;
+                int formulaClass = addTerm(formula);
+                List<ExpressionTree> rewrites = EquivalencyRewriter.allRewrites(formula);
+                for (ExpressionTree rewrite : rewrites) {
+                    if (nodeCount >= maximumNodes)
+                        break;
+                    union(formulaClass, add(rewrite));
+                }
+            }
+            rebuild();
+            if (nodeCount >= maximumNodes)
+                break;
+        }
+        return !pending.isEmpty();
+    }
+
+    int getNodeCount() {
+        return this.nodeCount;
+    }
+
+    /**
+     * @return number of distinct equivalence classes
+     */
+    int getClassCount() {
+        rebuild();
+        int roots = 0;
+        for (int id = 0; id < classCount; id++) {
+            if (parent[id] == id)
+                roots++;
+        }
+        return roots;
+    }
+
+    private int addTerm(ExpressionTree tree) {
+        Integer known = termClasses.get(tree);
+        if (known != null)
+            return find(known);
+
+        int left = (tree.getLeft() == null) ? -1 : addTerm(tree.getLeft());
+        int right = tree.isBinary() ? addTerm(tree.getRight()) : -1;
+        long key = key(tree.getSymbol(), left, right);
+        Integer id = hashcons.get(key);
+        if (id == null) {
+            id = newClass();
+            addNode(tree.getSymbol(), left, right, id);
+            hashcons.put(key, id);
+        }
+        termClasses.put(tree, id);
+        return find(id);
+    }
+
+    private int newClass() {
+        if (classCount == parent.length)
+            parent = Arrays.copyOf(parent, classCount * 2);
+        parent[classCount] = classCount;
+        return classCount++;
+    }
+
+    private void addNode(char symbol, int left, int right, int classId) {
+        if (nodeCount == nodeSymbols.length) {
+            int capacity = nodeCount * 2;
+            nodeSymbols = Arrays.copyOf(nodeSymbols, capacity);
+            nodeLefts = Arrays.copyOf(nodeLefts, capacity);
+            nodeRights = Arrays.copyOf(nodeRights, capacity);
+            nodeClasses = Arrays.copyOf(nodeClasses, capacity);
+        }
+        nodeSymbols[nodeCount] = symbol;
+        nodeLefts[nodeCount] = left;
+        nodeRights[nodeCount] = right;
+        nodeClasses[nodeCount] = classId;
+        nodeCount++;
+    }
+
+    private int find(int id) {
+        while (parent[id] != id) {
+            parent[id] = parent[parent[id]];
+            id = parent[id];
+        }
+        return id;
+    }
+
+    private boolean union(int a, int b) {
+        int rootA = find(a), rootB = find(b);
+        if (rootA == rootB)
+            return false;
+        // Keep the older class as root, so ids handed out earlier stay roots where possible
+        if (rootA < rootB)
+            parent[rootB] = rootA;
+        else
+            parent[rootA] = rootB;
+        dirty = true;
+        return true;
+    }
+
+    /**
+     * Restores congruence after merges: e-nodes whose children became equivalent are re-keyed, and e-nodes that now
+     * share a key merge their classes, until nothing changes.
+     */
+    private void rebuild() {
+        while (dirty) {
+            dirty = false;
+            HashMap<Long, Integer> canonical = new HashMap<>(hashcons.size() * 2);
+            for (int n = 0; n < nodeCount; n++) {
+                int left = (nodeLefts[n] < 0) ? -1 : find(nodeLefts[n]);
+                int right = (nodeRights[n] < 0) ? -1 : find(nodeRights[n]);
+                int classId = find(nodeClasses[n]);
+                Integer existing = canonical.putIfAbsent(key(nodeSymbols[n], left, right), classId);
+                if (existing != null)
+                    union(existing, classId);
+            }
+            hashcons = canonical;
+        }
+    }
+
+    /**
+     * Packs an e-node into a key: 16 bits of symbol and 24 bits per child class id, offset so -1 (no child) is 0.
+     */
+    private static long key(char symbol, int left, int right) {
+        return ((long) symbol << 48) | ((long) (left + 1) << 24) | (right + 1);
+    }
+}
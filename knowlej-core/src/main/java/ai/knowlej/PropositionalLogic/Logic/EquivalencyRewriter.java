@@ -0,0 +1,214 @@
+package ai.knowlej.PropositionalLogic.Logic;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import ai.knowlej.PropositionalLogic.Logic.Argument.EquivalencyLaws.Law;
+
+/**
+ * Term rewriter for the equivalency laws over interned {@link ExpressionTree}s. A formula is rewritten at every
+ * subterm position, not only at its root: each result is the formula with exactly one subterm replaced by one law
+ * application.
+ *
+ * Rewrites of a subterm are memoised by tree identity, so a subterm shared between formulas, or repeated within
+ * one, is rewritten once while it stays among the most recently used {@value #MAXIMUM_MEMOISED} subterms.
+ *
+ * Laws are applied in both directions where the original rule was written both ways; introduction directions that
+ * only grow a formula, e.g. P to P|P or P to ~~P, are not generated.
+ */
+final class EquivalencyRewriter {
+    private static final ExpressionTree TRUE = ExpressionTree.leaf('T');
+    private static final ExpressionTree FALSE = ExpressionTree.leaf('F');
+    private static final Law[] LAWS = Law.values();
+
+    static final int MAXIMUM_MEMOISED = 4096;
+
+    /**
+     * rewrites of each subterm at all of its positions, by law ordinal; bounded rather than weak, since rewrites such
+     * as commuted pairs refer to each other's keys
+     */
+    private static final LinkedHashMap<ExpressionTree, List<ExpressionTree>[]> REWRITES = new LinkedHashMap<>(16, 0.75f,
+            true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ExpressionTree, List<ExpressionTree>[]> eldest) {
+            return size() > MAXIMUM_MEMOISED;
+        }
+    };
+
+    private EquivalencyRewriter() {
+    }
+
+    /**
+     * Adds every formula one law application away from the given formula.
+     *
+     * @param answerSet receives the rewritten formulas in infix form
+     */
+    static void rewrite(ExpressionTree formula, LawResults.Builder<Law> answerSet) {
+        List<ExpressionTree>[] rewrites = rewritesOf(formula);
+        for (Law law : LAWS) {
+            for (ExpressionTree rewrite : rewrites[law.ordinal()])
+                answerSet.add(law, rewrite.toString());
+        }
+    }
+
+    /**
+     * @return every formula one law application away from the given formula, whichever law applied
+     */
+    static List<ExpressionTree> allRewrites(ExpressionTree formula) {
+        List<ExpressionTree> all = new ArrayList<>();
+        for (List<ExpressionTree> rewrites : rewritesOf(formula))
+            all.addAll(rewrites);
+        return all;
+    }
+
+    private static List<ExpressionTree>[] rewritesOf(ExpressionTree tree) {
+        List<ExpressionTree>[] cached;
+        synchronized (REWRITES) {
+            cached = REWRITES.get(tree);
+        }
+        if (cached != null)
+            return cached;
+
+        List<ExpressionTree>[] rewrites = newRewriteLists();
+        rewriteRoot(tree, rewrites);
+        if (tree.getLeft() != null) {
+            List<ExpressionTree>[] leftRewrites = rewritesOf(tree.getLeft());
+            for (Law law : LAWS) {
+                for (ExpressionTree left : leftRewrites[law.ordinal()])
+                    rewrites[law.ordinal()].add(withChildren(tree, left, tree.getRight()));
+            }
+        }
+        if (tree.isBinary()) {
+            List<ExpressionTree>[] rightRewrites = rewritesOf(tree.getRight());
+            for (Law law : LAWS) {
+                for (ExpressionTree right : rightRewrites[law.ordinal()])
+                    rewrites[law.ordinal()].add(withChildren(tree, tree.getLeft(), right));
+            }
+        }
+        for (int i = 0; i < rewrites.length; i++) {
+            rewrites[i] = rewrites[i].isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(rewrites[i]);
+        }
+
+        synchronized (REWRITES) {
+            REWRITES.put(tree, rewrites);
+        }
+        return rewrites;
+    }
+
+    /**
+     * Applies every law at the root of the tree only.
+     */
+    private static void rewriteRoot(ExpressionTree t, List<ExpressionTree>[] rewrites) {
+        ExpressionTree l = t.getLeft(), r = t.getRight();
+        switch (t.getSymbol()) {
+            case 'n': {
+                // Rule: [~~P] == {P}
+                if (l.isNegation())
+                    emit(rewrites, t, Law.DOUBLE_NEGATION, l.getLeft());
+                // Rule: [~T] == {F} OR [~F] == {T}
+                if (l == TRUE)
+                    emit(rewrites, t, Law.COMPLEMENT, FALSE);
+                else if (l == FALSE)
+                    emit(rewrites, t, Law.COMPLEMENT, TRUE);
+                // Rule: [~(P|Q)] == {~P&~Q} OR [~(P&Q)] == {~P|~Q}
+                if (l.getSymbol() == 'o' || l.getSymbol() == 'a')
+                    emit(rewrites, t, Law.DE_MORGANS, ExpressionTree.binary(dual(l.getSymbol()),
+                            ExpressionTree.not(l.getLeft()), ExpressionTree.not(l.getRight())));
+                break;
+            }
+            case 'a':
+            case 'o': {
+                char s = t.getSymbol();
+                char dual = dual(s);
+                ExpressionTree identity = (s == 'a') ? TRUE : FALSE;
+                ExpressionTree dominator = (s == 'a') ? FALSE : TRUE;
+
+                // Rule: [P|P] == {P} OR [P&P] == {P}
+                if (l == r)
+                    emit(rewrites, t, Law.IDEMPOTENT, l);
+                // Rule: [(P|Q)|R] == {P|(Q|R)} OR [(P&Q)&R] == {P&(Q&R)}, both ways
+                if (l.getSymbol() == s)
+                    emit(rewrites, t, Law.ASSOCIATIVE,
+                            ExpressionTree.binary(s, l.getLeft(), ExpressionTree.binary(s, l.getRight(), r)));
+                if (r.getSymbol() == s)
+                    emit(rewrites, t, Law.ASSOCIATIVE,
+                            ExpressionTree.binary(s, ExpressionTree.binary(s, l, r.getLeft()), r.getRight()));
+                // Rule: [P|Q] == {Q|P} OR [P&Q] == {Q&P}
+                emit(rewrites, t, Law.COMMUTATIVE, ExpressionTree.binary(s, r, l));
+                // Rule: [P|(Q&R)] == {(P|Q)&(P|R)} OR [P&(Q|R)] == {(P&Q)|(P&R)}, both ways
+                if (r.getSymbol() == dual)
+                    emit(rewrites, t, Law.DISTRIBUTIVE, ExpressionTree.binary(dual,
+                            ExpressionTree.binary(s, l, r.getLeft()), ExpressionTree.binary(s, l, r.getRight())));
+                if (l.getSymbol() == dual && r.getSymbol() == dual && l.getLeft() == r.getLeft())
+                    emit(rewrites, t, Law.DISTRIBUTIVE, ExpressionTree.binary(dual, l.getLeft(),
+                            ExpressionTree.binary(s, l.getRight(), r.getRight())));
+                // Rule: [P|F] == {P} OR [P&T] == {P}
+                if (r == identity)
+                    emit(rewrites, t, Law.IDENTITY, l);
+                else if (l == identity)
+                    emit(rewrites, t, Law.IDENTITY, r);
+                // Rule: [P&F] == {F} OR [P|T] == {T}
+                if (l == dominator || r == dominator)
+                    emit(rewrites, t, Law.DOMINATION, dominator);
+                // Rule: [P&~P] == {F} OR [P|~P] == {T}
+                if ((l.isNegation() && l.getLeft() == r) || (r.isNegation() && r.getLeft() == l))
+                    emit(rewrites, t, Law.COMPLEMENT, dominator);
+                // Rule: [~P&~Q] == {~(P|Q)} OR [~P|~Q] == {~(P&Q)}
+                if (l.isNegation() && r.isNegation())
+                    emit(rewrites, t, Law.DE_MORGANS,
+                            ExpressionTree.not(ExpressionTree.binary(dual, l.getLeft(), r.getLeft())));
+                // Rule: [P|(P&Q)] == {P} OR [P&(P|Q)] == {P}
+                if (r.getSymbol() == dual && (r.getLeft() == l || r.getRight() == l))
+                    emit(rewrites, t, Law.ABSORPTION, l);
+                else if (l.getSymbol() == dual && (l.getLeft() == r || l.getRight() == r))
+                    emit(rewrites, t, Law.ABSORPTION, r);
+                // Rule: [~P|Q] == {P->Q} OR [(P->Q)&(Q->P)] == {P<>Q}
+                if (s == 'o' && l.isNegation())
+                    emit(rewrites, t, Law.CONDITIONAL_IDENTITY, ExpressionTree.binary('m', l.getLeft(), r));
+                else if (s == 'a' && l.getSymbol() == 'm' && r.getSymbol() == 'm'
+                        && l.getLeft() == r.getRight() && l.getRight() == r.getLeft())
+                    emit(rewrites, t, Law.CONDITIONAL_IDENTITY, ExpressionTree.binary('i', l.getLeft(), l.getRight()));
+                break;
+            }
+            case 'm': {
+                // Rule: [P->Q] == {~P|Q}
+                emit(rewrites, t, Law.CONDITIONAL_IDENTITY, ExpressionTree.binary('o', ExpressionTree.not(l), r));
+                break;
+            }
+            case 'i': {
+                // Rule: [P<>Q] == {(P->Q)&(Q->P)}
+                emit(rewrites, t, Law.CONDITIONAL_IDENTITY, ExpressionTree.binary('a',
+                        ExpressionTree.binary('m', l, r), ExpressionTree.binary('m', r, l)));
+                break;
+            }
+            default:
+                break;
+        }
+    }
+
+    private static void emit(List<ExpressionTree>[] rewrites, ExpressionTree original, Law law,
+            ExpressionTree rewrite) {
+        List<ExpressionTree> lawRewrites = rewrites[law.ordinal()];
+        if (rewrite != original && !lawRewrites.contains(rewrite))
+            lawRewrites.add(rewrite);
+    }
+
+    private static ExpressionTree withChildren(ExpressionTree tree, ExpressionTree left, ExpressionTree right) {
+        return tree.isNegation() ? ExpressionTree.not(left) : ExpressionTree.binary(tree.getSymbol(), left, right);
+    }
+
+    private static char dual(char operator) {
+        return (operator == 'a') ? 'o' : 'a';
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static List<ExpressionTree>[] newRewriteLists() {
+        List<ExpressionTree>[] rewrites = (List<ExpressionTree>[]) new List[LAWS.length];
+        for (int i = 0; i < rewrites.length; i++)
+            rewrites[i] = new ArrayList<>(1);
+        return rewrites;
+    }
+}
@@ -0,0 +1,345 @@
+package ai.knowlej.PropositionalLogic.Logic;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.WeakHashMap;
+
+import ai.knowlej.Exceptions.InvalidExpressionException;
+
+/**
+ * Immutable operator tree for a converted propositional expression. The converted String is parsed once, after
+ * which evaluation is a plain walk over the tree against a primitive {@code long} assignment.
+ *
+ * Trees are hash-consed: every node is interned on construction, so structurally equal formulas are the same object
+ * and shared subformulas are stored once. Expressions that differ only in spacing or redundant parentheses parse to
+ * the identical tree, equality is a reference comparison, and the hash is computed once per node. The intern table
+ * holds nodes weakly, so formulas no longer referenced anywhere are reclaimed. It is split into stripes by hash, each
+ * locked on its own, so threads building different formulas rarely wait on one another.
+ *
+ * Operator precedence follows the order the String evaluator used to reduce operators: negation binds tightest,
+ * then 'a' (and), 'o' (or), 'm' (implies), 'i' (iff) and 'x' (xor), each associating left-to-right. Parentheses are
+ * the numbered digit pairs produced by {@link Proposition.Expression#convertExpression(String)}.
+ */
+public final class ExpressionTree {
+    /** operator ('n', 'a', 'o', 'm', 'i', 'x'), operand character, or 'T'/'F' constant */
+    private final char symbol;
+    /** left operand of a binary operator, or the negated operand of 'n' */
+    private final ExpressionTree left;
+    /** right operand of a binary operator */
+    private final ExpressionTree right;
+    /** structural hash; children are canonical, so it only combines their precomputed hashes */
+    private final int hash;
+    /** lazily built infix form */
+    private String infix;
+
+    /** stripes of the intern table, a power of two */
+    private static final int INTERN_STRIPES = 64;
+    /** canonical node for each structure, held weakly on both sides like {@link String#intern()}, by stripe */
+    private static final List<WeakHashMap<ExpressionTree, WeakReference<ExpressionTree>>> INTERNED = new ArrayList<>();
+
+    static {
+        for (int i = 0; i < INTERN_STRIPES; i++)
+            INTERNED.add(new WeakHashMap<>());
+    }
+
+    private ExpressionTree(char symbol, ExpressionTree left, ExpressionTree right) {
+        this.symbol = symbol;
+        this.left = left;
+        this.right = right;
+        this.hash = 31 * (31 * symbol + (left == null ? 0 : left.hash)) + (right == null ? 0 : right.hash);
+    }
+
+    /**
+     * Returns the canonical node for a symbol and canonical children, creating it on first use.
+     */
+    private static ExpressionTree intern(char symbol, ExpressionTree left, ExpressionTree right) {
+        ExpressionTree candidate = new ExpressionTree(symbol, left, right);
+        WeakHashMap<ExpressionTree, WeakReference<ExpressionTree>> stripe =
+                INTERNED.get((candidate.hash ^ (candidate.hash >>> 16)) & (INTERN_STRIPES - 1));
+        synchronized (stripe) {
+            WeakReference<ExpressionTree> reference = stripe.get(candidate);
+            ExpressionTree canonical = (reference == null) ? null : reference.get();
+            if (canonical != null)
+                return canonical;
+            stripe.put(candidate, new WeakReference<>(candidate));
+            return candidate;
+        }
+    }
+
+    /**
+     * @param symbol operand character or 'T'/'F' constant
+     * @return canonical leaf node
+     */
+    public static ExpressionTree leaf(char symbol) {
+        if (symbol < 'A' || symbol > 'Z')
+            throw new IllegalArgumentException("Invalid operand: " + symbol);
+        return intern(symbol, null, null);
+    }
+
+    /**
+     * @return canonical negation of the operand
+     */
+    public static ExpressionTree not(ExpressionTree operand) {
+        if (operand == null)
+            throw new IllegalArgumentException("Operand cannot be null.");
+        return intern('n', operand, null);
+    }
+
+    /**
+     * @param operator converted binary operator ('a', 'o', 'm', 'i' or 'x')
+     * @return canonical binary node
+     */
+    public static ExpressionTree binary(char operator, ExpressionTree left, ExpressionTree right) {
+        if (!isBinaryOperator(operator))
+            throw new IllegalArgumentException("Invalid binary operator: " + operator);
+        if (left == null || right == null)
+            throw new IllegalArgumentException("Operands cannot be null.");
+        return intern(operator, left, right);
+    }
+
+    /**
+     * Parses a converted expression (see {@link Proposition#getConvertedExpression()}) into an operator tree.
+     *
+     * @param convertedExpression converted expression String
+     * @return root of the parsed tree
+     * @throws InvalidExpressionException if the converted expression is malformed
+     */
+    public static ExpressionTree parse(String convertedExpression) throws InvalidExpressionException {
+        if (convertedExpression == null || convertedExpression.isEmpty())
+            throw new InvalidExpressionException("Cannot parse an empty expression.");
+
+        Parser parser = new Parser(convertedExpression);
+        ExpressionTree root = parser.parseBinary(1);
+        if (parser.position != convertedExpression.length())
+            throw new InvalidExpressionException("Unexpected '" + convertedExpression.charAt(parser.position)
+                    + "' at index " + parser.position + " of " + convertedExpression);
+        return root;
+    }
+
+    /**
+     * Builds the operand-to-bit lookup used by {@link #evaluate(long, byte[])}, where operand {@code i} of the list is
+     * read from bit {@code i} of the assignment.
+     *
+     * @param operands operand Strings in bit order
+     * @return lookup indexed by {@code operand - 'A'}
+     */
+    public static byte[] operandBitIndex(List<String> operands) {
+        byte[] operandBits = new byte[26];
+        for (int i = 0; i < operands.size(); i++)
+            operandBits[operands.get(i).charAt(0) - 'A'] = (byte) i;
+        return operandBits;
+    }
+
+    /**
+     * Same as {@link #operandBitIndex(List)}, for operand character arrays.
+     */
+    public static byte[] operandBitIndex(char[] operands) {
+        byte[] operandBits = new byte[26];
+        for (int i = 0; i < operands.length; i++)
+            operandBits[operands[i] - 'A'] = (byte) i;
+        return operandBits;
+    }
+
+    /**
+     * Evaluates the tree without allocating.
+     *
+     * @param assignment  truth values of operands, one bit per operand (1 = T)
+     * @param operandBits bit position of each operand, indexed by {@code operand - 'A'}
+     * @return truth value of the expression under the assignment
+     */
+    public boolean evaluate(long assignment, byte[] operandBits) {
+        switch (symbol) {
+            case 'T':
+                return true;
+            case 'F':
+                return false;
+            case 'n':
+                return !left.evaluate(assignment, operandBits);
+            case 'a':
+                return left.evaluate(assignment, operandBits) && right.evaluate(assignment, operandBits);
+            case 'o':
+                return left.evaluate(assignment, operandBits) || right.evaluate(assignment, operandBits);
+            case 'm':
+                return !left.evaluate(assignment, operandBits) || right.evaluate(assignment, operandBits);
+            case 'i':
+                return left.evaluate(assignment, operandBits) == right.evaluate(assignment, operandBits);
+            case 'x':
+                return left.evaluate(assignment, operandBits) != right.evaluate(assignment, operandBits);
+            default:
+                return ((assignment >>> operandBits[symbol - 'A']) & 1L) != 0;
+        }
+    }
+
+    public char getSymbol() {
+        return this.symbol;
+    }
+
+    public ExpressionTree getLeft() {
+        return this.left;
+    }
+
+    public ExpressionTree getRight() {
+        return this.right;
+    }
+
+    public boolean isOperand() {
+        return left == null && symbol != 'T' && symbol != 'F';
+    }
+
+    public boolean isConstant() {
+        return symbol == 'T' || symbol == 'F';
+    }
+
+    public boolean isNegation() {
+        return symbol == 'n';
+    }
+
+    public boolean isBinary() {
+        return right != null;
+    }
+
+    /**
+     * @return infix form of the tree using the hand-typed operators, parenthesizing only where precedence requires it
+     */
+    @Override
+    public String toString() {
+        if (infix == null) {
+            StringBuilder sb = new StringBuilder();
+            appendInfix(sb);
+            infix = sb.toString();
+        }
+        return infix;
+    }
+
+    /**
+     * Shallow structural comparison: children are compared by reference, which is exact because they are canonical.
+     * Two distinct canonical nodes are therefore never equal, and {@code ==} can be used in place of this method.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof ExpressionTree))
+            return false;
+        ExpressionTree other = (ExpressionTree) o;
+        return hash == other.hash && symbol == other.symbol && left == other.left && right == other.right;
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hash;
+    }
+
+    private void appendInfix(StringBuilder sb) {
+        if (left == null) {
+            sb.append(symbol);
+        } else if (right == null) {
+            sb.append('~');
+            appendOperand(sb, left, left.right == null);
+        } else {
+            int precedence = precedence(symbol);
+            appendOperand(sb, left, precedence(left.symbol) >= precedence);
+            sb.append(operatorString(symbol));
+            appendOperand(sb, right, precedence(right.symbol) > precedence);
+        }
+    }
+
+    private static void appendOperand(StringBuilder sb, ExpressionTree operand, boolean bare) {
+        if (bare) {
+            operand.appendInfix(sb);
+        } else {
+            sb.append('(');
+            operand.appendInfix(sb);
+            sb.append(')');
+        }
+    }
+
+    private static String operatorString(char operator) {
+        switch (operator) {
+            case 'a':
+                return "&";
+            case 'o':
+                return "|";
+            case 'm':
+                return "->";
+            case 'i':
+                return "<>";
+            case 'x':
+                return ">-<";
+            default:
+                return String.valueOf(operator);
+        }
+    }
+
+    /**
+     * @return binding strength of a binary operator; operands, constants and negations bind tighter than any binary
+     *         operator
+     */
+    private static int precedence(char symbol) {
+        switch (symbol) {
+            case 'x':
+                return 1;
+            case 'i':
+                return 2;
+            case 'm':
+                return 3;
+            case 'o':
+                return 4;
+            case 'a':
+                return 5;
+            default:
+                return 6;
+        }
+    }
+
+    private static boolean isBinaryOperator(char c) {
+        return c == 'a' || c == 'o' || c == 'm' || c == 'i' || c == 'x';
+    }
+
+    /**
+     * Precedence-climbing parser over the converted expression characters.
+     */
+    private static final class Parser {
+        private final String cE;
+        private int position;
+
+        private Parser(String cE) {
+            this.cE = cE;
+            this.position = 0;
+        }
+
+        private ExpressionTree parseBinary(int minPrecedence) throws InvalidExpressionException {
+            ExpressionTree node = parseUnary();
+            while (position < cE.length() && isBinaryOperator(cE.charAt(position))
+                    && precedence(cE.charAt(position)) >= minPrecedence) {
+                char operator = cE.charAt(position++);
+                ExpressionTree rightNode = parseBinary(precedence(operator) + 1);
+                node = intern(operator, node, rightNode);
+            }
+            return node;
+        }
+
+        private ExpressionTree parseUnary() throws InvalidExpressionException {
+            if (position >= cE.length())
+                throw new InvalidExpressionException("Expression ends before an operand: " + cE);
+
+            char c = cE.charAt(position);
+            if (c == 'n') {
+                position++;
+                return intern('n', parseUnary(), null);
+            } else if (Character.isDigit(c)) {
+                position++;
+                ExpressionTree inner = parseBinary(1);
+                if (position >= cE.length() || cE.charAt(position) != c)
+                    throw new InvalidExpressionException("Unbalanced parentheses in " + cE);
+                position++;
+                return inner;
+            } else if (c >= 'A' && c <= 'Z') {
+                position++;
+                return intern(c, null, null);
+            }
+            throw new InvalidExpressionException("Expected an operand at index " + position + " of " + cE);
+        }
+    }
+}
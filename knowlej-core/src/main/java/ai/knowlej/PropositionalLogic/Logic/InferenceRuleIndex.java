@@ -0,0 +1,215 @@
+package ai.knowlej.PropositionalLogic.Logic;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ai.knowlej.PropositionalLogic.Logic.Argument.InferenceLaws.Law;
+
+/**
+ * Precompiled index of the inference rules, keyed by the top-level connectives of the premises. A premise pair is
+ * only handed to the rules whose premise shapes its connectives can satisfy, e.g. an atom and a conjunction never
+ * reach Modus Ponens. Rules match structurally on interned {@link ExpressionTree}s, so comparing two subformulas is
+ * a reference comparison rather than a regex match over the converted String.
+ *
+ * The table is built once; lookups are read-only and safe to share between threads.
+ */
+final class InferenceRuleIndex {
+    /** connective classes: any operand or constant, then the operators */
+    private static final String CONNECTIVES = "*naomix";
+
+    /** rules applicable to an ordered premise pair, by connective class of the first and second premise */
+    private static final PairRule[][][] PAIR_RULES = new PairRule[CONNECTIVES.length()][CONNECTIVES.length()][];
+    /** rules applicable to a single premise, by connective class */
+    private static final Law[][] SINGLE_RULES = new Law[CONNECTIVES.length()][];
+
+    static {
+        List<List<List<PairRule>>> pairRules = new ArrayList<>();
+        for (int i = 0; i < CONNECTIVES.length(); i++) {
+            pairRules.add(new ArrayList<>());
+            for (int j = 0; j < CONNECTIVES.length(); j++)
+                pairRules.get(i).add(new ArrayList<>());
+        }
+        // Each rule is registered in both premise orders; '*' matches every connective class
+        register(pairRules, Law.MODUS_PONENS, '*', 'm');
+        register(pairRules, Law.MODUS_TOLLENS, 'n', 'm');
+        register(pairRules, Law.CONJUNCTION, '*', '*');
+        register(pairRules, Law.HYPOTHETICAL_SYLLOGISM, 'm', 'm');
+        register(pairRules, Law.DISJUNCTIVE_SYLLOGISM, 'o', 'n');
+        register(pairRules, Law.RESOLUTION, 'o', 'o');
+
+        for (int i = 0; i < CONNECTIVES.length(); i++) {
+            for (int j = 0; j < CONNECTIVES.length(); j++)
+                PAIR_RULES[i][j] = pairRules.get(i).get(j).toArray(new PairRule[0]);
+            SINGLE_RULES[i] = new Law[0];
+        }
+        // Addition needs a second disjunct that a lone premise cannot supply, so only Simplification is indexed
+        SINGLE_RULES[CONNECTIVES.indexOf('a')] = new Law[] { Law.SIMPLIFICATION };
+    }
+
+    private InferenceRuleIndex() {
+    }
+
+    private static void register(List<List<List<PairRule>>> pairRules, Law law, char first, char second) {
+        for (int i = 0; i < CONNECTIVES.length(); i++) {
+            for (int j = 0; j < CONNECTIVES.length(); j++) {
+                if ((first == '*' || CONNECTIVES.charAt(i) == first) && (second == '*' || CONNECTIVES.charAt(j) == second)) {
+                    pairRules.get(i).get(j).add(new PairRule(law, false));
+                    pairRules.get(j).get(i).add(new PairRule(law, true));
+                }
+            }
+        }
+    }
+
+    private static int connectiveClass(ExpressionTree premise) {
+        return premise.isOperand() || premise.isConstant() ? 0 : CONNECTIVES.indexOf(premise.getSymbol());
+    }
+
+    /**
+     * Applies every compatible rule to a pair of premises.
+     *
+     * @param answerSet receives each rule's conclusions in infix form
+     */
+    static void applyPair(ExpressionTree premise1, ExpressionTree premise2, LawResults.Builder<Law> answerSet) {
+        for (PairRule rule : PAIR_RULES[connectiveClass(premise1)][connectiveClass(premise2)]) {
+            ExpressionTree first = rule.swapped ? premise2 : premise1;
+            ExpressionTree second = rule.swapped ? premise1 : premise2;
+            switch (rule.law) {
+                case MODUS_PONENS:
+                    add(answerSet, rule.law, modusPonens(first, second));
+                    break;
+                case MODUS_TOLLENS:
+                    add(answerSet, rule.law, modusTollens(first, second));
+                    break;
+                case CONJUNCTION:
+                    // Symmetric; the swapped registration would only repeat the conjunction reversed
+                    if (!rule.swapped)
+                        add(answerSet, rule.law, conjunction(first, second));
+                    break;
+                case HYPOTHETICAL_SYLLOGISM:
+                    add(answerSet, rule.law, hypotheticalSyllogism(first, second));
+                    break;
+                case DISJUNCTIVE_SYLLOGISM:
+                    add(answerSet, rule.law, disjunctiveSyllogism(first, second));
+                    break;
+                case RESOLUTION:
+                    if (!rule.swapped)
+                        resolution(first, second, rule.law, answerSet);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Applies every compatible single-premise rule.
+     *
+     * @param answerSet receives each rule's conclusions in infix form
+     */
+    static void applySingle(ExpressionTree premise, LawResults.Builder<Law> answerSet) {
+        for (Law law : SINGLE_RULES[connectiveClass(premise)]) {
+            if (law == Law.SIMPLIFICATION) {
+                add(answerSet, law, simplification(premise, true));
+                add(answerSet, law, simplification(premise, false));
+            }
+        }
+    }
+
+    private static void add(LawResults.Builder<Law> answerSet, Law law, ExpressionTree conclusion) {
+        if (conclusion != null)
+            answerSet.add(law, conclusion.toString());
+    }
+
+    /* Rules of Argument Inference */
+
+    /**
+     * Rule: [P], [P->Q] entails {Q}
+     */
+    private static ExpressionTree modusPonens(ExpressionTree p, ExpressionTree implication) {
+        if (implication.getLeft() == p && implication.getRight() != p)
+            return implication.getRight();
+        return null;
+    }
+
+    /**
+     * Rule: [~Q], [P->Q] entails {~P}
+     */
+    private static ExpressionTree modusTollens(ExpressionTree notQ, ExpressionTree implication) {
+        if (implication.getRight() == notQ.getLeft() && implication.getLeft() != notQ.getLeft())
+            return ExpressionTree.not(implication.getLeft());
+        return null;
+    }
+
+    /**
+     * Rule: [P&Q] entails {P}
+     */
+    private static ExpressionTree simplification(ExpressionTree conjunction, boolean left) {
+        if (conjunction.getLeft() == conjunction.getRight())
+            return null;
+        return left ? conjunction.getLeft() : conjunction.getRight();
+    }
+
+    /**
+     * Rule: [P], [Q] entails {P&Q}
+     */
+    private static ExpressionTree conjunction(ExpressionTree p, ExpressionTree q) {
+        return (p != q) ? ExpressionTree.binary('a', p, q) : null;
+    }
+
+    /**
+     * Rule: [P->Q], [Q->R] entails {P->R}
+     */
+    private static ExpressionTree hypotheticalSyllogism(ExpressionTree pq, ExpressionTree qr) {
+        ExpressionTree p = pq.getLeft(), q = pq.getRight(), r = qr.getRight();
+        if (qr.getLeft() == q && p != q && p != r && q != r)
+            return ExpressionTree.binary('m', p, r);
+        return null;
+    }
+
+    /**
+     * Rule: [P|Q], [~P] entails {Q}
+     */
+    private static ExpressionTree disjunctiveSyllogism(ExpressionTree disjunction, ExpressionTree notP) {
+        ExpressionTree p = notP.getLeft();
+        if (disjunction.getLeft() == disjunction.getRight())
+            return null;
+        if (disjunction.getLeft() == p)
+            return disjunction.getRight();
+        if (disjunction.getRight() == p)
+            return disjunction.getLeft();
+        return null;
+    }
+
+    /**
+     * Rule: [P|Q], [~P|R] entails {Q|R}, for either disjunct of either premise
+     */
+    private static void resolution(ExpressionTree disjunction1, ExpressionTree disjunction2, Law law,
+            LawResults.Builder<Law> answerSet) {
+        ExpressionTree[] literals1 = { disjunction1.getLeft(), disjunction1.getRight() };
+        ExpressionTree[] literals2 = { disjunction2.getLeft(), disjunction2.getRight() };
+        for (int i = 0; i < 2; i++) {
+            for (int j = 0; j < 2; j++) {
+                if (complementary(literals1[i], literals2[j])) {
+                    ExpressionTree q = literals1[1 - i], r = literals2[1 - j];
+                    if (q != r)
+                        add(answerSet, law, ExpressionTree.binary('o', q, r));
+                }
+            }
+        }
+    }
+
+    private static boolean complementary(ExpressionTree a, ExpressionTree b) {
+        return (a.isNegation() && a.getLeft() == b) || (b.isNegation() && b.getLeft() == a);
+    }
+
+    private static final class PairRule {
+        private final Law law;
+        /** true if the rule's first premise is the pair's second */
+        private final boolean swapped;
+
+        private PairRule(Law law, boolean swapped) {
+            this.law = law;
+            this.swapped = swapped;
+        }
+    }
+}
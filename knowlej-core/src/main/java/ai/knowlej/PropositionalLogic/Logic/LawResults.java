@@ -0,0 +1,106 @@
+package ai.knowlej.PropositionalLogic.Logic;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable result of applying a family of laws once: the expressions each law derived, indexed by the law's
+ * ordinal. Every call to the laws builds its own result, so results never leak between calls and can be produced
+ * concurrently.
+ *
+ * @param <L> law enum, e.g. {@link Argument.InferenceLaws.Law}
+ */
+final class LawResults<L extends Enum<L>> {
+    private final L[] laws;
+    /** derived expressions of each law by ordinal; never null */
+    private final List<List<String>> derivations;
+    /** laws with at least one derivation, in ordinal order */
+    private final List<L> derivingLaws;
+
+    private LawResults(L[] laws, List<List<String>> derivations) {
+        this.laws = laws;
+        this.derivations = derivations;
+        ArrayList<L> deriving = new ArrayList<>();
+        for (L law : laws) {
+            if (!derivations.get(law.ordinal()).isEmpty())
+                deriving.add(law);
+        }
+        this.derivingLaws = Collections.unmodifiableList(deriving);
+    }
+
+    static <L extends Enum<L>> Builder<L> builder(Class<L> lawType) {
+        return new Builder<>(lawType.getEnumConstants());
+    }
+
+    /**
+     * @return derived expressions of the law, without nulls, empties or duplicates; empty if it did not apply
+     */
+    List<String> get(L law) {
+        return this.derivations.get(law.ordinal());
+    }
+
+    /**
+     * @return laws that derived at least one expression
+     */
+    List<L> laws() {
+        return this.derivingLaws;
+    }
+
+    boolean isEmpty() {
+        return this.derivingLaws.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (L law : derivingLaws) {
+            if (sb.length() > 1)
+                sb.append(", ");
+            sb.append(law).append('=').append(derivations.get(law.ordinal()));
+        }
+        return sb.append('}').toString();
+    }
+
+    static final class Builder<L extends Enum<L>> {
+        private final L[] laws;
+        /** derived expressions of each law by ordinal; null until the law derives one */
+        private final ArrayList<ArrayList<String>> derivations;
+
+        private Builder(L[] laws) {
+            this.laws = laws;
+            this.derivations = new ArrayList<>(Collections.nCopies(laws.length, null));
+        }
+
+        /**
+         * Records a derived expression; null, empty and repeated expressions are ignored.
+         */
+        Builder<L> add(L law, String derivation) {
+            if (derivation == null || derivation.isEmpty())
+                return this;
+            ArrayList<String> list = derivations.get(law.ordinal());
+            if (list == null) {
+                list = new ArrayList<>(2);
+                derivations.set(law.ordinal(), list);
+            }
+            if (!list.contains(derivation))
+                list.add(derivation);
+            return this;
+        }
+
+        Builder<L> addAll(L law, List<String> derivations) {
+            for (String derivation : derivations)
+                add(law, derivation);
+            return this;
+        }
+
+        LawResults<L> build() {
+            ArrayList<List<String>> frozen = new ArrayList<>(laws.length);
+            for (ArrayList<String> derivation : derivations) {
+                frozen.add((derivation == null) ? Collections.emptyList()
+                        : Collections.unmodifiableList(new ArrayList<>(derivation)));
+            }
+            return new LawResults<>(laws, Collections.unmodifiableList(frozen));
+        }
+    }
+}
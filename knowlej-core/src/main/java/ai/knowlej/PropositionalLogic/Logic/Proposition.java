@@ -7,7 +7,8 @@ import java.nio.file.Paths;
 
 import java.io.IOException;
 import java.util.*;
-import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import ai.knowlej.Exceptions.*;
 
@@ -16,8 +17,6 @@ import ai.knowlej.Exceptions.*;
  * 
  */
 public class Proposition {
-    /** syntax for propositional logic */
-    private LogicalSyntax syntax;
     /** Logical expression, its string and other functions */
     private Expression expression;
     /** operands contained in expression's String */
@@ -38,41 +37,68 @@ public class Proposition {
     private int boolRowsCount;
     /** count of columns in truth table */
     private int boolColsCount;
+    /** operator tree parsed once from the converted expression */
+    private ExpressionTree expressionTree;
+    /** bit position of each operand in an assignment, indexed by operand - 'A' */
+    private byte[] operandBits;
+    /** decision diagram over this proposition's operands, compiled on first use */
+    private BinaryDecisionDiagram decisionDiagram;
+    private int decisionDiagramRoot;
 
     public Proposition()
             throws InvalidOperandException, InvalidLogicOperatorException, InvalidExpressionException {
         super();
     }
 
+    /**
+     * @param e logical expression; parsed through {@link PropositionCache#getShared()}
+     */
     public Proposition(String e)
             throws InvalidExpressionException, InvalidOperandException, InvalidLogicOperatorException {
-        this.syntax = new LogicalSyntax();
-        this.expression = new Expression(e);
-        setSentences();
+        PropositionCache.ParsedExpression parsed = PropositionCache.getShared().parse(e);
+        this.expression = new Expression(parsed);
+        setSentences(parsed);
     }
 
     public void setExpression(String e)
     throws InvalidExpressionException, InvalidOperandException, InvalidLogicOperatorException {
-        this.expression.setExpression(e);
-        setSentences();
-        setTruthTable();
+        PropositionCache.ParsedExpression parsed = PropositionCache.getShared().parse(e);
+        this.expression = new Expression(parsed);
+        setSentences(parsed);
+        this.truthTable = null;
+        this.tableValues = null;
+        this.decisionDiagram = null;
+    }
+
+    /**
+     * Converts, validates and parses an expression without going through the cache; called by
+     * {@link PropositionCache} on a miss.
+     */
+    static PropositionCache.ParsedExpression parse(String e)
+            throws InvalidExpressionException, InvalidOperandException, InvalidLogicOperatorException {
+        Expression expression = new Expression(e);
+        String cE = expression.getConvertedExpression();
+        return new PropositionCache.ParsedExpression(expression.getExpression(), cE,
+                parseOperands(cE, new LogicalSyntax()), ExpressionTree.parse(cE));
     }
 
     /**
      * Helper method for parsePropositions() method, balances tree expression
      * sentences
-     * 
-     * @throws InvalidExpressionException
      */
-    private void setSentences() throws InvalidExpressionException {
-        sentences = new ArrayList<String>();
+    private void setSentences(PropositionCache.ParsedExpression parsed) {
+        operands = new ArrayList<String>(parsed.getOperands());
+        operandCount = (byte) operands.size();
 
-        parseOperands();
+        sentences = new ArrayList<String>();
         sentences.addAll(this.operands);
 
         sentences.add(this.expression.getExpression());
 
         sentenceCount = (byte) ((int) operandCount + 1);
+
+        expressionTree = parsed.getExpressionTree();
+        operandBits = parsed.getOperandBits();
     }
 
     public String getExpression() {
@@ -107,10 +133,55 @@ public class Proposition {
         return subPropositions;
     }
 
+    public ExpressionTree getExpressionTree() {
+        return this.expressionTree;
+    }
+
     public byte getOperandCount() {
         return this.operandCount;
     }
 
+    /**
+     * Compiles the expression to a reduced ordered BDD on first call, with the operands in sentence order; the root
+     * is {@link #getDecisionDiagramRoot()}. Validity and model counts on the diagram never enumerate the table.
+     */
+    public BinaryDecisionDiagram getDecisionDiagram() {
+        if (this.decisionDiagram == null) {
+            char[] operandChars = new char[this.operandCount];
+            for (int i = 0; i < this.operandCount; i++)
+                operandChars[i] = this.operands.get(i).charAt(0);
+            BinaryDecisionDiagram diagram = new BinaryDecisionDiagram(operandChars);
+            this.decisionDiagramRoot = diagram.compile(this.expressionTree);
+            this.decisionDiagram = diagram;
+        }
+        return this.decisionDiagram;
+    }
+
+    public int getDecisionDiagramRoot() {
+        getDecisionDiagram();
+        return this.decisionDiagramRoot;
+    }
+
+    /**
+     * @return number of rows of the truth table on which the expression is T
+     */
+    public long countModels() {
+        return getDecisionDiagram().countModels(this.decisionDiagramRoot);
+    }
+
+    /**
+     * @return true if both expressions take the same value under every assignment of their operands
+     */
+    public boolean isEquivalent(Proposition other) {
+        if (other == null)
+            throw new IllegalArgumentException("Proposition cannot be null.");
+        if (this.expressionTree == other.expressionTree)
+            return true;
+
+        BinaryDecisionDiagram diagram = new BinaryDecisionDiagram();
+        return diagram.compile(this.expressionTree) == diagram.compile(other.expressionTree);
+    }
+
     public byte getSentenceCount() {
         return this.sentenceCount;
     }
@@ -122,27 +193,30 @@ public class Proposition {
         return this.truthTable;
     }
 
+    /**
+     * Computes a single row on demand, without building the whole table.
+     *
+     * @param row 0 for the title row, 1 to 2^n for value rows
+     */
     public String[] getStringTableRow(int row) throws InvalidExpressionException {
-        if (this.tableValues == null || this.truthTable == null) {
-            setTruthTable();
-        }
-        if (row > truthTable.length) {
-            throw new IndexOutOfBoundsException();
-        }
-        return this.truthTable[row];
+        if (this.truthTable != null)
+            return this.truthTable[row];
+        if (row < 0 || row > getRowCount())
+            throw new IndexOutOfBoundsException("Row " + row + " is out of bounds");
+
+        return row == 0 ? this.sentences.toArray(new String[0]) : toStringRow(computeBooleanRow(row - 1));
     }
 
     public String[] getStringTableColumn(int col) throws InvalidExpressionException {
-        if (this.tableValues == null || this.truthTable == null) {
-            setTruthTable();
-        }
-        if (col > truthTable[0].length) {
+        if (col < 0 || col >= this.sentences.size()) {
             throw new IndexOutOfBoundsException();
         }
 
-        String[] column = new String[truthTable.length];
-        for (int i = 0; i < truthTable.length; i++)
-            column[i] = truthTable[i][col];
+        int rowCount = getRowCount();
+        String[] column = new String[rowCount + 1];
+        column[0] = this.sentences.get(col);
+        for (int i = 0; i < rowCount; i++)
+            column[i + 1] = computeBooleanValue(i, col) ? "T" : "F";
 
         return column;
     }
@@ -154,64 +228,100 @@ public class Proposition {
         return this.tableValues;
     }
 
+    /**
+     * Computes a single row of truth values on demand, without building the whole table.
+     *
+     * @param row 0 to 2^n - 1, excluding the title row
+     */
     public Boolean[] getBooleanTableRow(int row) throws InvalidExpressionException {
-        if (this.tableValues == null || this.truthTable == null) {
-            setTruthTable();
-        }
-        return this.tableValues[row];
+        if (this.tableValues != null)
+            return this.tableValues[row];
+        if (row < 0 || row >= getRowCount())
+            throw new IndexOutOfBoundsException("Row " + row + " is out of bounds");
+
+        return computeBooleanRow(row);
     }
 
     public Boolean[] getBooleanTableColumn(int col) throws InvalidExpressionException {
-        if (this.tableValues == null || this.truthTable == null) {
-            setTruthTable();
+        if (col < 0 || col >= this.sentences.size()) {
+            throw new IndexOutOfBoundsException();
         }
-        Boolean[] column = new Boolean[valueCount];
-        int columnElements = valueCount / boolColsCount;
 
-        for (int i = 0; i < columnElements; i++)
-            column[i] = tableValues[i][col];
+        int rowCount = getRowCount();
+        Boolean[] column = new Boolean[rowCount];
+        for (int i = 0; i < rowCount; i++)
+            column[i] = computeBooleanValue(i, col);
 
         return column;
     }
 
-    private void parseOperands() throws InvalidExpressionException {
-        operands = new ArrayList<String>();
-        for (Character c : this.expression.getConvertedExpression().toCharArray()) {
+    /**
+     * Streams truth value rows in table order, computing each row only when it is consumed.
+     */
+    public Stream<Boolean[]> booleanTableRows() throws InvalidExpressionException {
+        return IntStream.range(0, getRowCount()).mapToObj(this::computeBooleanRow);
+    }
+
+    /**
+     * Streams the String table, title row first, computing each value row only when it is consumed.
+     */
+    public Stream<String[]> stringTableRows() throws InvalidExpressionException {
+        return Stream.concat(Stream.<String[]>of(this.sentences.toArray(new String[0])),
+                booleanTableRows().map(Proposition::toStringRow));
+    }
+
+    private int getRowCount() throws InvalidExpressionException {
+        if (operandCount > 30)
+            throw new InvalidExpressionException("Too many unique operands to enumerate; there are " + operandCount
+                    + " operands.");
+        return 1 << operandCount;
+    }
+
+    private Boolean[] computeBooleanRow(int row) {
+        long assignment = TruthTableBuilder.rowAssignment(row, operandCount);
+        Boolean[] values = new Boolean[operandCount + 1];
+        for (int i = 0; i < operandCount; i++)
+            values[i] = ((assignment >>> i) & 1L) != 0;
+        values[operandCount] = evaluateExpression(assignment);
+        return values;
+    }
+
+    private boolean computeBooleanValue(int row, int col) {
+        long assignment = TruthTableBuilder.rowAssignment(row, operandCount);
+        return col < operandCount ? ((assignment >>> col) & 1L) != 0 : evaluateExpression(assignment);
+    }
+
+    private static String[] toStringRow(Boolean[] values) {
+        String[] row = new String[values.length];
+        for (int i = 0; i < values.length; i++)
+            row[i] = values[i] ? "T" : "F";
+        return row;
+    }
+
+    private static ArrayList<String> parseOperands(String cE, LogicalSyntax syntax) {
+        ArrayList<String> operands = new ArrayList<String>();
+        for (Character c : cE.toCharArray()) {
             if (syntax.isOperand(c) && !c.equals('T') && !c.equals('F')) {
                 if (!operands.contains(c.toString())) {
                     operands.add(c.toString());
-                    operandCount++;
-                    if (operandCount > 15) {
-                        this.expression = null;
-                        throw new InvalidExpressionException(
-                                "Too many unique operands; only 15 allowed; there are " + operandCount + " operands.");
-                    }
                 }
             }
         }
+        return operands;
     }
 
     private void setTruthTable() throws InvalidExpressionException {
-        boolRowsCount = (int) Math.pow(2, operandCount);
-        boolColsCount = sentences.size();
+        if (operandCount > 15)
+            throw new InvalidExpressionException(
+                    "Too many unique operands for a truth table; only 15 allowed; there are " + operandCount + " operands.");
 
-        TruthTableBuilder ttb = new TruthTableBuilder(operands, boolRowsCount, boolColsCount);
-        tableValues = ttb.getValueTable();
-        truthTable = ttb.getTruthTable();
-        valueCount = ttb.getBoolCount();
-        ttb.close();
-
-        truthTable[0][boolColsCount - 1] = this.expression.getExpression();
-
-        HashMap<Character, Character> valueMap = new HashMap<>();
-        for (int rows = 0; rows < boolRowsCount; rows++) {
-            for (int i = 0; i < operandCount; i++)
-                valueMap.put(operands.get(i).charAt(0), truthTable[rows + 1][i].charAt(0));
+        boolRowsCount = getRowCount();
+        boolColsCount = sentences.size();
+        valueCount = boolRowsCount * boolColsCount;
 
-            truthTable[rows + 1][boolColsCount - 1] = evaluateExpression(valueMap) ? "T" : "F";
-            tableValues[rows][boolColsCount - 1] = truthTable[rows + 1][boolColsCount - 1].equals("T");
-            valueMap.clear();
-        }
+        // materialized views over the row streams
+        tableValues = booleanTableRows().toArray(Boolean[][]::new);
+        truthTable = stringTableRows().toArray(String[][]::new);
     }
 
     public void printTruthTable() throws InvalidExpressionException {
@@ -259,129 +369,32 @@ public class Proposition {
     }
 
     /**
-     * incredibly inefficient but at least it works for now, will optimize later to
-     * be recursive :^)
-     * 
-     * 
-     * @param valueMap
-     * @return
-     * @throws InvalidExpressionException
+     * Evaluates the expression for operand truth values given as 'T'/'F' characters.
+     *
+     * @param valueMap truth value of every operand in the expression
+     * @return truth value of the expression
+     * @throws InvalidExpressionException if an operand has no truth value
      */
     public boolean evaluateExpression(Map<Character, Character> valueMap) throws InvalidExpressionException {
-        PropositionOperators operator = new PropositionOperators();
-        boolean answer = false;
-
-        // mE = markedExpression contains boolean values for operands
-        String mE = this.expression.getConvertedExpression();
-        // replace operands with bool values
-        int o = 0;
-        while (syntax.containsAnyOperands(mE)) {
-            mE = mE.replaceAll(operands.get(o), valueMap.get(operands.get(o).charAt(0)).toString());
-            o++;
-        }
-
-        // apply negation where necessary throughout whole expression
-        if (mE.contains("n")) {
-            while (mE.contains("n")) {
-                if (mE.contains("nT")) {
-                    mE = mE.replaceFirst("nT", operator.not("T"));
-                } else if (mE.contains("nF")) {
-                    mE = mE.replaceFirst("nF", operator.not("F"));
-                }
-                if (!mE.contains("nT") && !mE.contains("nF")) {
-                    if (mE.matches(".*n[0-9].*")) {
-                        char[] mEChars = mE.toCharArray();
-                        int parenthesesValue = 0;
-                        int index = mE.indexOf("n");
-                        if (!(mE.charAt(index + 1) == 0))
-                            parenthesesValue = Integer.parseInt(mE.charAt(index + 1) + "");
-
-                        index += 2;
-                        while (index != mE.lastIndexOf(Integer.toString(parenthesesValue))) {
-                            if (mE.charAt(index) == 'T')
-                                mEChars[index] = operator.not("T").charAt(0);
-                            else if (mE.charAt(index) == 'F')
-                                mEChars[index] = operator.not("F").charAt(0);
-
-                            index++;
-                        }
-                        mE = new String(mEChars);
-                        mE = mE.replace("n" + Integer.toString(parenthesesValue), Integer.toString(parenthesesValue));
-                    }
-                }
-            }
-        }
-        // lambda function for evaluating expression based on order of operations
-        Function<String, String> evaluate = (expression) -> {
-            LinkedList<String> operators = new LinkedList<>(Arrays.asList("a", "o", "m", "i", "x"));
-            String result;
-            for (String op : operators) {
-                if (expression.contains(op)) {
-                    int opCount = (int) expression.chars().filter(c -> c == op.charAt(0)).count();
-                    for (; opCount > 0; opCount--) {
-                        int index = expression.indexOf(op);
-                        String leftOperand = expression.charAt(index - 1) + "";
-                        String rightOperand = expression.charAt(index + 1) + "";
-                        switch (op) {
-                            case "a": {
-                                result = operator.and(leftOperand, rightOperand);
-                                expression = expression.replaceFirst(expression.substring(index - 1, index + 2),
-                                        result);
-                                break;
-                            }
-                            case "o": {
-                                result = operator.or(leftOperand, rightOperand);
-                                expression = expression.replaceFirst(expression.substring(index - 1, index + 2),
-                                        result);
-                                break;
-                            }
-                            case "m": {
-                                result = operator.implies(leftOperand, rightOperand);
-                                expression = expression.replaceFirst(expression.substring(index - 1, index + 2),
-                                        result);
-                                break;
-                            }
-                            case "i": {
-                                result = operator.iff(leftOperand, rightOperand);
-                                expression = expression.replaceFirst(expression.substring(index - 1, index + 2),
-                                        result);
-                                break;
-                            }
-                            case "x": {
-                                result = operator.xor(leftOperand, rightOperand);
-                                expression = expression.replaceFirst(expression.substring(index - 1, index + 2),
-                                        result);
-                                break;
-                            }
-                            default:
-                                break;
-                        }
-                    }
-                }
-            }
-            if (expression.matches(".*[0-9].*"))
-                expression = expression.replaceAll("[0-9]", "");
-
-            return expression;
-        };
-
-        // evaluate parentheses and their contents highest to lowest, and left-to-right
-        String replacement;
-        do {
-            OptionalInt max = mE.chars().filter(Character::isDigit).map(Character::getNumericValue).max();
-            if (max.isPresent()) {
-                for (int m = max.getAsInt(); m >= 0; m--) {
-                    String mString = String.valueOf(m);
-                    replacement = mE.substring(mE.indexOf(mString), mE.lastIndexOf(mString) + mString.length());
-                    mE = mE.replace(replacement, evaluate.apply(replacement));
-                }
-            } else { // if no digit in String, evaluate expression left-to-right
-                mE = evaluate.apply(mE);
-            }
-        } while (mE.length() > 1);
+        long assignment = 0L;
+        for (int i = 0; i < operandCount; i++) {
+            Character value = valueMap.get(operands.get(i).charAt(0));
+            if (value == null)
+                throw new InvalidExpressionException("No truth value given for operand " + operands.get(i));
+            if (value == 'T')
+                assignment |= 1L << i;
+        }
+        return evaluateExpression(assignment);
+    }
 
-        answer = mE.equals("T");
-        return answer;
+    /**
+     * Evaluates the compiled expression tree without allocating.
+     *
+     * @param operandAssignment bit {@code i} holds the truth value of operand {@code i} (see {@link #getSentence(int)})
+     * @return truth value of the expression
+     */
+    public boolean evaluateExpression(long operandAssignment) {
+        return this.expressionTree.evaluate(operandAssignment, this.operandBits);
     }
 
     /**
@@ -580,7 +593,8 @@ public class Proposition {
         /** logical expression String representing math equation */
         private String expression;
 
-        private LogicalSyntax syntax = new LogicalSyntax();
+        /** read-only, so shared by every Expression */
+        private static final LogicalSyntax syntax = new LogicalSyntax();
         /** converted logical expression string for easier back-end operations */
         private String convertedExpression;
         /** Maximum number of characters accepted in converted expression String */
@@ -612,6 +626,14 @@ public class Proposition {
             loadExpression(e);
         }
 
+        /**
+         * Wraps an already validated expression without converting it again.
+         */
+        Expression(PropositionCache.ParsedExpression parsed) {
+            this.expression = parsed.getExpression();
+            this.convertedExpression = parsed.getConvertedExpression();
+        }
+
         public void setExpression(String e)
         throws InvalidOperandException, InvalidLogicOperatorException, InvalidExpressionException {
             loadExpression(e);
@@ -0,0 +1,183 @@
+package ai.knowlej.PropositionalLogic.Logic;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ai.knowlej.Exceptions.InvalidExpressionException;
+import ai.knowlej.Exceptions.InvalidLogicOperatorException;
+import ai.knowlej.Exceptions.InvalidOperandException;
+
+/**
+ * Bounded, least-recently-used cache of parsed expressions keyed by the expression String. Every
+ * {@link Proposition} built from a String goes through the {@link #getShared() shared} cache, so Argument, the logic
+ * models and the deduction loop convert, validate and parse each distinct expression once.
+ *
+ * Invalid expressions are not cached; their exceptions are thrown on every call.
+ */
+public final class PropositionCache {
+    public static final int DEFAULT_MAXIMUM_SIZE = 4096;
+
+    private static final PropositionCache SHARED = new PropositionCache(DEFAULT_MAXIMUM_SIZE);
+
+    private final int maximumSize;
+    private final LinkedHashMap<String, ParsedExpression> entries;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public PropositionCache(int maximumSize) {
+        if (maximumSize < 1)
+            throw new IllegalArgumentException("Cache size must be at least 1.");
+
+        this.maximumSize = maximumSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ParsedExpression> eldest) {
+                if (size() > PropositionCache.this.maximumSize) {
+                    evictionCount.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return cache used by {@link Proposition#Proposition(String)}
+     */
+    public static PropositionCache getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns the parsed form of an expression, parsing and validating it on a miss. Concurrent misses on the same
+     * expression may each parse it; the results are identical, and the last one stored is kept.
+     *
+     * @param expression logical expression String
+     * @return immutable parse result
+     */
+    public ParsedExpression parse(String expression)
+            throws InvalidExpressionException, InvalidOperandException, InvalidLogicOperatorException {
+        if (expression == null)
+            throw new InvalidExpressionException("Expression cannot be null.");
+
+        ParsedExpression parsed;
+        synchronized (entries) {
+            parsed = entries.get(expression);
+        }
+        if (parsed != null) {
+            hitCount.incrementAndGet();
+            return parsed;
+        }
+
+        missCount.incrementAndGet();
+        parsed = Proposition.parse(expression);
+        synchronized (entries) {
+            entries.put(expression, parsed);
+        }
+        return parsed;
+    }
+
+    /**
+     * @return canonical operator tree of the expression, which serves as its identity; see {@link ExpressionTree}
+     */
+    public ExpressionTree getExpressionTree(String expression)
+            throws InvalidExpressionException, InvalidOperandException, InvalidLogicOperatorException {
+        return parse(expression).getExpressionTree();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public int getMaximumSize() {
+        return this.maximumSize;
+    }
+
+    public long getHitCount() {
+        return this.hitCount.get();
+    }
+
+    public long getMissCount() {
+        return this.missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return this.evictionCount.get();
+    }
+
+    /**
+     * @return hits over total lookups, or 0 before the first lookup
+     */
+    public double getHitRate() {
+        long hits = hitCount.get();
+        long total = hits + missCount.get();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    /**
+     * Drops every entry and resets the statistics.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+        hitCount.set(0);
+        missCount.set(0);
+        evictionCount.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return "PropositionCache[size=" + size() + "/" + maximumSize + ", hits=" + hitCount.get() + ", misses="
+                + missCount.get() + ", evictions=" + evictionCount.get() + "]";
+    }
+
+    /**
+     * Immutable result of parsing one expression: its whitespace-free and converted forms, its operands in order of
+     * appearance, and its operator tree.
+     */
+    public static final class ParsedExpression {
+        private final String expression;
+        private final String convertedExpression;
+        private final List<String> operands;
+        private final ExpressionTree expressionTree;
+        private final byte[] operandBits;
+
+        ParsedExpression(String expression, String convertedExpression, List<String> operands,
+                ExpressionTree expressionTree) {
+            this.expression = expression;
+            this.convertedExpression = convertedExpression;
+            this.operands = Collections.unmodifiableList(operands);
+            this.expressionTree = expressionTree;
+            this.operandBits = ExpressionTree.operandBitIndex(operands);
+        }
+
+        public String getExpression() {
+            return this.expression;
+        }
+
+        public String getConvertedExpression() {
+            return this.convertedExpression;
+        }
+
+        public List<String> getOperands() {
+            return this.operands;
+        }
+
+        public ExpressionTree getExpressionTree() {
+            return this.expressionTree;
+        }
+
+        /** shared lookup; callers must not modify it */
+        byte[] getOperandBits() {
+            return this.operandBits;
+        }
+    }
+}
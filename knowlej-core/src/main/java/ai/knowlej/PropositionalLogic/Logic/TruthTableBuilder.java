@@ -63,6 +63,20 @@ public class TruthTableBuilder {
         }
     }
 
+    /**
+     * Operand assignment of a table row, in the row order built by {@link #combineOperandValues()}: row {@code r}
+     * counts up from the all-true assignment, so operand {@code j} is F exactly when bit {@code j} of
+     * {@code (r + 1) mod 2^operandCount} is set. The last row is the all-true assignment.
+     *
+     * @param row          table row, excluding the title row
+     * @param operandCount operands in the table
+     * @return assignment with bit {@code j} set when operand {@code j} is T
+     */
+    public static long rowAssignment(int row, int operandCount) {
+        long mask = (1L << operandCount) - 1;
+        return ~((long) row + 1) & mask;
+    }
+
     public String[][] getTruthTable() {
         return this.truthTable;
     }
@@ -0,0 +1,188 @@
+package ai.knowlej.PropositionalLogic.Logic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Tseitin-encodes expression trees into CNF clauses of a {@link CDCLSolver}. Every operand gets one solver variable,
+ * and every binary subformula gets one auxiliary variable defined equivalent to it, so the clause count grows with
+ * formula size instead of with the number of truth table rows.
+ *
+ * Between {@link #beginQuery()} and {@link #endQuery()}, new definitions are guarded by an activation variable and
+ * kept apart from the asserted formulas' definitions, so that ending the query releases its clauses and variables
+ * from the solver. Definitions made before the query are reused by it.
+ */
+final class TseitinEncoder {
+    private final CDCLSolver solver;
+    private final Map<Character, Integer> operandVariables = new HashMap<>();
+    private final Map<ExpressionTree, Integer> subformulaLiterals = new IdentityHashMap<>();
+    /** variable fixed to true, used for the 'T' and 'F' constants */
+    private int trueVariable = 0;
+
+    /** activation variable of the open query, 0 outside a query, and the operands and definitions it added */
+    private int activation = 0;
+    private final Map<Character, Integer> queryOperandVariables = new HashMap<>();
+    private final Map<ExpressionTree, Integer> querySubformulaLiterals = new IdentityHashMap<>();
+    private final ArrayList<Integer> queryVariables = new ArrayList<>();
+
+    TseitinEncoder(CDCLSolver solver) {
+        this.solver = solver;
+    }
+
+    /**
+     * Adds clauses forcing the formula to be true. Top-level conjunctions are split so their conjuncts are asserted
+     * directly instead of through an auxiliary variable.
+     */
+    void assertFormula(ExpressionTree tree) {
+        if (tree.getSymbol() == 'a') {
+            assertFormula(tree.getLeft());
+            assertFormula(tree.getRight());
+        } else {
+            solver.addClause(literal(tree));
+        }
+    }
+
+    /**
+     * Opens a query; the activation variable must be assumed true in every solve that uses the query's literals.
+     *
+     * @return activation variable of the query
+     */
+    int beginQuery() {
+        if (activation != 0)
+            throw new IllegalStateException("A query is already open.");
+        activation = solver.newVariable();
+        return activation;
+    }
+
+    /**
+     * Closes the open query, deleting its definition clauses and freeing its variables in the solver.
+     */
+    void endQuery() {
+        if (activation == 0)
+            throw new IllegalStateException("No query is open.");
+        int[] variables = new int[queryVariables.size()];
+        for (int i = 0; i < variables.length; i++)
+            variables[i] = queryVariables.get(i);
+        solver.release(activation, variables);
+        activation = 0;
+        queryOperandVariables.clear();
+        querySubformulaLiterals.clear();
+        queryVariables.clear();
+    }
+
+    /**
+     * @return DIMACS literal equivalent to the formula, adding its definition clauses on first use
+     */
+    int literal(ExpressionTree tree) {
+        Integer cached = subformulaLiterals.get(tree);
+        if (cached == null && activation != 0)
+            cached = querySubformulaLiterals.get(tree);
+        if (cached != null)
+            return cached;
+
+        int lit;
+        switch (tree.getSymbol()) {
+            case 'T':
+                lit = trueLiteral();
+                break;
+            case 'F':
+                lit = -trueLiteral();
+                break;
+            case 'n':
+                lit = -literal(tree.getLeft());
+                break;
+            case 'a':
+                lit = defineAnd(literal(tree.getLeft()), literal(tree.getRight()));
+                break;
+            case 'o':
+                lit = defineOr(literal(tree.getLeft()), literal(tree.getRight()));
+                break;
+            case 'm':
+                lit = defineOr(-literal(tree.getLeft()), literal(tree.getRight()));
+                break;
+            case 'i':
+                lit = defineIff(literal(tree.getLeft()), literal(tree.getRight()));
+                break;
+            case 'x':
+                lit = -defineIff(literal(tree.getLeft()), literal(tree.getRight()));
+                break;
+            default:
+                lit = operandVariable(tree.getSymbol());
+                break;
+        }
+        ((activation != 0) ? querySubformulaLiterals : subformulaLiterals).put(tree, lit);
+        return lit;
+    }
+
+    int operandVariable(char operand) {
+        Integer variable = operandVariables.get(operand);
+        if (variable != null)
+            return variable;
+        if (activation == 0)
+            return operandVariables.computeIfAbsent(operand, o -> solver.newVariable());
+        return queryOperandVariables.computeIfAbsent(operand, o -> newQueryVariable());
+    }
+
+    private int newQueryVariable() {
+        int variable = solver.newVariable();
+        queryVariables.add(variable);
+        return variable;
+    }
+
+    /**
+     * @return a variable for a new definition, owned by the open query if there is one
+     */
+    private int newDefinitionVariable() {
+        return (activation != 0) ? newQueryVariable() : solver.newVariable();
+    }
+
+    /**
+     * Adds a definition clause, guarded by the open query's activation variable if there is one.
+     */
+    private void addDefinition(int... literals) {
+        if (activation != 0) {
+            literals = Arrays.copyOf(literals, literals.length + 1);
+            literals[literals.length - 1] = -activation;
+        }
+        solver.addClause(literals);
+    }
+
+    private int trueLiteral() {
+        if (trueVariable == 0) {
+            trueVariable = solver.newVariable();
+            solver.addClause(trueVariable);
+        }
+        return trueVariable;
+    }
+
+    /** x <> (a & b) */
+    private int defineAnd(int a, int b) {
+        int x = newDefinitionVariable();
+        addDefinition(-x, a);
+        addDefinition(-x, b);
+        addDefinition(x, -a, -b);
+        return x;
+    }
+
+    /** x <> (a | b) */
+    private int defineOr(int a, int b) {
+        int x = newDefinitionVariable();
+        addDefinition(x, -a);
+        addDefinition(x, -b);
+        addDefinition(-x, a, b);
+        return x;
+    }
+
+    /** x <> (a <> b) */
+    private int defineIff(int a, int b) {
+        int x = newDefinitionVariable();
+        addDefinition(-x, -a, b);
+        addDefinition(-x, a, -b);
+        addDefinition(x, a, b);
+        addDefinition(x, -a, -b);
+        return x;
+    }
+}
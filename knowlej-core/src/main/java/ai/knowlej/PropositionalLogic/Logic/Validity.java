@@ -21,4 +21,19 @@ public class Validity {
     public boolean isContingency(boolean[] rowOrColumn) {
         return !(isTautology(rowOrColumn) || isContradiction(rowOrColumn));
     }
+
+    /**
+     * Same checks on a compiled formula; see {@link Proposition#getDecisionDiagram()}.
+     */
+    public boolean isTautology(BinaryDecisionDiagram diagram, int formula) {
+        return diagram.isTautology(formula);
+    }
+
+    public boolean isContradiction(BinaryDecisionDiagram diagram, int formula) {
+        return diagram.isContradiction(formula);
+    }
+
+    public boolean isContingency(BinaryDecisionDiagram diagram, int formula) {
+        return diagram.isContingency(formula);
+    }
 }
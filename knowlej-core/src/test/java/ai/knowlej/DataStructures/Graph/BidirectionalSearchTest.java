@@ -0,0 +1,153 @@
+package ai.knowlej.DataStructures.Graph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the parallel search against breadth-first search on random graphs: it finds a path exactly when one exists,
+ * and the path is a shortest one, for any worker count and any admissible estimates.
+ */
+class BidirectionalSearchTest {
+    private static final int UNREACHED = Integer.MAX_VALUE;
+
+    @Test
+    void findsShortestPathsOnRandomGraphs() throws Exception {
+        Random random = new Random(23);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            for (int n = 0; n < 1000; n++) {
+                int nodes = 2 + random.nextInt(60);
+                int[][] outEdges = randomEdges(random, nodes);
+                int[][] inEdges = reverse(outEdges);
+                int[] premises = new int[1 + random.nextInt(3)];
+                for (int i = 0; i < premises.length; i++)
+                    premises[i] = random.nextInt(nodes);
+                int query = random.nextInt(nodes);
+
+                int[] fromPremises = distances(outEdges, premises);
+                int[] toQuery = distances(inEdges, new int[] { query });
+                // Scaled-down true distances are admissible; zero is the uninformed search
+                boolean informed = random.nextBoolean();
+                int[] forwardEstimates = new int[nodes], backwardEstimates = new int[nodes];
+                for (int id = 0; id < nodes; id++) {
+                    if (informed && toQuery[id] != UNREACHED)
+                        forwardEstimates[id] = toQuery[id] / (1 + random.nextInt(2));
+                    if (informed && fromPremises[id] != UNREACHED)
+                        backwardEstimates[id] = fromPremises[id] / (1 + random.nextInt(2));
+                }
+
+                BidirectionalSearch search = new BidirectionalSearch(outEdges, inEdges, forwardEstimates,
+                        backwardEstimates, 1 + random.nextInt(4));
+                int[] path = search.search(premises, query, (n % 2 == 0) ? pool : Runnable::run, null);
+
+                String context = "graph " + n;
+                if (fromPremises[query] == UNREACHED) {
+                    assertNull(path, context);
+                    continue;
+                }
+                assertNotNull(path, context);
+                assertEquals(fromPremises[query], path.length - 1, context);
+                int first = path[0];
+                assertTrue(Arrays.stream(premises).anyMatch(premise -> premise == first), context);
+                assertEquals(query, path[path.length - 1], context);
+                for (int i = 0; i + 1 < path.length; i++) {
+                    int from = path[i], to = path[i + 1];
+                    assertTrue(Arrays.stream(outEdges[from]).anyMatch(id -> id == to), context);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void checkpointFailureEndsTheSearch() {
+        int nodes = 2000;
+        int[][] outEdges = new int[nodes][];
+        for (int id = 0; id < nodes; id++)
+            outEdges[id] = (id + 1 < nodes) ? new int[] { id + 1 } : new int[0];
+        int[] estimates = new int[nodes];
+        BidirectionalSearch search = new BidirectionalSearch(outEdges, reverse(outEdges), estimates, estimates, 3);
+
+        AtomicInteger expansions = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            IllegalStateException stopped = assertThrows(IllegalStateException.class,
+                    () -> search.search(new int[] { 0 }, nodes - 1, pool, () -> {
+                        if (expansions.incrementAndGet() > 50)
+                            throw new IllegalStateException("Stopped.");
+                    }));
+            assertEquals("Stopped.", stopped.getMessage());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static int[][] randomEdges(Random random, int nodes) {
+        List<List<Integer>> out = new ArrayList<>();
+        for (int id = 0; id < nodes; id++)
+            out.add(new ArrayList<>());
+        for (int e = random.nextInt(nodes * 3); e > 0; e--) {
+            int from = random.nextInt(nodes), to = random.nextInt(nodes);
+            if (from != to && !out.get(from).contains(to))
+                out.get(from).add(to);
+        }
+        int[][] edges = new int[nodes][];
+        for (int id = 0; id < nodes; id++)
+            edges[id] = out.get(id).stream().mapToInt(Integer::intValue).toArray();
+        return edges;
+    }
+
+    private static int[][] reverse(int[][] edges) {
+        List<List<Integer>> in = new ArrayList<>();
+        for (int id = 0; id < edges.length; id++)
+            in.add(new ArrayList<>());
+        for (int from = 0; from < edges.length; from++) {
+            for (int to : edges[from])
+                in.get(to).add(from);
+        }
+        int[][] reversed = new int[edges.length][];
+        for (int id = 0; id < edges.length; id++)
+            reversed[id] = in.get(id).stream().mapToInt(Integer::intValue).toArray();
+        return reversed;
+    }
+
+    /**
+     * @return edge count of a shortest path from any source to each node, {@link #UNREACHED} if there is none
+     */
+    private static int[] distances(int[][] edges, int[] sources) {
+        int[] distances = new int[edges.length];
+        Arrays.fill(distances, UNREACHED);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int source : sources) {
+            if (distances[source] != 0) {
+                distances[source] = 0;
+                queue.add(source);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (int next : edges[node]) {
+                if (distances[next] == UNREACHED) {
+                    distances[next] = distances[node] + 1;
+                    queue.add(next);
+                }
+            }
+        }
+        return distances;
+    }
+}
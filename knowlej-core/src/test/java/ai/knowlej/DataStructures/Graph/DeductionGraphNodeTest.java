@@ -0,0 +1,34 @@
+package ai.knowlej.DataStructures.Graph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import ai.knowlej.PropositionalLogic.Logic.Proposition;
+
+class DeductionGraphNodeTest {
+
+    @Test
+    void expressionIsFixedOnceInAGraph() throws Exception {
+        DeductionGraphNode detached = new DeductionGraphNode("A -> B");
+        detached.setExpression("B -> C");
+        assertEquals("B -> C", detached.getExpression());
+
+        DirectedDeductionGraph graph = new DirectedDeductionGraph(new HashSet<>(List.of("A -> B", "A")),
+                new Proposition("B"));
+        DeductionGraphNode premise = graph.getNode("A -> B");
+        assertThrows(IllegalStateException.class, () -> premise.setExpression("C"));
+        DeductionGraphNode added = graph.add("~A | B");
+        assertThrows(IllegalStateException.class, () -> added.setExpression("C"));
+
+        // The index still finds each node under the formula it was added with
+        assertSame(premise, graph.getNode("A->B"));
+        assertSame(added, graph.getNode("~A|B"));
+        assertEquals(-1, graph.findNodeIndex("C"));
+    }
+}
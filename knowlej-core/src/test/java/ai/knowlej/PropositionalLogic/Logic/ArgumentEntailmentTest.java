@@ -0,0 +1,100 @@
+package ai.knowlej.PropositionalLogic.Logic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import ai.knowlej.PropositionalLogic.Logic.Argument.EntailmentMode;
+import ai.knowlej.PropositionalLogic.Models.LogicModels.DeterministicModel;
+import ai.knowlej.PropositionalLogic.Models.LogicModels.ModelAbstract;
+
+class ArgumentEntailmentTest {
+    /** knowledge base, then query and expected answer pairs */
+    private static final String[][][] CASES = {
+        { { "A -> B", "A" }, { "B", "True" }, { "~B", "False" }, { "A & B", "True" }, { "B | ~A", "True" } },
+        { { "A | B", "~A" }, { "B", "True" }, { "A", "False" }, { "A <> B", "False" } },
+        { { "A -> B", "B -> C", "C -> D" }, { "A -> D", "True" }, { "D", "Uncertain" }, { "~D -> ~A", "True" } },
+        { { "A >-< B", "B" }, { "A", "False" }, { "~A & B", "True" } },
+        { { "(A & B) | (C & D)", "~C" }, { "A", "True" }, { "D", "Uncertain" }, { "~(A & B)", "False" } },
+        { { "A <> ~B", "B <> ~C" }, { "A <> C", "True" }, { "A", "Uncertain" }, { "A >-< C", "False" } },
+    };
+
+    @Test
+    void satAndBddModesAnswerLikeTheTruthTable() throws Exception {
+        for (String[][] kbCase : CASES) {
+            Argument<ModelAbstract> truthTable = new Argument<>(models(kbCase[0]), false, EntailmentMode.TRUTH_TABLE);
+            Argument<ModelAbstract> sat = new Argument<>(models(kbCase[0]), false, EntailmentMode.SAT);
+            Argument<ModelAbstract> bdd = new Argument<>(models(kbCase[0]), false, EntailmentMode.BDD);
+            for (int q = 1; q < kbCase.length; q++) {
+                String query = kbCase[q][0], expected = kbCase[q][1];
+                String context = String.join(", ", kbCase[0]) + " |= " + query;
+                assertEquals(expected, truthTable.checkAllTTModels(query), context);
+                assertEquals(expected, sat.checkAllTTModels(query), "SAT: " + context);
+                assertEquals(expected, bdd.checkAllTTModels(query), "BDD: " + context);
+            }
+        }
+    }
+
+    @Test
+    void satModeIsNotLimitedToFifteenOperands() throws Exception {
+        // A chain of implications over 24 operands, more than a truth table allows
+        String letters = "ABCDEGHIJKLMNOPQRSUVWXYZ";
+        String[] chain = new String[letters.length()];
+        chain[0] = "A";
+        for (int i = 1; i < letters.length(); i++)
+            chain[i] = letters.charAt(i - 1) + " -> " + letters.charAt(i);
+
+        Argument<ModelAbstract> sat = new Argument<>(models(chain), false, EntailmentMode.SAT);
+        assertEquals("True", sat.checkAllTTModels("Z"));
+        assertEquals("False", sat.checkAllTTModels("~Y"));
+        assertEquals("True", sat.checkAllTTModels("A & M & Z"));
+    }
+
+    @Test
+    void randomKnowledgeBasesAgreeWithTruthTable() throws Exception {
+        RandomFormulas formulas = new RandomFormulas(3);
+        for (int k = 0; k < 120; k++) {
+            int operands = 1 + formulas.random().nextInt(RandomFormulas.OPERANDS.length());
+            List<ExpressionTree> kb = new ArrayList<>();
+            for (int i = 1 + formulas.random().nextInt(4); i > 0; i--)
+                kb.add(formulas.formula(3, operands));
+            // The truth table rejects a knowledge base without models
+            if (!RandomFormulas.satisfiable(kb))
+                continue;
+
+            ModelAbstract[] models = models(kb.stream().map(ExpressionTree::toString).toArray(String[]::new));
+            Argument<ModelAbstract> truthTable = new Argument<>(models, false, EntailmentMode.TRUTH_TABLE);
+            Argument<ModelAbstract> sat = new Argument<>(models, false, EntailmentMode.SAT);
+            Argument<ModelAbstract> bdd = new Argument<>(models, false, EntailmentMode.BDD);
+
+            String kbOperands = RandomFormulas.operandsOf(kb);
+            for (int q = 0; q < 8; q++) {
+                ExpressionTree query = formulas.formula(3, kbOperands);
+                String expected = truthTable.checkAllTTModels(query.toString());
+                String context = kb + " |= " + query;
+                assertEquals(expected, expectedAnswer(kb, query), context);
+                assertEquals(expected, sat.checkAllTTModels(query.toString()), "SAT: " + context);
+                assertEquals(expected, bdd.checkAllTTModels(query.toString()), "BDD: " + context);
+            }
+            assertEquals(truthTable.countKBModels(), bdd.countKBModels(), "BDD model count: " + kb);
+        }
+    }
+
+    private static String expectedAnswer(List<ExpressionTree> kb, ExpressionTree query) {
+        if (RandomFormulas.entails(kb, query))
+            return "True";
+        if (RandomFormulas.entails(kb, ExpressionTree.not(query)))
+            return "False";
+        return "Uncertain";
+    }
+
+    private static ModelAbstract[] models(String... expressions) throws Exception {
+        ModelAbstract[] models = new ModelAbstract[expressions.length];
+        for (int i = 0; i < expressions.length; i++)
+            models[i] = new DeterministicModel("m" + i, expressions[i]);
+        return models;
+    }
+}
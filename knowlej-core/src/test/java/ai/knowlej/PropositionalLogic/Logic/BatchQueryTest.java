@@ -0,0 +1,63 @@
+package ai.knowlej.PropositionalLogic.Logic;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import ai.knowlej.PropositionalLogic.Logic.Argument.EntailmentMode;
+import ai.knowlej.PropositionalLogic.Models.LogicModels.DeterministicModel;
+import ai.knowlej.PropositionalLogic.Models.LogicModels.ModelAbstract;
+
+class BatchQueryTest {
+
+    @Test
+    void batchAnswersMatchSingleAnswersInOrder() throws Exception {
+        ModelAbstract[] models = {
+            new DeterministicModel("m0", "A -> B"),
+            new DeterministicModel("m1", "B -> C | D"),
+            new DeterministicModel("m2", "A | E"),
+            new DeterministicModel("m3", "~(C & D)"),
+        };
+        Argument<ModelAbstract> argument = new Argument<>(models, false);
+
+        RandomFormulas formulas = new RandomFormulas(29);
+        String[] queries = new String[200];
+        for (int i = 0; i < queries.length; i++)
+            queries[i] = formulas.formula(3, "ABCDE").toString();
+        // Decided on the first word: a tautology, a contradiction and an operand the KB leaves open
+        queries[0] = "A | ~A";
+        queries[1] = "E & ~E";
+        queries[2] = "E";
+
+        String[] answers = argument.checkAllTTModels(queries);
+        assertEquals(queries.length, answers.length);
+        for (int i = 0; i < queries.length; i++)
+            assertEquals(argument.checkAllTTModels(new Proposition(queries[i])), answers[i], queries[i]);
+        assertEquals("True", answers[0]);
+        assertEquals("False", answers[1]);
+        assertEquals("Uncertain", answers[2]);
+    }
+
+    @Test
+    void commaSeparatedQueriesGoThroughTheBatch() throws Exception {
+        ModelAbstract[] models = { new DeterministicModel("m0", "A -> B"), new DeterministicModel("m1", "A") };
+        Argument<ModelAbstract> argument = new Argument<>(models, false);
+        assertEquals("True, False, True", argument.checkAllTTModels("B,~B,A & B"));
+        assertArrayEquals(new String[] { "True", "False", "True" },
+                argument.checkAllTTModels(new String[] { "B", "~B", "A & B" }));
+    }
+
+    @Test
+    void satModeAnswersTheBatchOneQueryAtATime() throws Exception {
+        ModelAbstract[] models = {
+            new DeterministicModel("m0", "A <> B"),
+            new DeterministicModel("m1", "B >-< C"),
+            new DeterministicModel("m2", "C | D"),
+        };
+        String[] queries = { "A -> ~C", "D", "A & D", "~A -> C", "B | C" };
+        Argument<ModelAbstract> truthTable = new Argument<>(models, false);
+        Argument<ModelAbstract> sat = new Argument<>(models, false, EntailmentMode.SAT);
+        assertArrayEquals(truthTable.checkAllTTModels(queries), sat.checkAllTTModels(queries));
+    }
+}
@@ -0,0 +1,81 @@
+package ai.knowlej.PropositionalLogic.Logic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToDoubleFunction;
+
+import org.junit.jupiter.api.Test;
+
+import ai.knowlej.DataStructures.Graph.BeamScores;
+import ai.knowlej.DataStructures.Graph.DeductionGraphNode;
+import ai.knowlej.DataStructures.Logic.DeductionResult;
+import ai.knowlej.DataStructures.Logic.DeductionResult.Status;
+import ai.knowlej.PropositionalLogic.Models.LogicModels.DeterministicModel;
+import ai.knowlej.PropositionalLogic.Models.LogicModels.ModelAbstract;
+
+class BeamSearchTest {
+
+    @Test
+    void everyWidthProvesTheChain() throws Exception {
+        for (int width = 1; width <= 4; width++) {
+            Argument<ModelAbstract> argument = chain();
+            argument.setBeamWidth(width);
+            DeductionResult result = argument.deduce(new Proposition("D"), null, Integer.MAX_VALUE, null);
+            assertEquals(Status.PROVED, result.status(), "width " + width);
+            List<DeductionGraphNode> proof = result.proof().proof();
+            assertEquals("D", proof.get(proof.size() - 1).getExpression(), "width " + width);
+        }
+    }
+
+    @Test
+    void beamDerivesLessThanTheFullSearch() throws Exception {
+        Argument<ModelAbstract> full = chain();
+        int fullNodes = full.deduce(new Proposition("D"), null, Integer.MAX_VALUE, null).forwardFrontier().size();
+
+        Argument<ModelAbstract> beam = chain();
+        beam.setBeamWidth(2);
+        int beamNodes = beam.deduce(new Proposition("D"), null, Integer.MAX_VALUE, null).forwardFrontier().size();
+        assertTrue(beamNodes < fullNodes, () -> beamNodes + " beam nodes, " + fullNodes + " without a beam");
+    }
+
+    @Test
+    void nodesAreRankedByTheGivenScore() throws Exception {
+        ExpressionTree goal = new Proposition("D").getExpressionTree();
+        for (ToDoubleFunction<DeductionGraphNode> score : List.of(BeamScores.formulaSize(),
+                BeamScores.operandOverlap(goal))) {
+            AtomicInteger scored = new AtomicInteger();
+            Argument<ModelAbstract> argument = chain();
+            argument.setBeamWidth(3);
+            argument.setBeamScore(node -> {
+                scored.incrementAndGet();
+                return score.applyAsDouble(node);
+            });
+            assertEquals(Status.PROVED, argument.deduce(new Proposition("D"), null, Integer.MAX_VALUE, null).status());
+            assertTrue(scored.get() > 0, "the score was never asked");
+        }
+    }
+
+    @Test
+    void widthMustNotBeNegative() throws Exception {
+        Argument<ModelAbstract> argument = chain();
+        assertEquals(0, argument.getBeamWidth());
+        assertNull(argument.getBeamScore());
+        assertThrows(IllegalArgumentException.class, () -> argument.setBeamWidth(-1));
+        assertEquals(0, argument.getBeamWidth());
+    }
+
+    private static Argument<ModelAbstract> chain() throws Exception {
+        ModelAbstract[] models = {
+            new DeterministicModel("m0", "A -> B"),
+            new DeterministicModel("m1", "A"),
+            new DeterministicModel("m2", "B -> C"),
+            new DeterministicModel("m3", "C -> D"),
+        };
+        return new Argument<>(models, false);
+    }
+}
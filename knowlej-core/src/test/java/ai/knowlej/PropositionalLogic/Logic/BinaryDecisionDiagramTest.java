@@ -0,0 +1,85 @@
+package ai.knowlej.PropositionalLogic.Logic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks compiled decision diagrams against the truth table on random formulas.
+ */
+class BinaryDecisionDiagramTest {
+
+    @Test
+    void equivalentFormulasShareOneNode() throws Exception {
+        BinaryDecisionDiagram diagram = new BinaryDecisionDiagram();
+        int conditional = diagram.compile(tree("A -> B"));
+        assertEquals(conditional, diagram.compile(tree("~A | B")));
+        assertEquals(conditional, diagram.compile(tree("~B -> ~A")));
+        assertNotEquals(conditional, diagram.compile(tree("B -> A")));
+        assertEquals(diagram.compile(tree("A & B | A & C")), diagram.compile(tree("A & (C | B)")));
+        assertEquals(diagram.compile(tree("A | ~A")), diagram.compile(tree("B <> B")));
+    }
+
+    @Test
+    void modelCountsMatchTruthTable() {
+        RandomFormulas formulas = new RandomFormulas(7);
+        for (int n = 0; n < 300; n++) {
+            int operands = 1 + formulas.random().nextInt(RandomFormulas.OPERANDS.length());
+            String order = RandomFormulas.OPERANDS.substring(0, operands);
+            ExpressionTree formula = formulas.formula(3, operands);
+
+            // Every operand up front, so the count covers the same assignments as the truth table
+            BinaryDecisionDiagram diagram = new BinaryDecisionDiagram(order.toCharArray());
+            int root = diagram.compile(formula);
+            long models = RandomFormulas.countModels(formula, order);
+            assertEquals(models, diagram.countModels(root), formula::toString);
+            assertEquals(models == 1L << operands, diagram.isTautology(root), formula::toString);
+            assertEquals(models == 0, diagram.isContradiction(root), formula::toString);
+        }
+    }
+
+    @Test
+    void sharedStoreDecidesEquivalenceAndEntailment() {
+        RandomFormulas formulas = new RandomFormulas(8);
+        // One store for every formula, with variables added in whatever order compiling meets them
+        BinaryDecisionDiagram diagram = new BinaryDecisionDiagram();
+        for (int n = 0; n < 500; n++) {
+            ExpressionTree a = formulas.formula(3, 5);
+            ExpressionTree b = formulas.formula(3, 5);
+            int rootA = diagram.compile(a);
+            int rootB = diagram.compile(b);
+            assertEquals(RandomFormulas.equivalent(a, b), diagram.equivalent(rootA, rootB), () -> a + " == " + b);
+            assertEquals(RandomFormulas.entails(List.of(a), b), diagram.entails(rootA, rootB), () -> a + " |= " + b);
+        }
+    }
+
+    @Test
+    void rollbackFreesWhatWasCompiledSinceTheCheckpoint() throws Exception {
+        BinaryDecisionDiagram diagram = new BinaryDecisionDiagram();
+        int kb = diagram.compile(tree("(A -> B) & (B -> C)"));
+        int nodes = diagram.getNodeCount();
+        int checkpoint = diagram.checkpoint();
+
+        int query = diagram.compile(tree("A -> C | D"), false);
+        assertTrue(diagram.entails(kb, query));
+        assertEquals(4, diagram.getVariableCount());
+        diagram.rollback(checkpoint);
+        assertEquals(nodes, diagram.getNodeCount());
+        assertEquals("ABC", new String(diagram.getVariables()));
+
+        // The store answers as if the query had never been compiled
+        assertEquals(kb, diagram.compile(tree("(A -> B) & (B -> C)")));
+        int other = diagram.compile(tree("D & A"));
+        assertEquals(RandomFormulas.countModels(tree("D & A"), "ABCD"), diagram.countModels(other));
+        assertFalse(diagram.entails(kb, other));
+    }
+
+    private static ExpressionTree tree(String expression) throws Exception {
+        return new Proposition(expression).getExpressionTree();
+    }
+}
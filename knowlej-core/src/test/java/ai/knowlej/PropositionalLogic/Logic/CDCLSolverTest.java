@@ -0,0 +1,214 @@
+package ai.knowlej.PropositionalLogic.Logic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class CDCLSolverTest {
+
+    @Test
+    void contradictoryClausesAreUnsatisfiable() {
+        CDCLSolver solver = new CDCLSolver();
+        int a = solver.newVariable();
+        int b = solver.newVariable();
+        solver.addClause(a, b);
+        solver.addClause(-a, b);
+        solver.addClause(a, -b);
+        assertTrue(solver.solve());
+        assertTrue(solver.modelValue(a) && solver.modelValue(b));
+        solver.addClause(-a, -b);
+        assertFalse(solver.solve());
+    }
+
+    @Test
+    void pigeonsOnlyFitOnePerHole() {
+        for (int holes = 1; holes <= 5; holes++) {
+            assertTrue(pigeonhole(holes, holes).solve(), holes + " pigeons in " + holes + " holes");
+            assertFalse(pigeonhole(holes + 1, holes).solve(), (holes + 1) + " pigeons in " + holes + " holes");
+        }
+    }
+
+    @Test
+    void randomClausesMatchEnumeration() {
+        Random random = new Random(5);
+        for (int n = 0; n < 400; n++) {
+            int variables = 3 + random.nextInt(10);
+            // Around the 3-SAT threshold of 4.26 clauses per variable, where both answers are common
+            List<int[]> clauses = randomClauses(random, variables, 2 * variables + random.nextInt(4 * variables));
+
+            CDCLSolver solver = new CDCLSolver();
+            for (int v = 0; v < variables; v++)
+                solver.newVariable();
+            for (int[] clause : clauses)
+                solver.addClause(clause);
+
+            boolean satisfiable = solver.solve();
+            assertEquals(enumerate(clauses, variables, new int[0]), satisfiable, "formula " + n);
+            if (satisfiable) {
+                boolean[] model = new boolean[variables + 1];
+                for (int v = 1; v <= variables; v++)
+                    model[v] = solver.modelValue(v);
+                for (int[] clause : clauses)
+                    assertTrue(satisfies(model, clause), () -> "Model falsifies " + Arrays.toString(clause));
+            }
+        }
+    }
+
+    @Test
+    void assumptionsOnlyHoldForOneCall() {
+        Random random = new Random(6);
+        for (int n = 0; n < 200; n++) {
+            int variables = 4 + random.nextInt(8);
+            List<int[]> clauses = randomClauses(random, variables, 3 * variables);
+            CDCLSolver solver = new CDCLSolver();
+            for (int v = 0; v < variables; v++)
+                solver.newVariable();
+            for (int[] clause : clauses)
+                solver.addClause(clause);
+
+            // Clauses learnt under one set of assumptions must not decide the next call
+            for (int call = 0; call < 10; call++) {
+                int[] assumptions = new int[random.nextInt(4)];
+                for (int i = 0; i < assumptions.length; i++)
+                    assumptions[i] = (1 + random.nextInt(variables)) * (random.nextBoolean() ? 1 : -1);
+                assertEquals(enumerate(clauses, variables, assumptions), solver.solve(assumptions),
+                        "formula " + n + " under " + Arrays.toString(assumptions));
+            }
+        }
+    }
+
+    @Test
+    void learntClausesAreReduced() {
+        CDCLSolver solver = pigeonhole(8, 7);
+        assertFalse(solver.solve());
+        assertTrue(solver.getLearntCount() < solver.getConflictCount() / 2,
+                () -> solver.getLearntCount() + " learnt clauses kept of " + solver.getConflictCount());
+    }
+
+    @Test
+    void releasedClausesNoLongerConstrain() {
+        Random random = new Random(7);
+        for (int n = 0; n < 100; n++) {
+            int variables = 4 + random.nextInt(6);
+            List<int[]> clauses = randomClauses(random, variables, 2 * variables);
+            CDCLSolver solver = new CDCLSolver();
+            for (int v = 0; v < variables; v++)
+                solver.newVariable();
+            for (int[] clause : clauses)
+                solver.addClause(clause);
+            boolean satisfiable = enumerate(clauses, variables, new int[0]);
+
+            for (int query = 0; query < 10; query++) {
+                // Each query brings a variable of its own next to its activation variable
+                int activation = solver.newVariable(), own = solver.newVariable();
+                List<int[]> guarded = new ArrayList<>(clauses);
+                for (int[] clause : randomClauses(random, variables, 1 + random.nextInt(variables))) {
+                    int[] literals = Arrays.copyOf(clause, clause.length + 2);
+                    literals[clause.length] = random.nextBoolean() ? own : -own;
+                    literals[clause.length + 1] = -activation;
+                    solver.addClause(literals);
+                    guarded.add(literals);
+                }
+                String context = "formula " + n + ", query " + query;
+                assertEquals(enumerate(guarded, variables + 2, new int[] { activation }), solver.solve(activation),
+                        context);
+
+                solver.release(activation, own);
+                assertEquals(satisfiable, solver.solve(), context);
+                assertEquals(variables + 2, solver.getVariableCount(), context);
+            }
+        }
+    }
+
+    @Test
+    void encodedQueriesAreReleased() {
+        RandomFormulas formulas = new RandomFormulas(8);
+        for (int n = 0; n < 50; n++) {
+            List<ExpressionTree> kb = List.of(formulas.formula(2, 4), formulas.formula(2, 4));
+            CDCLSolver solver = new CDCLSolver();
+            TseitinEncoder encoder = new TseitinEncoder(solver);
+            for (ExpressionTree model : kb)
+                encoder.assertFormula(model);
+            int variables = solver.getVariableCount();
+
+            int mostVariables = variables;
+            for (int query = 0; query < 20; query++) {
+                ExpressionTree formula = formulas.formula(3, 6);
+                int activation = encoder.beginQuery();
+                int literal = encoder.literal(formula);
+                assertEquals(RandomFormulas.entails(kb, formula), !solver.solve(activation, -literal),
+                        () -> kb + " |= " + formula);
+                mostVariables = Math.max(mostVariables, solver.getVariableCount());
+                encoder.endQuery();
+            }
+            // Variables are reused from query to query, so only the largest query's count is ever added
+            assertTrue(mostVariables - variables < 40, (mostVariables - variables) + " query variables");
+            assertEquals(RandomFormulas.satisfiable(kb), solver.solve());
+        }
+    }
+
+    /**
+     * @return solver for putting each pigeon in a hole with no hole holding two pigeons
+     */
+    private static CDCLSolver pigeonhole(int pigeons, int holes) {
+        CDCLSolver solver = new CDCLSolver();
+        int[][] in = new int[pigeons][holes];
+        for (int p = 0; p < pigeons; p++) {
+            for (int h = 0; h < holes; h++)
+                in[p][h] = solver.newVariable();
+            solver.addClause(in[p]);
+        }
+        for (int h = 0; h < holes; h++) {
+            for (int p = 0; p < pigeons; p++) {
+                for (int q = p + 1; q < pigeons; q++)
+                    solver.addClause(-in[p][h], -in[q][h]);
+            }
+        }
+        return solver;
+    }
+
+    private static List<int[]> randomClauses(Random random, int variables, int count) {
+        List<int[]> clauses = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int[] clause = new int[1 + random.nextInt(3)];
+            for (int k = 0; k < clause.length; k++)
+                clause[k] = (1 + random.nextInt(variables)) * (random.nextBoolean() ? 1 : -1);
+            clauses.add(clause);
+        }
+        return clauses;
+    }
+
+    private static boolean enumerate(List<int[]> clauses, int variables, int[] assumptions) {
+        boolean[] model = new boolean[variables + 1];
+        search:
+        for (int assignment = 0; assignment < 1 << variables; assignment++) {
+            for (int v = 1; v <= variables; v++)
+                model[v] = (assignment & (1 << (v - 1))) != 0;
+            for (int assumption : assumptions) {
+                if (!satisfies(model, assumption))
+                    continue search;
+            }
+            for (int[] clause : clauses) {
+                if (!satisfies(model, clause))
+                    continue search;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean satisfies(boolean[] model, int... clause) {
+        for (int literal : clause) {
+            if (model[Math.abs(literal)] == (literal > 0))
+                return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,84 @@
+package ai.knowlej.PropositionalLogic.Logic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import ai.knowlej.DataStructures.Logic.DeductionResult;
+import ai.knowlej.DataStructures.Logic.DeductionResult.Status;
+import ai.knowlej.PropositionalLogic.Models.LogicModels.DeterministicModel;
+import ai.knowlej.PropositionalLogic.Models.LogicModels.ModelAbstract;
+
+class DeductionBudgetTest {
+
+    @Test
+    void unlimitedBudgetProves() throws Exception {
+        DeductionResult result = chain().deduce(new Proposition("D"), null, Integer.MAX_VALUE, null);
+        assertEquals(Status.PROVED, result.status());
+        assertTrue(result.isProved());
+        assertFalse(result.isPartial());
+        assertNotNull(result.proof().proof());
+    }
+
+    @Test
+    void elapsedTimeBudgetStopsChaining() throws Exception {
+        DeductionResult result = chain().deduce(new Proposition("D"), Duration.ZERO, Integer.MAX_VALUE, null);
+        assertEquals(Status.TIMED_OUT, result.status());
+        assertTrue(result.isPartial());
+        assertNull(result.proof().proof());
+        assertFalse(result.forwardFrontier().isEmpty(), "premises are part of the forward frontier");
+    }
+
+    @Test
+    void nodeBudgetStopsChaining() throws Exception {
+        DeductionResult result = chain().deduce(new Proposition("D"), null, 10, null);
+        assertEquals(Status.NODE_LIMIT, result.status());
+        assertTrue(result.isPartial());
+        // Checked before every node is merged, so the graph never passes the budget
+        assertTrue(result.forwardFrontier().size() <= 10, () -> result.forwardFrontier().size() + " forward nodes");
+    }
+
+    @Test
+    void cancellationStopsChaining() throws Exception {
+        AtomicInteger polls = new AtomicInteger();
+        DeductionResult result = chain().deduce(new Proposition("D"), null, Integer.MAX_VALUE,
+                () -> polls.incrementAndGet() > 3);
+        assertEquals(Status.CANCELLED, result.status());
+        assertTrue(polls.get() > 3);
+    }
+
+    @Test
+    void partialResultIsNotCached() throws Exception {
+        Argument<ModelAbstract> argument = chain();
+        assertEquals(Status.CANCELLED, argument.deduce(new Proposition("D"), null, Integer.MAX_VALUE, () -> true)
+                .status());
+        assertEquals(Status.PROVED, argument.deduce(new Proposition("D"), null, Integer.MAX_VALUE, null).status());
+    }
+
+    @Test
+    void nodeBudgetMustBePositive() throws Exception {
+        Argument<ModelAbstract> argument = chain();
+        assertThrows(IllegalArgumentException.class, () -> argument.deduce(new Proposition("D"), null, 0, null));
+    }
+
+    /**
+     * @return KB proving D in three modus ponens steps
+     */
+    private static Argument<ModelAbstract> chain() throws Exception {
+        ModelAbstract[] models = {
+            new DeterministicModel("m0", "A -> B"),
+            new DeterministicModel("m1", "A"),
+            new DeterministicModel("m2", "B -> C"),
+            new DeterministicModel("m3", "C -> D"),
+        };
+        return new Argument<>(models, false);
+    }
+}
@@ -0,0 +1,88 @@
+package ai.knowlej.PropositionalLogic.Logic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import ai.knowlej.DataStructures.Graph.DeductionGraphNode;
+import ai.knowlej.DataStructures.Graph.DeductionHeuristic;
+import ai.knowlej.DataStructures.Graph.DirectedDeductionGraph;
+import ai.knowlej.DataStructures.Logic.DeductionResult;
+import ai.knowlej.DataStructures.Logic.DeductionResult.Status;
+import ai.knowlej.DataStructures.Logic.Proof;
+import ai.knowlej.PropositionalLogic.Models.LogicModels.DeterministicModel;
+import ai.knowlej.PropositionalLogic.Models.LogicModels.ModelAbstract;
+
+class DerivationCacheTest {
+
+    @Test
+    void settingChangesOnlyForgetUnprovedQueries() throws Exception {
+        DerivationCache cache = new DerivationCache();
+        DirectedDeductionGraph graph = new DirectedDeductionGraph(new HashSet<>(List.of("A", "A -> B")),
+                new Proposition("B"));
+        ExpressionTree proved = new Proposition("B").getExpressionTree();
+        ExpressionTree unproved = new Proposition("C").getExpressionTree();
+
+        DeductionGraphNode premise = graph.getPremiseNodes().get(0);
+        cache.record(proved, graph, result(Status.PROVED, new ArrayList<>(List.of(premise))));
+        cache.record(unproved, graph, result(Status.NOT_PROVED, null));
+        assertEquals(Status.NOT_PROVED, cache.getResult(unproved).status());
+
+        cache.clearUnproved();
+        assertNull(cache.getResult(unproved));
+        assertEquals(Status.PROVED, cache.getResult(proved).status());
+
+        cache.clear();
+        assertNull(cache.getResult(proved));
+    }
+
+    @Test
+    void everyHitHasItsOwnProof() throws Exception {
+        DerivationCache cache = new DerivationCache();
+        DirectedDeductionGraph graph = new DirectedDeductionGraph(new HashSet<>(List.of("A")), new Proposition("A"));
+        ExpressionTree query = new Proposition("A").getExpressionTree();
+        cache.record(query, graph, result(Status.PROVED, new ArrayList<>(graph.getPremiseNodes())));
+
+        cache.getResult(query).proof().proof().clear();
+        assertEquals(1, cache.getResult(query).proof().proof().size());
+    }
+
+    @Test
+    void argumentKeepsProofsUntilItsKnowledgeBaseChanges() throws Exception {
+        ModelAbstract[] models = {
+            new DeterministicModel("m0", "A -> B"),
+            new DeterministicModel("m1", "A"),
+            new DeterministicModel("m2", "B -> C"),
+            new DeterministicModel("m3", "C -> D"),
+        };
+        Argument<ModelAbstract> argument = new Argument<>(models, false);
+        DeductionResult first = argument.deduce(new Proposition("D"), null, Integer.MAX_VALUE, null);
+
+        // A hit shares the frontiers of the deduction that produced it
+        assertSame(first.forwardFrontier(), deduceD(argument).forwardFrontier());
+        argument.setDeductionHeuristic(DeductionHeuristic.NONE);
+        argument.setSemiNaiveEvaluation(false);
+        assertSame(first.forwardFrontier(), deduceD(argument).forwardFrontier(), "proofs outlive setting changes");
+
+        // Even the same models again make a new knowledge base
+        argument.setKnowledgeBase(models);
+        DeductionResult afterChange = deduceD(argument);
+        assertEquals(Status.PROVED, afterChange.status());
+        assertNotSame(first.forwardFrontier(), afterChange.forwardFrontier());
+    }
+
+    private static DeductionResult deduceD(Argument<ModelAbstract> argument) throws Exception {
+        return argument.deduce(new Proposition("D"), null, Integer.MAX_VALUE, null);
+    }
+
+    private static DeductionResult result(Status status, ArrayList<DeductionGraphNode> proof) {
+        return new DeductionResult(new Proof(proof), status, List.of(), List.of(), null, null);
+    }
+}
@@ -0,0 +1,79 @@
+package ai.knowlej.PropositionalLogic.Logic;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that saturation only merges formulas the truth table finds equivalent, and that it merges each formula
+ * with its rewrites.
+ */
+class EGraphTest {
+
+    @Test
+    void mergesAConditionalWithItsDisjunction() throws Exception {
+        ExpressionTree conditional = tree("A -> B"), disjunction = tree("~A | B"), converse = tree("B -> A");
+        EGraph graph = new EGraph();
+        graph.add(conditional);
+        graph.add(disjunction);
+        graph.add(converse);
+        assertFalse(graph.equivalent(conditional, disjunction), "merged before saturating");
+
+        graph.saturate(2);
+        assertTrue(graph.equivalent(conditional, disjunction));
+        assertTrue(graph.equivalent(disjunction, conditional));
+        assertFalse(graph.equivalent(conditional, converse));
+        assertFalse(graph.equivalent(conditional, tree("A")), "never added");
+    }
+
+    @Test
+    void saturationStopsAtTheNodeBound() throws Exception {
+        EGraph graph = new EGraph(24);
+        graph.add(tree("(A & B | C) -> ~(D | E & A)"));
+        assertTrue(graph.saturate(100), "stopped with formulas still queued");
+        // A rewrite is added whole, so the bound is passed by at most the nodes of one rewrite
+        assertTrue(graph.getNodeCount() < 48, () -> graph.getNodeCount() + " e-nodes");
+    }
+
+    @Test
+    void mergedFormulasAreEquivalent() {
+        RandomFormulas formulas = new RandomFormulas(19);
+        for (int n = 0; n < 40; n++) {
+            EGraph graph = new EGraph(2048);
+            List<ExpressionTree> added = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                ExpressionTree formula = formulas.formula(2, 3);
+                graph.add(formula);
+                added.add(formula);
+            }
+            graph.saturate(2);
+            for (ExpressionTree a : added) {
+                for (ExpressionTree b : added) {
+                    if (graph.equivalent(a, b))
+                        assertTrue(RandomFormulas.equivalent(a, b), () -> a + " merged with " + b);
+                }
+            }
+        }
+    }
+
+    @Test
+    void saturationMergesRewrites() {
+        RandomFormulas formulas = new RandomFormulas(20);
+        for (int n = 0; n < 100; n++) {
+            ExpressionTree formula = formulas.formula(2, 4);
+            EGraph graph = new EGraph();
+            graph.add(formula);
+            graph.saturate(1);
+            for (ExpressionTree rewrite : EquivalencyRewriter.allRewrites(formula))
+                assertTrue(graph.equivalent(formula, rewrite), () -> formula + " not merged with " + rewrite);
+        }
+    }
+
+    private static ExpressionTree tree(String expression) throws Exception {
+        return new Proposition(expression).getExpressionTree();
+    }
+}
@@ -0,0 +1,48 @@
+package ai.knowlej.PropositionalLogic.Logic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import ai.knowlej.DataStructures.Graph.DeductionGraphNode;
+import ai.knowlej.DataStructures.Logic.DeductionResult;
+import ai.knowlej.DataStructures.Logic.DeductionResult.Status;
+import ai.knowlej.PropositionalLogic.Models.LogicModels.DeterministicModel;
+import ai.knowlej.PropositionalLogic.Models.LogicModels.ModelAbstract;
+
+class EqualitySaturationTest {
+    private static final List<String> PREMISES = List.of("A -> B", "A", "B -> C", "C -> D");
+
+    @Test
+    void proofsRunFromAPremiseToTheQuery() throws Exception {
+        for (String query : List.of("D", "~~D", "D | D", "B & C", "C & D")) {
+            ModelAbstract[] models = new ModelAbstract[PREMISES.size()];
+            for (int i = 0; i < models.length; i++)
+                models[i] = new DeterministicModel("m" + i, PREMISES.get(i));
+            Argument<ModelAbstract> argument = new Argument<>(models, false);
+            argument.setEqualitySaturation(true);
+
+            DeductionResult result = argument.deduce(new Proposition(query), null, Integer.MAX_VALUE, null);
+            assertEquals(Status.PROVED, result.status(), query);
+            List<DeductionGraphNode> proof = result.proof().proof();
+            ExpressionTree first = proof.get(0).getFormula();
+            assertTrue(PREMISES.stream().anyMatch(premise -> formula(premise) == first),
+                    () -> query + " proved from " + first);
+            assertEquals(formula(query), proof.get(proof.size() - 1).getFormula(), query);
+        }
+    }
+
+    /**
+     * @return interned formula, the same instance for every spelling of it
+     */
+    private static ExpressionTree formula(String expression) {
+        try {
+            return new Proposition(expression).getExpressionTree();
+        } catch (Exception e) {
+            throw new IllegalArgumentException(expression, e);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package ai.knowlej.PropositionalLogic.Logic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import ai.knowlej.PropositionalLogic.Logic.Argument.EquivalencyLaws.Law;
+
+class EquivalencyRewriterTest {
+
+    @Test
+    void lawsRewriteTheirTextbookForms() throws Exception {
+        assertEquals(List.of("~A|~B"), rewrite("~(A & B)").get(Law.DE_MORGANS));
+        assertEquals(List.of("~A|B"), rewrite("A -> B").get(Law.CONDITIONAL_IDENTITY));
+        assertEquals(List.of("A"), rewrite("~~A").get(Law.DOUBLE_NEGATION));
+        assertEquals(List.of("A"), rewrite("A | A").get(Law.IDEMPOTENT));
+        assertEquals(List.of("A&B|A&C"), rewrite("A & (B | C)").get(Law.DISTRIBUTIVE));
+        assertEquals(List.of("A"), rewrite("A | (A & B)").get(Law.ABSORPTION));
+        assertEquals(List.of("A"), rewrite("A & T").get(Law.IDENTITY));
+        assertEquals(List.of("T"), rewrite("A | ~A").get(Law.COMPLEMENT));
+        assertTrue(rewrite("A -> B").get(Law.DE_MORGANS).isEmpty());
+    }
+
+    @Test
+    void rewritesAreEquivalentToTheirSource() {
+        RandomFormulas formulas = new RandomFormulas(11);
+        int rewrites = 0;
+        for (int n = 0; n < 400; n++) {
+            ExpressionTree formula = formulas.formula(3, 4);
+            for (ExpressionTree rewrite : EquivalencyRewriter.allRewrites(formula)) {
+                assertTrue(RandomFormulas.equivalent(formula, rewrite), () -> formula + " rewritten to " + rewrite);
+                rewrites++;
+            }
+        }
+        assertTrue(rewrites > 0, "No formula was rewritten.");
+    }
+
+    @Test
+    void rewritesByLawAreEquivalentToTheirSource() throws Exception {
+        RandomFormulas formulas = new RandomFormulas(12);
+        for (int n = 0; n < 300; n++) {
+            // Shallow, so that rewrites stay within the parser's parenthesis limit when read back
+            ExpressionTree formula = formulas.formula(2, 4);
+            LawResults.Builder<Law> answers = LawResults.builder(Law.class);
+            EquivalencyRewriter.rewrite(formula, answers);
+            LawResults<Law> results = answers.build();
+            for (Law law : results.laws()) {
+                for (String rewrite : results.get(law)) {
+                    ExpressionTree tree = new Proposition(rewrite).getExpressionTree();
+                    assertTrue(RandomFormulas.equivalent(formula, tree), () -> law + ": " + formula + " to " + rewrite);
+                }
+            }
+        }
+    }
+
+    private static LawResults<Law> rewrite(String expression) throws Exception {
+        LawResults.Builder<Law> answers = LawResults.builder(Law.class);
+        EquivalencyRewriter.rewrite(new Proposition(expression).getExpressionTree(), answers);
+        return answers.build();
+    }
+}
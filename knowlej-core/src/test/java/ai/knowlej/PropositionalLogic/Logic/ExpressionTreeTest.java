@@ -0,0 +1,53 @@
+package ai.knowlej.PropositionalLogic.Logic;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+class ExpressionTreeTest {
+
+    @Test
+    void spellingsOfOneFormulaShareOneTree() throws Exception {
+        ExpressionTree tree = new Proposition("(A -> B) & ~C").getExpressionTree();
+        assertSame(tree, new Proposition("(A->B)&~C").getExpressionTree());
+        assertSame(tree, new Proposition("((A -> B)) & (~C)").getExpressionTree());
+        assertSame(tree, ExpressionTree.binary('a',
+                ExpressionTree.binary('m', ExpressionTree.leaf('A'), ExpressionTree.leaf('B')),
+                ExpressionTree.not(ExpressionTree.leaf('C'))));
+    }
+
+    @Test
+    void threadsBuildingTheSameFormulasGetTheSameTrees() throws Exception {
+        RandomFormulas formulas = new RandomFormulas(31);
+        List<String> expressions = new ArrayList<>();
+        for (int i = 0; i < 500; i++)
+            expressions.add(formulas.formula(3, 6).toString());
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<ExpressionTree>>> parses = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                parses.add(pool.submit(() -> {
+                    List<ExpressionTree> trees = new ArrayList<>();
+                    for (String expression : expressions)
+                        trees.add(new Proposition(expression).getExpressionTree());
+                    return trees;
+                }));
+            }
+            List<ExpressionTree> first = parses.get(0).get();
+            for (Future<List<ExpressionTree>> parse : parses) {
+                List<ExpressionTree> trees = parse.get();
+                for (int i = 0; i < trees.size(); i++)
+                    assertSame(first.get(i), trees.get(i), expressions.get(i));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package ai.knowlej.PropositionalLogic.Logic;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import ai.knowlej.PropositionalLogic.Logic.Argument.InferenceLaws.Law;
+
+/**
+ * Checks that every inference the rule index draws is entailed by its premises, by the truth table, both on premise
+ * pairs shaped to fire each rule and on random pairs.
+ */
+class InferenceRuleIndexTest {
+
+    @Test
+    void shapedPremisesFireTheirRuleSoundly() throws Exception {
+        RandomFormulas formulas = new RandomFormulas(17);
+        for (int n = 0; n < 300; n++) {
+            ExpressionTree p = formulas.formula(1, 5), q = formulas.formula(1, 5), r = formulas.formula(1, 5);
+            if (p == q || q == r || p == r)
+                continue;
+            ExpressionTree notP = ExpressionTree.not(p), notQ = ExpressionTree.not(q);
+            ExpressionTree pq = ExpressionTree.binary('m', p, q), qr = ExpressionTree.binary('m', q, r);
+
+            checkPair(p, pq, Law.MODUS_PONENS);
+            checkPair(notQ, pq, Law.MODUS_TOLLENS);
+            checkPair(pq, qr, Law.HYPOTHETICAL_SYLLOGISM);
+            checkPair(ExpressionTree.binary('o', p, q), notP, Law.DISJUNCTIVE_SYLLOGISM);
+            checkPair(ExpressionTree.binary('o', p, q), ExpressionTree.binary('o', notP, r), Law.RESOLUTION);
+            checkPair(p, q, Law.CONJUNCTION);
+            checkSingle(ExpressionTree.binary('a', p, q), Law.SIMPLIFICATION);
+        }
+    }
+
+    @Test
+    void randomPremisesOnlyDrawEntailedConclusions() throws Exception {
+        RandomFormulas formulas = new RandomFormulas(18);
+        for (int n = 0; n < 500; n++) {
+            ExpressionTree first = formulas.formula(2, 3), second = formulas.formula(2, 3);
+            checkPair(first, second, null);
+            checkSingle(first, null);
+        }
+    }
+
+    /**
+     * Applies the pair rules in both premise orders, checking every conclusion is entailed by the pair.
+     *
+     * @param expected law that must derive a conclusion, or null
+     */
+    private static void checkPair(ExpressionTree first, ExpressionTree second, Law expected) throws Exception {
+        for (boolean swapped : new boolean[] { false, true }) {
+            LawResults.Builder<Law> answers = LawResults.builder(Law.class);
+            if (swapped)
+                InferenceRuleIndex.applyPair(second, first, answers);
+            else
+                InferenceRuleIndex.applyPair(first, second, answers);
+            checkConclusions(List.of(first, second), answers.build(), expected);
+        }
+    }
+
+    private static void checkSingle(ExpressionTree premise, Law expected) throws Exception {
+        LawResults.Builder<Law> answers = LawResults.builder(Law.class);
+        InferenceRuleIndex.applySingle(premise, answers);
+        checkConclusions(List.of(premise), answers.build(), expected);
+    }
+
+    private static void checkConclusions(List<ExpressionTree> premises, LawResults<Law> results, Law expected)
+            throws Exception {
+        if (expected != null)
+            assertFalse(results.get(expected).isEmpty(), () -> expected + " did not fire on " + premises);
+        for (Law law : results.laws()) {
+            for (String conclusion : results.get(law)) {
+                ExpressionTree tree = new Proposition(conclusion).getExpressionTree();
+                assertTrue(RandomFormulas.entails(premises, tree), () -> law + ": " + premises + " to " + conclusion);
+            }
+        }
+    }
+}
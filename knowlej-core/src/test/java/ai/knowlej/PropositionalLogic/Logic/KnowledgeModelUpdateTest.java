@@ -0,0 +1,88 @@
+package ai.knowlej.PropositionalLogic.Logic;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import ai.knowlej.PropositionalLogic.Models.LogicModels.DeterministicModel;
+import ai.knowlej.PropositionalLogic.Models.LogicModels.ModelAbstract;
+
+/**
+ * Checks that adding and removing models leaves the same table a fresh Argument builds over the resulting KB.
+ */
+class KnowledgeModelUpdateTest {
+    private static final String[] EXPRESSIONS = {
+        "A -> B", "B | C", "~C", "D <> A", "E >-< B", "A & G", "H -> (I | A)", "~(J & C)", "K", "B -> K",
+    };
+
+    @Test
+    void addingAModelWithNewOperandsWidensTheTable() throws Exception {
+        Argument<ModelAbstract> argument = new Argument<>(models("A -> B", "A"), false);
+        assertEquals("True", argument.checkAllTTModels("B"));
+
+        argument.addKnowledgeModel(model("B -> C"));
+        assertMatchesFreshBuild(argument);
+        assertEquals("True", argument.checkAllTTModels("C"));
+
+        argument.addKnowledgeModel(model("D | ~C"));
+        assertMatchesFreshBuild(argument);
+        assertEquals("True", argument.checkAllTTModels("D"));
+    }
+
+    @Test
+    void removingAModelRestoresTheNarrowerTable() throws Exception {
+        Argument<ModelAbstract> argument = new Argument<>(models("A -> B", "A", "B -> C"), false);
+        assertEquals("True", argument.checkAllTTModels("C"));
+
+        // Drops C from the operands, so the table is rebuilt rather than narrowed in place
+        argument.removeKnowledgeModel(2);
+        assertMatchesFreshBuild(argument);
+        assertEquals("True", argument.checkAllTTModels("B"));
+
+        argument.removeKnowledgeModel(0);
+        assertMatchesFreshBuild(argument);
+        assertEquals("False", argument.checkAllTTModels("~A"));
+    }
+
+    @Test
+    void randomEditsMatchFreshBuilds() throws Exception {
+        Random random = new Random(17);
+        for (int run = 0; run < 30; run++) {
+            Argument<ModelAbstract> argument = new Argument<>(models(EXPRESSIONS[random.nextInt(EXPRESSIONS.length)]),
+                    false);
+            for (int edit = 0; edit < 12; edit++) {
+                int size = argument.getKnowledgeBaseSize();
+                if (size > 1 && random.nextInt(3) == 0)
+                    argument.removeKnowledgeModel(random.nextInt(size));
+                else
+                    argument.addKnowledgeModel(model(EXPRESSIONS[random.nextInt(EXPRESSIONS.length)]));
+                assertMatchesFreshBuild(argument);
+            }
+        }
+    }
+
+    private static void assertMatchesFreshBuild(Argument<ModelAbstract> argument) throws Exception {
+        Argument<ModelAbstract> fresh = new Argument<>(argument.getKnowledgeBaseModels(), false);
+        String kb = String.join(", ", argument.getKnowledgeBaseExpressions());
+        assertArrayEquals(fresh.getAllTruthTable(), argument.getAllTruthTable(), kb);
+        assertArrayEquals(fresh.getAllTableValues(), argument.getAllTableValues(), kb);
+        assertArrayEquals(fresh.getKBColumn(), argument.getKBColumn(), kb);
+        assertEquals(fresh.getAllTrueKBModels(), argument.getAllTrueKBModels(), kb);
+    }
+
+    private static ModelAbstract model(String expression) throws Exception {
+        return new DeterministicModel(expression, expression);
+    }
+
+    private static ModelAbstract[] models(String... expressions) throws Exception {
+        List<ModelAbstract> models = new ArrayList<>();
+        for (String expression : expressions)
+            models.add(model(expression));
+        return models.toArray(new ModelAbstract[0]);
+    }
+}
@@ -0,0 +1,65 @@
+package ai.knowlej.PropositionalLogic.Logic;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+import ai.knowlej.PropositionalLogic.Logic.Argument.EntailmentMode;
+import ai.knowlej.PropositionalLogic.Models.LogicModels.DeterministicModel;
+import ai.knowlej.PropositionalLogic.Models.LogicModels.ModelAbstract;
+
+class ParallelTruthTableTest {
+
+    @Test
+    void parallelBuildMatchesSequentialBuild() throws Exception {
+        // 11 to 15 operands, so the tables span 32 to 512 words and are split across tasks
+        String[][] knowledgeBases = {
+            { "A -> B", "B | C", "D <> E", "G & ~H | I", "J >-< K" },
+            { "A | B | C | D", "E -> G", "H -> I", "J -> K", "L -> M", "~A | ~M" },
+            { "(A & B) -> (C | D)", "E <> (G | H)", "I >-< J", "K | L | M | N", "O -> ~P", "P | A" },
+            { "A <> B", "B <> C", "C <> D", "D <> E", "E <> G", "G <> H", "H <> I", "I <> J", "J <> K", "K <> L" },
+        };
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (String[] expressions : knowledgeBases) {
+                ModelAbstract[] models = new ModelAbstract[expressions.length];
+                for (int i = 0; i < models.length; i++)
+                    models[i] = new DeterministicModel("m" + i, expressions[i]);
+                Argument<ModelAbstract> sequential = new Argument<>(models, false);
+                Argument<ModelAbstract> parallel = new Argument<>(models, false, EntailmentMode.TRUTH_TABLE, pool);
+                assertTrue(parallel.isParallelBuild());
+
+                String kb = String.join(", ", expressions);
+                assertArrayEquals(sequential.getKBColumn(), parallel.getKBColumn(), kb);
+                assertEquals(sequential.getAllTrueKBModels(), parallel.getAllTrueKBModels(), kb);
+                assertArrayEquals(sequential.getAllTruthTable(), parallel.getAllTruthTable(), kb);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void switchingToParallelRebuildsTheSameTable() throws Exception {
+        ModelAbstract[] models = {
+            new DeterministicModel("m0", "A -> (B & C)"),
+            new DeterministicModel("m1", "D | E | G | H"),
+            new DeterministicModel("m2", "I <> ~J"),
+            new DeterministicModel("m3", "K -> L"),
+            new DeterministicModel("m4", "M >-< A"),
+        };
+        Argument<ModelAbstract> argument = new Argument<>(models, false);
+        long[] sequentialColumn = argument.getKBColumn().clone();
+        String sequentialAnswer = argument.checkAllTTModels("A -> C");
+
+        argument.setParallelBuild(true, null);
+        argument.setKnowledgeBase(models);
+        assertArrayEquals(sequentialColumn, argument.getKBColumn());
+        assertEquals(sequentialAnswer, argument.checkAllTTModels("A -> C"));
+    }
+}
@@ -0,0 +1,113 @@
+package ai.knowlej.PropositionalLogic.Logic;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Random formulas for the cross-checks, and the truth table they are checked against.
+ * Operands are drawn from the first letters of {@link #OPERANDS}, which skips the 'T' and 'F' constants.
+ */
+final class RandomFormulas {
+    /** the fifteen operands a truth table allows */
+    static final String OPERANDS = "ABCDEGHIJKLMNOP";
+    private static final String BINARY_OPERATORS = "aomix";
+
+    private final Random random;
+
+    RandomFormulas(long seed) {
+        this.random = new Random(seed);
+    }
+
+    Random random() {
+        return this.random;
+    }
+
+    /**
+     * @param depth    most binary operators on any path from the root
+     * @param operands number of operands to draw from, at most 15
+     * @return random formula; its infix form stays within the parser's parenthesis limit for depths up to 3
+     */
+    ExpressionTree formula(int depth, int operands) {
+        return formula(depth, OPERANDS.substring(0, operands));
+    }
+
+    /**
+     * @return random formula over the given operand letters, drawn as in {@link #formula(int, int)}
+     */
+    ExpressionTree formula(int depth, String operands) {
+        if (depth == 0 || this.random.nextInt(4) == 0) {
+            ExpressionTree operand = ExpressionTree.leaf(operands.charAt(this.random.nextInt(operands.length())));
+            return this.random.nextBoolean() ? ExpressionTree.not(operand) : operand;
+        }
+        char operator = BINARY_OPERATORS.charAt(this.random.nextInt(BINARY_OPERATORS.length()));
+        ExpressionTree formula = ExpressionTree.binary(operator, formula(depth - 1, operands),
+                formula(depth - 1, operands));
+        return (this.random.nextInt(5) == 0) ? ExpressionTree.not(formula) : formula;
+    }
+
+    /**
+     * @return operands of the formulas in order of first appearance, constants excluded
+     */
+    static String operandsOf(List<ExpressionTree> formulas) {
+        StringBuilder operands = new StringBuilder();
+        for (ExpressionTree formula : formulas)
+            collectOperands(formula, operands);
+        return operands.toString();
+    }
+
+    private static void collectOperands(ExpressionTree formula, StringBuilder operands) {
+        if (formula.isOperand()) {
+            if (operands.indexOf(String.valueOf(formula.getSymbol())) < 0)
+                operands.append(formula.getSymbol());
+        } else if (!formula.isConstant()) {
+            collectOperands(formula.getLeft(), operands);
+            if (formula.getRight() != null)
+                collectOperands(formula.getRight(), operands);
+        }
+    }
+
+    /**
+     * @return true if every assignment satisfying all premises satisfies the conclusion
+     */
+    static boolean entails(List<ExpressionTree> premises, ExpressionTree conclusion) {
+        List<ExpressionTree> all = new ArrayList<>(premises);
+        all.add(conclusion);
+        String operands = operandsOf(all);
+        byte[] operandBits = ExpressionTree.operandBitIndex(operands.toCharArray());
+        for (long assignment = 0; assignment < 1L << operands.length(); assignment++) {
+            if (satisfiesAll(premises, assignment, operandBits) && !conclusion.evaluate(assignment, operandBits))
+                return false;
+        }
+        return true;
+    }
+
+    static boolean equivalent(ExpressionTree a, ExpressionTree b) {
+        return entails(List.of(a), b) && entails(List.of(b), a);
+    }
+
+    static boolean satisfiable(List<ExpressionTree> formulas) {
+        return !entails(formulas, ExpressionTree.leaf('F'));
+    }
+
+    /**
+     * @return assignments to the given operands satisfying the formula
+     */
+    static long countModels(ExpressionTree formula, String operands) {
+        byte[] operandBits = ExpressionTree.operandBitIndex(operands.toCharArray());
+        long models = 0;
+        for (long assignment = 0; assignment < 1L << operands.length(); assignment++) {
+            if (formula.evaluate(assignment, operandBits))
+                models++;
+        }
+        return models;
+    }
+
+    private static boolean satisfiesAll(List<ExpressionTree> formulas, long assignment, byte[] operandBits) {
+        for (ExpressionTree formula : formulas) {
+            if (!formula.evaluate(assignment, operandBits))
+                return false;
+        }
+        return true;
+    }
+}